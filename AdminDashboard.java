@@ -4,13 +4,26 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.sql.*;
-import java.text.DecimalFormat;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public class AdminDashboard extends JFrame {
     private User currentUser;
     private JTabbedPane tabbedPane;
-    private DefaultTableModel modelUsers, modelCategories, modelShipments;
+    private PagedTableModel modelUsers;
+    private DefaultTableModel modelCategories, modelShipments;
     private JTable tableUsers, tableCategories, tableShipments;
+    private JPanel statsLinesPanel;
+    private JComboBox<String> cmbStatsWindow;
+    private JCheckBox chkStatsExact;
+
+    // Keys for loads where a newer request should replace one still in flight.
+    private static final String CATEGORIES_REQUEST = "admin.categories";
+    private static final String SHIPMENTS_REQUEST = "admin.shipments";
+    private static final String STATS_REQUEST = "admin.stats";
 
     public AdminDashboard(User user) {
         this.currentUser = user;
@@ -19,6 +32,9 @@ public class AdminDashboard extends JFrame {
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLocationRelativeTo(null);
 
+        // Feeds the recent top lists on the statistics tab
+        PopularityTracker.start();
+
         tabbedPane = new JTabbedPane();
         tabbedPane.addTab("User Management", createUserPanel());
         tabbedPane.addTab("Category Management", createCategoryPanel());
@@ -57,12 +73,11 @@ add(bottomPanel, BorderLayout.SOUTH);
         JPanel panel = new JPanel(new BorderLayout());
 
         String[] columns = {"User ID", "Name", "Email", "Role"};
-        modelUsers = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int col) {
-                return false;
-            }
-        };
+        modelUsers = new PagedTableModel(columns);
+        modelUsers.setErrorHandler(ex -> {
+            ex.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Error loading users: " + ex.getMessage());
+        });
         tableUsers = new JTable(modelUsers);
         tableUsers.getColumnModel().getColumn(0).setMinWidth(0);
         tableUsers.getColumnModel().getColumn(0).setMaxWidth(0);
@@ -105,32 +120,24 @@ add(bottomPanel, BorderLayout.SOUTH);
     }
 
     private void loadUsers(String roleFilter) {
-        modelUsers.setRowCount(0);
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "SELECT user_id, name, email, role FROM Users";
-            if (!"All".equals(roleFilter)) {
-                sql += " WHERE role = ?";
-            }
-            sql += " ORDER BY name";
-            
-            PreparedStatement pstmt = conn.prepareStatement(sql);
-            if (!"All".equals(roleFilter)) {
-                pstmt.setString(1, roleFilter);
-            }
-            ResultSet rs = pstmt.executeQuery();
-
-            while (rs.next()) {
-                modelUsers.addRow(new Object[]{
-                    rs.getInt("user_id"),
-                    rs.getString("name"),
-                    rs.getString("email"),
-                    rs.getString("role")
-                });
-            }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error loading users: " + ex.getMessage());
+        String where = "1 = 1";
+        List<Object> params = new ArrayList<>();
+        if (!"All".equals(roleFilter)) {
+            where = "role = ?";
+            params.add(roleFilter);
         }
+
+        modelUsers.setSource(new PagedTableModel.SqlPageSource()
+            .select("user_id, name, email, role")
+            .from("Users")
+            .where(where, params)
+            .orderBy(new String[]{"name", "user_id"}, new int[]{1, 0}, false)
+            .map(rs -> new Object[]{
+                rs.getInt("user_id"),
+                rs.getString("name"),
+                rs.getString("email"),
+                rs.getString("role")
+            }));
     }
 
     private void addUser() {
@@ -161,48 +168,45 @@ add(bottomPanel, BorderLayout.SOUTH);
                 return;
             }
 
-            try (Connection conn = DatabaseConnection.getConnection()) {
-                // Check email uniqueness
-                String checkSql = "SELECT user_id FROM Users WHERE email = ?";
-                PreparedStatement checkStmt = conn.prepareStatement(checkSql);
-                checkStmt.setString(1, txtEmail.getText().trim());
-                ResultSet checkRs = checkStmt.executeQuery();
-                
-                if (checkRs.next()) {
-                    JOptionPane.showMessageDialog(this, 
-                        "Email already exists! Please use a different email.", 
-                        "Validation Error", 
-                        JOptionPane.ERROR_MESSAGE);
-                    return;
-                }
+            String name = txtName.getText().trim();
+            String email = txtEmail.getText().trim();
+            String password = new String(txtPassword.getPassword());
+            String role = (String) cmbRole.getSelectedItem();
 
-                String sql = "INSERT INTO Users (name, email, password, role) VALUES (?, ?, ?, ?)";
-                PreparedStatement pstmt = conn.prepareStatement(sql);
-                pstmt.setString(1, txtName.getText().trim());
-                pstmt.setString(2, txtEmail.getText().trim());
-                pstmt.setString(3, new String(txtPassword.getPassword()));
-                pstmt.setString(4, (String) cmbRole.getSelectedItem());
-                pstmt.executeUpdate();
-
-                // If seller, create catalog
-                if ("Seller".equals(cmbRole.getSelectedItem())) {
-                    String catalogSql = "INSERT INTO Catalogs (seller_id) VALUES (?)";
-                    PreparedStatement catalogStmt = conn.prepareStatement(catalogSql);
-                    catalogStmt.setInt(1, getUserIdByEmail(conn, txtEmail.getText().trim()));
-                    catalogStmt.executeUpdate();
-                }
+            DataAccessExecutor.run(() -> {
+                try (Connection conn = DatabaseConnection.getConnection()) {
+                    // Check email uniqueness
+                    String checkSql = "SELECT user_id FROM Users WHERE email = ?";
+                    PreparedStatement checkStmt = conn.prepareStatement(checkSql);
+                    checkStmt.setString(1, email);
+                    ResultSet checkRs = checkStmt.executeQuery();
+                    
+                    if (checkRs.next()) {
+                        throw new BusinessException("Email already exists! Please use a different email.");
+                    }
 
+                    String sql = "INSERT INTO Users (name, email, password, role) VALUES (?, ?, ?, ?)";
+                    PreparedStatement pstmt = conn.prepareStatement(sql);
+                    pstmt.setString(1, name);
+                    pstmt.setString(2, email);
+                    pstmt.setString(3, password);
+                    pstmt.setString(4, role);
+                    pstmt.executeUpdate();
+
+                    // If seller, create catalog
+                    if ("Seller".equals(role)) {
+                        String catalogSql = "INSERT INTO Catalogs (seller_id) VALUES (?)";
+                        PreparedStatement catalogStmt = conn.prepareStatement(catalogSql);
+                        catalogStmt.setInt(1, getUserIdByEmail(conn, email));
+                        catalogStmt.executeUpdate();
+                    }
+                }
+            }, () -> {
+                // A new seller brings a new catalog.
+                ReferenceDataCache.invalidate();
                 JOptionPane.showMessageDialog(this, "User added successfully!");
                 loadUsers();
-            } catch (SQLIntegrityConstraintViolationException e) {
-                JOptionPane.showMessageDialog(this, 
-                    "Email already exists! Please use a different email.", 
-                    "Validation Error", 
-                    JOptionPane.ERROR_MESSAGE);
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-                JOptionPane.showMessageDialog(this, "Error adding user: " + ex.getMessage());
-            }
+            }, validationError("Email already exists! Please use a different email.", "Error adding user"));
         }
     }
 
@@ -212,6 +216,10 @@ add(bottomPanel, BorderLayout.SOUTH);
             JOptionPane.showMessageDialog(this, "Please select a user to edit!");
             return;
         }
+        if (!modelUsers.isRowLoaded(row)) {
+            JOptionPane.showMessageDialog(this, "This row is still loading, please try again.");
+            return;
+        }
 
         int userId = (Integer) modelUsers.getValueAt(row, 0);
         String currentName = (String) modelUsers.getValueAt(row, 1);
@@ -232,42 +240,38 @@ add(bottomPanel, BorderLayout.SOUTH);
 
         int option = JOptionPane.showConfirmDialog(this, message, "Edit User", JOptionPane.OK_CANCEL_OPTION);
         if (option == JOptionPane.OK_OPTION) {
-            try (Connection conn = DatabaseConnection.getConnection()) {
-                // Check email uniqueness if changed
-                if (!txtEmail.getText().trim().equals(currentEmail)) {
-                    String checkSql = "SELECT user_id FROM Users WHERE email = ?";
-                    PreparedStatement checkStmt = conn.prepareStatement(checkSql);
-                    checkStmt.setString(1, txtEmail.getText().trim());
-                    ResultSet checkRs = checkStmt.executeQuery();
-                    
-                    if (checkRs.next()) {
-                        JOptionPane.showMessageDialog(this, 
-                            "Email already exists! Please use a different email.", 
-                            "Validation Error", 
-                            JOptionPane.ERROR_MESSAGE);
-                        return;
+            String name = txtName.getText().trim();
+            String email = txtEmail.getText().trim();
+            String role = (String) cmbRole.getSelectedItem();
+
+            DataAccessExecutor.run(() -> {
+                try (Connection conn = DatabaseConnection.getConnection()) {
+                    // Check email uniqueness if changed
+                    if (!email.equals(currentEmail)) {
+                        String checkSql = "SELECT user_id FROM Users WHERE email = ?";
+                        PreparedStatement checkStmt = conn.prepareStatement(checkSql);
+                        checkStmt.setString(1, email);
+                        ResultSet checkRs = checkStmt.executeQuery();
+                        
+                        if (checkRs.next()) {
+                            throw new BusinessException("Email already exists! Please use a different email.");
+                        }
                     }
-                }
-
-                String sql = "UPDATE Users SET name = ?, email = ?, role = ? WHERE user_id = ?";
-                PreparedStatement pstmt = conn.prepareStatement(sql);
-                pstmt.setString(1, txtName.getText().trim());
-                pstmt.setString(2, txtEmail.getText().trim());
-                pstmt.setString(3, (String) cmbRole.getSelectedItem());
-                pstmt.setInt(4, userId);
-                pstmt.executeUpdate();
 
+                    String sql = "UPDATE Users SET name = ?, email = ?, role = ? WHERE user_id = ?";
+                    PreparedStatement pstmt = conn.prepareStatement(sql);
+                    pstmt.setString(1, name);
+                    pstmt.setString(2, email);
+                    pstmt.setString(3, role);
+                    pstmt.setInt(4, userId);
+                    pstmt.executeUpdate();
+                }
+            }, () -> {
+                // Catalogs are listed under the seller's name.
+                ReferenceDataCache.invalidate();
                 JOptionPane.showMessageDialog(this, "User updated successfully!");
                 loadUsers();
-            } catch (SQLIntegrityConstraintViolationException e) {
-                JOptionPane.showMessageDialog(this, 
-                    "Email already exists! Please use a different email.", 
-                    "Validation Error", 
-                    JOptionPane.ERROR_MESSAGE);
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-                JOptionPane.showMessageDialog(this, "Error updating user: " + ex.getMessage());
-            }
+            }, validationError("Email already exists! Please use a different email.", "Error updating user"));
         }
     }
 
@@ -277,6 +281,10 @@ add(bottomPanel, BorderLayout.SOUTH);
             JOptionPane.showMessageDialog(this, "Please select a user to delete!");
             return;
         }
+        if (!modelUsers.isRowLoaded(row)) {
+            JOptionPane.showMessageDialog(this, "This row is still loading, please try again.");
+            return;
+        }
 
         int userId = (Integer) modelUsers.getValueAt(row, 0);
         String userName = (String) modelUsers.getValueAt(row, 1);
@@ -294,41 +302,30 @@ add(bottomPanel, BorderLayout.SOUTH);
             JOptionPane.YES_NO_OPTION);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            try (Connection conn = DatabaseConnection.getConnection()) {
-                // Check for active orders
-                String checkSql = "SELECT COUNT(*) as count FROM Orders WHERE customer_id = ? OR seller_id = ?";
-                PreparedStatement checkStmt = conn.prepareStatement(checkSql);
-                checkStmt.setInt(1, userId);
-                checkStmt.setInt(2, userId);
-                ResultSet checkRs = checkStmt.executeQuery();
-                
-                if (checkRs.next() && checkRs.getInt("count") > 0) {
-                    JOptionPane.showMessageDialog(this, 
-                        "Cannot delete user! User has active orders.\n" +
-                        "The database constraint prevents deletion.", 
-                        "Delete Error", 
-                        JOptionPane.ERROR_MESSAGE);
-                    return;
-                }
-
-                String sql = "DELETE FROM Users WHERE user_id = ?";
-                PreparedStatement pstmt = conn.prepareStatement(sql);
-                pstmt.setInt(1, userId);
-                pstmt.executeUpdate();
+            DataAccessExecutor.run(() -> {
+                try (Connection conn = DatabaseConnection.getConnection()) {
+                    // Check for active orders
+                    String checkSql = "SELECT COUNT(*) as count FROM Orders WHERE customer_id = ? OR seller_id = ?";
+                    PreparedStatement checkStmt = conn.prepareStatement(checkSql);
+                    checkStmt.setInt(1, userId);
+                    checkStmt.setInt(2, userId);
+                    ResultSet checkRs = checkStmt.executeQuery();
+                    
+                    if (checkRs.next() && checkRs.getInt("count") > 0) {
+                        throw new BusinessException("Cannot delete user! User has active orders.\n" +
+                                                    "The database constraint prevents deletion.");
+                    }
 
+                    String sql = "DELETE FROM Users WHERE user_id = ?";
+                    PreparedStatement pstmt = conn.prepareStatement(sql);
+                    pstmt.setInt(1, userId);
+                    pstmt.executeUpdate();
+                }
+            }, () -> {
+                ReferenceDataCache.invalidate();
                 JOptionPane.showMessageDialog(this, "User deleted successfully!");
                 loadUsers();
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-                if (ex.getMessage().contains("foreign key") || ex.getMessage().contains("RESTRICT")) {
-                    JOptionPane.showMessageDialog(this, 
-                        "Cannot delete user! User is referenced in existing orders.", 
-                        "Delete Error", 
-                        JOptionPane.ERROR_MESSAGE);
-                } else {
-                    JOptionPane.showMessageDialog(this, "Error deleting user: " + ex.getMessage());
-                }
-            }
+            }, deleteError("Cannot delete user! User is referenced in existing orders.", "Error deleting user"));
         }
     }
 
@@ -369,34 +366,42 @@ add(bottomPanel, BorderLayout.SOUTH);
     }
 
     private void loadCategories() {
-        modelCategories.setRowCount(0);
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "SELECT c.category_id, c.name, " +
-                        "COALESCE(p.name, 'None') as parent_name " +
-                        "FROM Categories c " +
-                        "LEFT JOIN Categories p ON c.parent_category_id = p.category_id " +
-                        "ORDER BY c.name";
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
-
-            while (rs.next()) {
-                modelCategories.addRow(new Object[]{
-                    rs.getInt("category_id"),
-                    rs.getString("name"),
-                    rs.getString("parent_name")
-                });
+        DataAccessExecutor.submit(CATEGORIES_REQUEST, () -> {
+            List<Object[]> rows = new ArrayList<>();
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                String sql = "SELECT c.category_id, c.name, " +
+                            "COALESCE(p.name, 'None') as parent_name " +
+                            "FROM Categories c " +
+                            "LEFT JOIN Categories p ON c.parent_category_id = p.category_id " +
+                            "ORDER BY c.name";
+                Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery(sql);
+
+                while (rs.next()) {
+                    rows.add(new Object[]{
+                        rs.getInt("category_id"),
+                        rs.getString("name"),
+                        rs.getString("parent_name")
+                    });
+                }
             }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error loading categories: " + ex.getMessage());
-        }
+            return rows;
+        }, rows -> {
+            modelCategories.setRowCount(0);
+            rows.forEach(modelCategories::addRow);
+        }, DataAccessExecutor.showError(this, "Error loading categories"));
     }
 
     private void addCategory() {
+        DataAccessExecutor.submit(this::fetchCategoryNames, this::showAddCategoryDialog,
+                                  DataAccessExecutor.showError(this, "Error loading categories"));
+    }
+
+    private void showAddCategoryDialog(List<String> categoryNames) {
         JTextField txtName = new JTextField(20);
         JComboBox<String> cmbParent = new JComboBox<>();
         cmbParent.addItem("None");
-        loadCategoriesForCombo(cmbParent);
+        categoryNames.forEach(cmbParent::addItem);
 
         Object[] message = {
             "Category Name:", txtName,
@@ -410,51 +415,44 @@ add(bottomPanel, BorderLayout.SOUTH);
                 return;
             }
 
-            try (Connection conn = DatabaseConnection.getConnection()) {
-                // Check name uniqueness
-                String checkSql = "SELECT category_id FROM Categories WHERE name = ?";
-                PreparedStatement checkStmt = conn.prepareStatement(checkSql);
-                checkStmt.setString(1, txtName.getText().trim());
-                ResultSet checkRs = checkStmt.executeQuery();
-                
-                if (checkRs.next()) {
-                    JOptionPane.showMessageDialog(this, 
-                        "Category name already exists!", 
-                        "Validation Error", 
-                        JOptionPane.ERROR_MESSAGE);
-                    return;
-                }
+            String name = txtName.getText().trim();
+            String selectedParent = (String) cmbParent.getSelectedItem();
 
-                String selectedParent = (String) cmbParent.getSelectedItem();
-                String sql;
-                PreparedStatement pstmt;
+            DataAccessExecutor.run(() -> {
+                try (Connection conn = DatabaseConnection.getConnection()) {
+                    // Check name uniqueness
+                    String checkSql = "SELECT category_id FROM Categories WHERE name = ?";
+                    PreparedStatement checkStmt = conn.prepareStatement(checkSql);
+                    checkStmt.setString(1, name);
+                    ResultSet checkRs = checkStmt.executeQuery();
+                    
+                    if (checkRs.next()) {
+                        throw new BusinessException("Category name already exists!");
+                    }
 
-                if ("None".equals(selectedParent) || selectedParent == null) {
-                    sql = "INSERT INTO Categories (name, created_by) VALUES (?, ?)";
-                    pstmt = conn.prepareStatement(sql);
-                    pstmt.setString(1, txtName.getText().trim());
-                    pstmt.setInt(2, currentUser.getUserId());
-                } else {
-                    int parentId = getCategoryIdByName(conn, selectedParent);
-                    sql = "INSERT INTO Categories (name, parent_category_id, created_by) VALUES (?, ?, ?)";
-                    pstmt = conn.prepareStatement(sql);
-                    pstmt.setString(1, txtName.getText().trim());
-                    pstmt.setInt(2, parentId);
-                    pstmt.setInt(3, currentUser.getUserId());
+                    String sql;
+                    PreparedStatement pstmt;
+
+                    if ("None".equals(selectedParent) || selectedParent == null) {
+                        sql = "INSERT INTO Categories (name, created_by) VALUES (?, ?)";
+                        pstmt = conn.prepareStatement(sql);
+                        pstmt.setString(1, name);
+                        pstmt.setInt(2, currentUser.getUserId());
+                    } else {
+                        int parentId = getCategoryIdByName(selectedParent);
+                        sql = "INSERT INTO Categories (name, parent_category_id, created_by) VALUES (?, ?, ?)";
+                        pstmt = conn.prepareStatement(sql);
+                        pstmt.setString(1, name);
+                        pstmt.setInt(2, parentId);
+                        pstmt.setInt(3, currentUser.getUserId());
+                    }
+                    pstmt.executeUpdate();
                 }
-                pstmt.executeUpdate();
-
+            }, () -> {
+                ReferenceDataCache.invalidate();
                 JOptionPane.showMessageDialog(this, "Category added successfully!");
                 loadCategories();
-            } catch (SQLIntegrityConstraintViolationException e) {
-                JOptionPane.showMessageDialog(this, 
-                    "Category name already exists!", 
-                    "Validation Error", 
-                    JOptionPane.ERROR_MESSAGE);
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-                JOptionPane.showMessageDialog(this, "Error adding category: " + ex.getMessage());
-            }
+            }, validationError("Category name already exists!", "Error adding category"));
         }
     }
 
@@ -469,10 +467,17 @@ add(bottomPanel, BorderLayout.SOUTH);
         String currentName = (String) modelCategories.getValueAt(row, 1);
         String currentParent = (String) modelCategories.getValueAt(row, 2);
 
+        DataAccessExecutor.submit(this::fetchCategoryNames,
+            categoryNames -> showEditCategoryDialog(categoryId, currentName, currentParent, categoryNames),
+            DataAccessExecutor.showError(this, "Error loading categories"));
+    }
+
+    private void showEditCategoryDialog(int categoryId, String currentName, String currentParent,
+                                        List<String> categoryNames) {
         JTextField txtName = new JTextField(currentName, 20);
         JComboBox<String> cmbParent = new JComboBox<>();
         cmbParent.addItem("None");
-        loadCategoriesForCombo(cmbParent);
+        categoryNames.forEach(cmbParent::addItem);
         if (!"None".equals(currentParent)) {
             cmbParent.setSelectedItem(currentParent);
         }
@@ -484,60 +489,49 @@ add(bottomPanel, BorderLayout.SOUTH);
 
         int option = JOptionPane.showConfirmDialog(this, message, "Edit Category", JOptionPane.OK_CANCEL_OPTION);
         if (option == JOptionPane.OK_OPTION) {
-            try (Connection conn = DatabaseConnection.getConnection()) {
-                // Check name uniqueness if changed
-                if (!txtName.getText().trim().equals(currentName)) {
-                    String checkSql = "SELECT category_id FROM Categories WHERE name = ?";
-                    PreparedStatement checkStmt = conn.prepareStatement(checkSql);
-                    checkStmt.setString(1, txtName.getText().trim());
-                    ResultSet checkRs = checkStmt.executeQuery();
-                    
-                    if (checkRs.next()) {
-                        JOptionPane.showMessageDialog(this, 
-                            "Category name already exists!", 
-                            "Validation Error", 
-                            JOptionPane.ERROR_MESSAGE);
-                        return;
+            String name = txtName.getText().trim();
+            String selectedParent = (String) cmbParent.getSelectedItem();
+
+            DataAccessExecutor.run(() -> {
+                try (Connection conn = DatabaseConnection.getConnection()) {
+                    // Check name uniqueness if changed
+                    if (!name.equals(currentName)) {
+                        String checkSql = "SELECT category_id FROM Categories WHERE name = ?";
+                        PreparedStatement checkStmt = conn.prepareStatement(checkSql);
+                        checkStmt.setString(1, name);
+                        ResultSet checkRs = checkStmt.executeQuery();
+                        
+                        if (checkRs.next()) {
+                            throw new BusinessException("Category name already exists!");
+                        }
                     }
-                }
-
-                String selectedParent = (String) cmbParent.getSelectedItem();
-                String sql;
-                PreparedStatement pstmt;
 
-                if ("None".equals(selectedParent) || selectedParent == null) {
-                    sql = "UPDATE Categories SET name = ?, parent_category_id = NULL WHERE category_id = ?";
-                    pstmt = conn.prepareStatement(sql);
-                    pstmt.setString(1, txtName.getText().trim());
-                    pstmt.setInt(2, categoryId);
-                } else {
-                    int parentId = getCategoryIdByName(conn, selectedParent);
-                    if (parentId == categoryId) {
-                        JOptionPane.showMessageDialog(this, 
-                            "A category cannot be its own parent!", 
-                            "Validation Error", 
-                            JOptionPane.ERROR_MESSAGE);
-                        return;
+                    String sql;
+                    PreparedStatement pstmt;
+
+                    if ("None".equals(selectedParent) || selectedParent == null) {
+                        sql = "UPDATE Categories SET name = ?, parent_category_id = NULL WHERE category_id = ?";
+                        pstmt = conn.prepareStatement(sql);
+                        pstmt.setString(1, name);
+                        pstmt.setInt(2, categoryId);
+                    } else {
+                        int parentId = getCategoryIdByName(selectedParent);
+                        if (parentId == categoryId) {
+                            throw new BusinessException("A category cannot be its own parent!");
+                        }
+                        sql = "UPDATE Categories SET name = ?, parent_category_id = ? WHERE category_id = ?";
+                        pstmt = conn.prepareStatement(sql);
+                        pstmt.setString(1, name);
+                        pstmt.setInt(2, parentId);
+                        pstmt.setInt(3, categoryId);
                     }
-                    sql = "UPDATE Categories SET name = ?, parent_category_id = ? WHERE category_id = ?";
-                    pstmt = conn.prepareStatement(sql);
-                    pstmt.setString(1, txtName.getText().trim());
-                    pstmt.setInt(2, parentId);
-                    pstmt.setInt(3, categoryId);
+                    pstmt.executeUpdate();
                 }
-                pstmt.executeUpdate();
-
+            }, () -> {
+                ReferenceDataCache.invalidate();
                 JOptionPane.showMessageDialog(this, "Category updated successfully!");
                 loadCategories();
-            } catch (SQLIntegrityConstraintViolationException e) {
-                JOptionPane.showMessageDialog(this, 
-                    "Category name already exists!", 
-                    "Validation Error", 
-                    JOptionPane.ERROR_MESSAGE);
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-                JOptionPane.showMessageDialog(this, "Error updating category: " + ex.getMessage());
-            }
+            }, validationError("Category name already exists!", "Error updating category"));
         }
     }
 
@@ -558,40 +552,30 @@ add(bottomPanel, BorderLayout.SOUTH);
             JOptionPane.YES_NO_OPTION);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            try (Connection conn = DatabaseConnection.getConnection()) {
-                // Check if category has products
-                String checkSql = "SELECT COUNT(*) as count FROM Products WHERE category_id = ?";
-                PreparedStatement checkStmt = conn.prepareStatement(checkSql);
-                checkStmt.setInt(1, categoryId);
-                ResultSet checkRs = checkStmt.executeQuery();
-                
-                if (checkRs.next() && checkRs.getInt("count") > 0) {
-                    JOptionPane.showMessageDialog(this, 
-                        "Cannot delete category! It has products.\n" +
-                        "The database constraint prevents deletion.", 
-                        "Delete Error", 
-                        JOptionPane.ERROR_MESSAGE);
-                    return;
-                }
-
-                String sql = "DELETE FROM Categories WHERE category_id = ?";
-                PreparedStatement pstmt = conn.prepareStatement(sql);
-                pstmt.setInt(1, categoryId);
-                pstmt.executeUpdate();
+            DataAccessExecutor.run(() -> {
+                try (Connection conn = DatabaseConnection.getConnection()) {
+                    // Check if category has products
+                    String checkSql = "SELECT COUNT(*) as count FROM Products WHERE category_id = ?";
+                    PreparedStatement checkStmt = conn.prepareStatement(checkSql);
+                    checkStmt.setInt(1, categoryId);
+                    ResultSet checkRs = checkStmt.executeQuery();
+                    
+                    if (checkRs.next() && checkRs.getInt("count") > 0) {
+                        throw new BusinessException("Cannot delete category! It has products.\n" +
+                                                    "The database constraint prevents deletion.");
+                    }
 
+                    String sql = "DELETE FROM Categories WHERE category_id = ?";
+                    PreparedStatement pstmt = conn.prepareStatement(sql);
+                    pstmt.setInt(1, categoryId);
+                    pstmt.executeUpdate();
+                }
+            }, () -> {
+                ReferenceDataCache.invalidate();
                 JOptionPane.showMessageDialog(this, "Category deleted successfully!");
                 loadCategories();
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-                if (ex.getMessage().contains("foreign key") || ex.getMessage().contains("RESTRICT")) {
-                    JOptionPane.showMessageDialog(this, 
-                        "Cannot delete category! It is referenced by products or has subcategories.", 
-                        "Delete Error", 
-                        JOptionPane.ERROR_MESSAGE);
-                } else {
-                    JOptionPane.showMessageDialog(this, "Error deleting category: " + ex.getMessage());
-                }
-            }
+            }, deleteError("Cannot delete category! It is referenced by products or has subcategories.",
+                           "Error deleting category"));
         }
     }
 
@@ -623,33 +607,36 @@ add(bottomPanel, BorderLayout.SOUTH);
     }
 
     private void loadShipments() {
-        modelShipments.setRowCount(0);
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "SELECT s.order_id, " +
-                        "cu.name as customer_name, su.name as seller_name, " +
-                        "s.tracking_number, s.status, s.shipped_date " +
-                        "FROM Shipments s " +
-                        "JOIN Orders o ON s.order_id = o.order_id " +
-                        "JOIN Users cu ON o.customer_id = cu.user_id " +
-                        "JOIN Users su ON o.seller_id = su.user_id " +
-                        "ORDER BY s.order_id DESC";
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
-
-            while (rs.next()) {
-                modelShipments.addRow(new Object[]{
-                    rs.getInt("order_id"),
-                    rs.getString("customer_name"),
-                    rs.getString("seller_name"),
-                    rs.getString("tracking_number") != null ? rs.getString("tracking_number") : "N/A",
-                    rs.getString("status"),
-                    rs.getDate("shipped_date") != null ? rs.getDate("shipped_date") : "N/A"
-                });
+        DataAccessExecutor.submit(SHIPMENTS_REQUEST, () -> {
+            List<Object[]> rows = new ArrayList<>();
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                String sql = "SELECT s.order_id, " +
+                            "cu.name as customer_name, su.name as seller_name, " +
+                            "s.tracking_number, s.status, s.shipped_date " +
+                            "FROM Shipments s " +
+                            "JOIN Orders o ON s.order_id = o.order_id " +
+                            "JOIN Users cu ON o.customer_id = cu.user_id " +
+                            "JOIN Users su ON o.seller_id = su.user_id " +
+                            "ORDER BY s.order_id DESC";
+                Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery(sql);
+
+                while (rs.next()) {
+                    rows.add(new Object[]{
+                        rs.getInt("order_id"),
+                        rs.getString("customer_name"),
+                        rs.getString("seller_name"),
+                        rs.getString("tracking_number") != null ? rs.getString("tracking_number") : "N/A",
+                        rs.getString("status"),
+                        rs.getDate("shipped_date") != null ? rs.getDate("shipped_date") : "N/A"
+                    });
+                }
             }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error loading shipments: " + ex.getMessage());
-        }
+            return rows;
+        }, rows -> {
+            modelShipments.setRowCount(0);
+            rows.forEach(modelShipments::addRow);
+        }, DataAccessExecutor.showError(this, "Error loading shipments"));
     }
 
     private void updateShipment() {
@@ -662,36 +649,50 @@ add(bottomPanel, BorderLayout.SOUTH);
         int orderId = (Integer) modelShipments.getValueAt(row, 0);
 
         // Check if payment is completed
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String paymentSql = "SELECT status FROM Payments WHERE order_id = ? AND status = 'completed'";
-            PreparedStatement paymentStmt = conn.prepareStatement(paymentSql);
-            paymentStmt.setInt(1, orderId);
-            ResultSet paymentRs = paymentStmt.executeQuery();
-
-            if (!paymentRs.next()) {
+        DataAccessExecutor.submit(() -> {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                String paymentSql = "SELECT status FROM Payments WHERE order_id = ? AND status = 'completed'";
+                PreparedStatement paymentStmt = conn.prepareStatement(paymentSql);
+                paymentStmt.setInt(1, orderId);
+                return paymentStmt.executeQuery().next();
+            }
+        }, paid -> {
+            if (!paid) {
                 JOptionPane.showMessageDialog(this, 
                     "Cannot approve shipment! Payment must be completed first.", 
                     "Validation Error", 
                     JOptionPane.ERROR_MESSAGE);
                 return;
             }
+            showShipmentDialog(orderId);
+        }, DataAccessExecutor.showError(this, "Error updating shipment"));
+    }
+
+    private void showShipmentDialog(int orderId) {
+        String[] statuses = {"pending", "in_transit", "delivered", "failed"};
+        JComboBox<String> cmbStatus = new JComboBox<>(statuses);
+        JTextField txtTracking = new JTextField(20);
+        JTextField txtDeliveryDate = new JTextField(10);
 
-            String[] statuses = {"pending", "in_transit", "delivered", "failed"};
-            JComboBox<String> cmbStatus = new JComboBox<>(statuses);
-            JTextField txtTracking = new JTextField(20);
-            JTextField txtDeliveryDate = new JTextField(10);
+        Object[] message = {
+            "Status:", cmbStatus,
+            "Tracking Number:", txtTracking,
+            "Delivery Date (YYYY-MM-DD):", txtDeliveryDate
+        };
 
-            Object[] message = {
-                "Status:", cmbStatus,
-                "Tracking Number:", txtTracking,
-                "Delivery Date (YYYY-MM-DD):", txtDeliveryDate
-            };
+        int option = JOptionPane.showConfirmDialog(this, message, "Update Shipment", JOptionPane.OK_CANCEL_OPTION);
+        if (option != JOptionPane.OK_OPTION) {
+            return;
+        }
 
-            int option = JOptionPane.showConfirmDialog(this, message, "Update Shipment", JOptionPane.OK_CANCEL_OPTION);
-            if (option == JOptionPane.OK_OPTION) {
-                String newStatus = (String) cmbStatus.getSelectedItem();
-                String trackingNumber = txtTracking.getText().trim();
-                String deliveryDate = txtDeliveryDate.getText().trim();
+        String newStatus = (String) cmbStatus.getSelectedItem();
+        String trackingNumber = txtTracking.getText().trim();
+        String deliveryDate = txtDeliveryDate.getText().trim();
+
+        DataAccessExecutor.run(() -> {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                // Left uncommitted on error; the pool rolls it back when the connection is returned.
+                conn.setAutoCommit(false);
 
                 String updateSql = "UPDATE Shipments SET status = ?, tracking_number = ?";
                 if (!deliveryDate.isEmpty()) {
@@ -714,115 +715,243 @@ add(bottomPanel, BorderLayout.SOUTH);
 
                 // If status is delivered, update order status
                 if ("delivered".equals(newStatus)) {
-                    String orderSql = "UPDATE Orders SET status = 'delivered' WHERE order_id = ?";
-                    PreparedStatement orderStmt = conn.prepareStatement(orderSql);
-                    orderStmt.setInt(1, orderId);
-                    orderStmt.executeUpdate();
+                    OrderService.changeStatus(conn, orderId, "delivered");
                 }
-
-                JOptionPane.showMessageDialog(this, "Shipment updated successfully!");
-                loadShipments();
+                conn.commit();
             }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error updating shipment: " + ex.getMessage());
-        }
+        }, () -> {
+            JOptionPane.showMessageDialog(this, "Shipment updated successfully!");
+            loadShipments();
+        }, DataAccessExecutor.showError(this, "Error updating shipment"));
     }
 
     // Statistics Panel
     private JPanel createStatsPanel() {
-        JPanel panel = new JPanel();
-        panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
-        panel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
+        JPanel panel = new JPanel(new BorderLayout());
+
+        JPanel windowPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        cmbStatsWindow = new JComboBox<>(new String[]{"All Time", "Last 30 Days", "Last 24 Hours", "Last Hour"});
+        chkStatsExact = new JCheckBox("Exact");
+        cmbStatsWindow.addActionListener(e -> updateStats());
+        chkStatsExact.addActionListener(e -> updateStats());
+        windowPanel.add(new JLabel("Top lists for:"));
+        windowPanel.add(cmbStatsWindow);
+        windowPanel.add(chkStatsExact);
+        panel.add(windowPanel, BorderLayout.NORTH);
+
+        statsLinesPanel = new JPanel();
+        statsLinesPanel.setLayout(new BoxLayout(statsLinesPanel, BoxLayout.Y_AXIS));
+        statsLinesPanel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
+        panel.add(new JScrollPane(statsLinesPanel), BorderLayout.CENTER);
         return panel;
     }
 
+    // null for all time
+    private PopularityTracker.Window statsWindow() {
+        int index = cmbStatsWindow.getSelectedIndex();
+        if (index == 1) return PopularityTracker.Window.MONTH;
+        else if (index == 2) return PopularityTracker.Window.DAY;
+        else if (index == 3) return PopularityTracker.Window.HOUR;
+        return null;
+    }
+
+    // Top lists over a recent window, from the in-memory tracker or, if exact, from the database
+    private void addRecentTops(List<String> lines, PopularityTracker.Window window, String label, boolean exact)
+            throws SQLException {
+        String suffix = " (" + label + ")";
+
+        lines.add("=== Top-Selling Categories" + suffix + " ===");
+        for (PopularityTracker.Entry e : recentTop(PopularityTracker.Dimension.CATEGORY, window, exact, 5)) {
+            lines.add(e.name + " - " + approx(e) + e.count + " items sold");
+        }
+
+        lines.add("=== Top Sellers" + suffix + " ===");
+        for (PopularityTracker.Entry e : recentTop(PopularityTracker.Dimension.SELLER, window, exact, 10)) {
+            lines.add(e.name + " - Revenue: " + approx(e) + Money.format(e.count));
+        }
+
+        lines.add("=== Most Popular Items" + suffix + " ===");
+        for (PopularityTracker.Entry e : recentTop(PopularityTracker.Dimension.PRODUCT, window, exact, 5)) {
+            lines.add(e.name + " - Ordered " + approx(e) + e.count + " times");
+        }
+    }
+
+    private List<PopularityTracker.Entry> recentTop(PopularityTracker.Dimension dimension,
+            PopularityTracker.Window window, boolean exact, int n) throws SQLException {
+        return exact ? PopularityTracker.exactTop(dimension, window, n) : PopularityTracker.top(dimension, window, n);
+    }
+
+    private String approx(PopularityTracker.Entry e) {
+        return e.error > 0 ? "~" : "";
+    }
+
     private void updateStats() {
-        JPanel panel = (JPanel) tabbedPane.getComponentAt(3);
-        panel.removeAll();
-
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            DecimalFormat df = new DecimalFormat("#0.00");
-
-            // Total Sales
-            panel.add(new JLabel("=== Total Sales ==="));
-            String totalSql = "SELECT SUM(total_amount) as total FROM Orders " +
-                             "WHERE status IN ('paid', 'shipped', 'delivered')";
-            Statement totalStmt = conn.createStatement();
-            ResultSet totalRs = totalStmt.executeQuery(totalSql);
-            if (totalRs.next()) {
-                double total = totalRs.getDouble("total");
-                if (!totalRs.wasNull()) {
-                    panel.add(new JLabel("$" + df.format(total)));
-                } else {
-                    panel.add(new JLabel("No sales yet"));
+        JPanel panel = statsLinesPanel;
+        final PopularityTracker.Window window = statsWindow();
+        final String windowLabel = (String) cmbStatsWindow.getSelectedItem();
+        final boolean exact = chkStatsExact.isSelected();
+
+        DataAccessExecutor.submit(STATS_REQUEST, () -> {
+            // Lines to show; headers start with "===" and get a gap above them.
+            List<String> lines = new ArrayList<>();
+            try (Connection conn = DatabaseConnection.getReadConnection()) {
+                // Total Sales
+                lines.add("=== Total Sales ===");
+                String totalSql = "SELECT SUM(revenue) as total FROM Sales_Daily_Seller";
+                Statement totalStmt = conn.createStatement();
+                ResultSet totalRs = totalStmt.executeQuery(totalSql);
+                if (totalRs.next()) {
+                    long total = Money.get(totalRs, "total");
+                    if (!totalRs.wasNull()) {
+                        lines.add(Money.format(total));
+                    } else {
+                        lines.add("No sales yet");
+                    }
                 }
             }
 
-            panel.add(Box.createVerticalStrut(20));
-
-            // Top-Selling Categories
-            panel.add(new JLabel("=== Top-Selling Categories ==="));
-            String categorySql = "SELECT c.name, SUM(oi.quantity) as total_quantity " +
-                                "FROM Order_Items oi " +
-                                "JOIN Products p ON oi.product_id = p.product_id " +
-                                "JOIN Categories c ON p.category_id = c.category_id " +
-                                "JOIN Orders o ON oi.order_id = o.order_id " +
-                                "WHERE o.status IN ('paid', 'shipped', 'delivered') " +
-                                "GROUP BY c.category_id, c.name " +
-                                "ORDER BY total_quantity DESC " +
-                                "LIMIT 5";
-            Statement categoryStmt = conn.createStatement();
-            ResultSet categoryRs = categoryStmt.executeQuery(categorySql);
-            while (categoryRs.next()) {
-                panel.add(new JLabel(categoryRs.getString("name") + 
-                                    " - " + categoryRs.getInt("total_quantity") + " items sold"));
+            // Approximate figures merged from the daily sketches
+            LocalDate monthStart = LocalDate.now().withDayOfMonth(1);
+            SalesSketches.Summary month = SalesSketches.total(monthStart, LocalDate.now());
+            lines.add("=== This Month ===");
+            lines.add("Unique buyers: ~" + month.uniqueBuyers() + ", Orders: " + month.orders());
+            if (month.orders() > 0) {
+                lines.add("Order value - Median: ~" + Money.format(month.orderValue(0.5)) +
+                          ", 95th percentile: ~" + Money.format(month.orderValue(0.95)));
             }
+            lines.add("=== Unique Buyers by Category, This Month ===");
+            List<Map.Entry<Integer, Long>> categoryBuyers =
+                new ArrayList<>(SalesSketches.buyersByCategory(monthStart, LocalDate.now()).entrySet());
+            categoryBuyers.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+            for (Map.Entry<Integer, Long> e : categoryBuyers.subList(0, Math.min(5, categoryBuyers.size()))) {
+                lines.add(ReferenceDataCache.categoryName(e.getKey()) + " - ~" + e.getValue() + " buyers");
+            }
+
+            try (Connection conn = DatabaseConnection.getReadConnection()) {
+                if (window != null) {
+                    addRecentTops(lines, window, windowLabel, exact);
+                } else {
+                    // Top-Selling Categories
+                    lines.add("=== Top-Selling Categories ===");
+                    String categorySql = "SELECT c.name, SUM(s.quantity) as total_quantity " +
+                                        "FROM Sales_Daily_Category s " +
+                                        "JOIN Categories c ON s.category_id = c.category_id " +
+                                        "GROUP BY c.category_id, c.name " +
+                                        "HAVING total_quantity > 0 " +
+                                        "ORDER BY total_quantity DESC " +
+                                        "LIMIT 5";
+                    Statement categoryStmt = conn.createStatement();
+                    ResultSet categoryRs = categoryStmt.executeQuery(categorySql);
+                    while (categoryRs.next()) {
+                        lines.add(categoryRs.getString("name") + 
+                                  " - " + categoryRs.getInt("total_quantity") + " items sold");
+                    }
+
+                    // Top Sellers
+                    lines.add("=== Top Sellers ===");
+                    String sellerSql = "SELECT u.user_id, u.name, SUM(s.order_count) as order_count, " +
+                                      "SUM(s.revenue) as total_revenue " +
+                                      "FROM Sales_Daily_Seller s " +
+                                      "JOIN Users u ON s.seller_id = u.user_id " +
+                                      "GROUP BY u.user_id, u.name " +
+                                      "HAVING order_count > 0 " +
+                                      "ORDER BY total_revenue DESC " +
+                                      "LIMIT 10";
+                    Statement sellerStmt = conn.createStatement();
+                    ResultSet sellerRs = sellerStmt.executeQuery(sellerSql);
+                    while (sellerRs.next()) {
+                        lines.add(sellerRs.getString("name") + 
+                                  " - Orders: " + sellerRs.getInt("order_count") + 
+                                  ", Revenue: " + Money.format(Money.get(sellerRs, "total_revenue")));
+                    }
 
-            panel.add(Box.createVerticalStrut(20));
-
-            // Top Sellers
-            panel.add(new JLabel("=== Top Sellers ==="));
-            String sellerSql = "SELECT u.user_id, u.name, COUNT(DISTINCT o.order_id) as order_count, " +
-                              "SUM(o.total_amount) as total_revenue " +
-                              "FROM Users u " +
-                              "JOIN Orders o ON u.user_id = o.seller_id " +
-                              "WHERE o.status IN ('paid', 'shipped', 'delivered') " +
-                              "GROUP BY u.user_id, u.name " +
-                              "ORDER BY total_revenue DESC " +
-                              "LIMIT 10";
-            Statement sellerStmt = conn.createStatement();
-            ResultSet sellerRs = sellerStmt.executeQuery(sellerSql);
-            while (sellerRs.next()) {
-                panel.add(new JLabel(sellerRs.getString("name") + 
-                                    " - Orders: " + sellerRs.getInt("order_count") + 
-                                    ", Revenue: $" + df.format(sellerRs.getDouble("total_revenue"))));
+                    // Most Popular Items
+                    lines.add("=== Most Popular Items ===");
+                    String popularSql = "SELECT p.product_id, p.name, SUM(s.order_count) as order_count " +
+                                      "FROM Sales_Daily_Product s " +
+                                      "JOIN Products p ON s.product_id = p.product_id " +
+                                      "GROUP BY p.product_id, p.name " +
+                                      "HAVING order_count > 0 " +
+                                      "ORDER BY order_count DESC " +
+                                      "LIMIT 5";
+                    Statement popularStmt = conn.createStatement();
+                    ResultSet popularRs = popularStmt.executeQuery(popularSql);
+                    while (popularRs.next()) {
+                        lines.add(popularRs.getString("name") + 
+                                  " - Ordered " + popularRs.getInt("order_count") + " times");
+                    }
+                }
+            }
+
+            // Ad-hoc breakdowns, answered from the in-memory snapshot instead of MySQL
+            AnalyticsSnapshot snapshot = AnalyticsSnapshot.get();
+            lines.add("=== Revenue by City (snapshot of " + snapshot.rowCount() + " order lines) ===");
+            for (AnalyticsSnapshot.Group g : snapshot.groupBy(AnalyticsSnapshot.Column.CITY,
+                    AnalyticsSnapshot.Measure.REVENUE, null, null, null, 5)) {
+                lines.add(g.value + " - " + Money.format(g.total));
+            }
+            lines.add("=== Revenue by Month, Last 12 Months ===");
+            AnalyticsSnapshot.DateRange lastYear =
+                new AnalyticsSnapshot.DateRange(LocalDate.now().minusMonths(12).withDayOfMonth(1), LocalDate.now());
+            List<AnalyticsSnapshot.Group> months = snapshot.groupBy(AnalyticsSnapshot.Column.MONTH,
+                AnalyticsSnapshot.Measure.REVENUE, lastYear, null, null, 13);
+            months.sort((a, b) -> b.value.compareTo(a.value));
+            for (AnalyticsSnapshot.Group g : months) {
+                lines.add(g.value + " - " + Money.format(g.total));
             }
 
-            panel.add(Box.createVerticalStrut(20));
-
-            // Most Popular Items
-            panel.add(new JLabel("=== Most Popular Items ==="));
-            String popularSql = "SELECT p.product_id, p.name, COUNT(DISTINCT oi.order_id) as order_count " +
-                              "FROM Products p " +
-                              "JOIN Order_Items oi ON p.product_id = oi.product_id " +
-                              "GROUP BY p.product_id, p.name " +
-                              "ORDER BY order_count DESC " +
-                              "LIMIT 5";
-            Statement popularStmt = conn.createStatement();
-            ResultSet popularRs = popularStmt.executeQuery(popularSql);
-            while (popularRs.next()) {
-                panel.add(new JLabel(popularRs.getString("name") + 
-                                    " - Ordered " + popularRs.getInt("order_count") + " times"));
+            // Connection Pool
+            lines.add("=== Connection Pool ===");
+            ConnectionPool.Stats poolStats = DatabaseConnection.getPoolStats();
+            lines.add("Active: " + poolStats.active + ", Idle: " + poolStats.idle +
+                      ", Total: " + poolStats.total + "/" + poolStats.maxSize +
+                      ", Waiting: " + poolStats.waiting);
+            lines.add("Borrows: " + poolStats.borrows + ", Timeouts: " + poolStats.timeouts +
+                      ", Leaks: " + poolStats.leaksDetected +
+                      ", Avg Wait: " + String.format("%.2f", poolStats.avgWaitMs) + " ms");
+            lines.add("Statement Cache - Hits: " + poolStats.stmtCacheHits +
+                      ", Misses: " + poolStats.stmtCacheMisses +
+                      ", Evictions: " + poolStats.stmtCacheEvictions +
+                      ", Hit Ratio: " + String.format("%.1f%%", poolStats.stmtCacheHitRatio() * 100));
+            ConnectionPool.Stats replicaStats = DatabaseConnection.getReplicaPoolStats();
+            if (replicaStats != null) {
+                lines.add("Replica - Active: " + replicaStats.active + ", Idle: " + replicaStats.idle +
+                          ", Borrows: " + replicaStats.borrows + ", Timeouts: " + replicaStats.timeouts);
             }
 
-        } catch (SQLException ex) {
+            ProductDetailCache.Stats detailStats = ProductDetailCache.getStats();
+            lines.add("=== Product Detail Cache ===");
+            lines.add("Entries: " + detailStats.entries + ", Size: " + detailStats.weight + " chars" +
+                      ", Hits: " + detailStats.hits + ", Misses: " + detailStats.misses +
+                      ", Hit Ratio: " + String.format("%.1f%%", detailStats.hitRatio() * 100));
+            lines.add("Revalidations: " + detailStats.revalidations + ", Reloads: " + detailStats.reloads +
+                      ", Evictions: " + detailStats.evictions + ", Invalidations: " + detailStats.invalidations);
+
+            // Deadlock / lock wait timeout retries
+            lines.add("=== Transaction Retries ===");
+            for (TransactionTemplate.Stats txStats : TransactionTemplate.getStats()) {
+                lines.add(txStats.operation + " - Calls: " + txStats.calls +
+                          ", Retries: " + txStats.retries +
+                          ", Gave Up: " + txStats.exhausted);
+            }
+            return lines;
+        }, lines -> {
+            panel.removeAll();
+            for (int i = 0; i < lines.size(); i++) {
+                if (i > 0 && lines.get(i).startsWith("===")) {
+                    panel.add(Box.createVerticalStrut(20));
+                }
+                panel.add(new JLabel(lines.get(i)));
+            }
+            panel.revalidate();
+            panel.repaint();
+        }, ex -> {
             ex.printStackTrace();
+            panel.removeAll();
             panel.add(new JLabel("Error loading statistics: " + ex.getMessage()));
-        }
-
-        panel.revalidate();
-        panel.repaint();
+            panel.revalidate();
+            panel.repaint();
+        });
     }
 
     // Helper methods
@@ -837,27 +966,42 @@ add(bottomPanel, BorderLayout.SOUTH);
         return -1;
     }
 
-    private void loadCategoriesForCombo(JComboBox<String> cmb) {
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "SELECT name FROM Categories ORDER BY name";
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
-            while (rs.next()) {
-                cmb.addItem(rs.getString("name"));
+    // Runs on a background thread
+    private List<String> fetchCategoryNames() throws SQLException {
+        return ReferenceDataCache.categoryNames();
+    }
+
+    // Error callback for saves: BusinessException and duplicate keys become validation messages.
+    private Consumer<Exception> validationError(String duplicateMessage, String errorPrefix) {
+        return ex -> {
+            if (ex instanceof BusinessException) {
+                JOptionPane.showMessageDialog(this, ex.getMessage(), "Validation Error", JOptionPane.ERROR_MESSAGE);
+            } else if (ex instanceof SQLIntegrityConstraintViolationException) {
+                JOptionPane.showMessageDialog(this, duplicateMessage, "Validation Error", JOptionPane.ERROR_MESSAGE);
+            } else {
+                ex.printStackTrace();
+                JOptionPane.showMessageDialog(this, errorPrefix + ": " + ex.getMessage());
+            }
+        };
+    }
+
+    // Error callback for deletes blocked by existing references.
+    private Consumer<Exception> deleteError(String referencedMessage, String errorPrefix) {
+        return ex -> {
+            if (ex instanceof BusinessException) {
+                JOptionPane.showMessageDialog(this, ex.getMessage(), "Delete Error", JOptionPane.ERROR_MESSAGE);
+                return;
             }
-        } catch (SQLException ex) {
             ex.printStackTrace();
-        }
+            if (ex.getMessage().contains("foreign key") || ex.getMessage().contains("RESTRICT")) {
+                JOptionPane.showMessageDialog(this, referencedMessage, "Delete Error", JOptionPane.ERROR_MESSAGE);
+            } else {
+                JOptionPane.showMessageDialog(this, errorPrefix + ": " + ex.getMessage());
+            }
+        };
     }
 
-    private int getCategoryIdByName(Connection conn, String name) throws SQLException {
-        String sql = "SELECT category_id FROM Categories WHERE name = ?";
-        PreparedStatement pstmt = conn.prepareStatement(sql);
-        pstmt.setString(1, name);
-        ResultSet rs = pstmt.executeQuery();
-        if (rs.next()) {
-            return rs.getInt("category_id");
-        }
-        return -1;
+    private int getCategoryIdByName(String name) throws SQLException {
+        return ReferenceDataCache.categoryId(name);
     }
 }
@@ -0,0 +1,281 @@
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Column-oriented, in-memory copy of every sold order line, for ad-hoc admin reports.
+ * One row per Order_Items line of an order that is PAID, SHIPPED or DELIVERED, stored as
+ * primitive arrays: strings dictionary-encoded to int codes, amounts as long cents, dates as
+ * epoch days. The snapshot is loaded with a single streaming query and replaced as a whole once
+ * it is older than REFRESH_MS, so reports never touch the OLTP tables in between. A stale
+ * snapshot keeps being served while one background thread loads its replacement.
+ * groupBy() scans the columns in parallel on the common fork/join pool: each task filters
+ * its row range and adds into a dense array indexed by group code, and the arrays are summed.
+ */
+public class AnalyticsSnapshot {
+
+    private static final long REFRESH_MS = Long.getLong("analytics.snapshotRefreshSeconds", 300L) * 1000;
+    // Rows per fork/join leaf task
+    private static final int LEAF_ROWS = 16_384;
+
+    // Line revenue is net of its share of any coupon discount, as in the sales rollups.
+    private static final String LOAD_SQL = """
+        SELECT DATEDIFF(o.order_date, '1970-01-01') AS epoch_day,
+               COALESCE(a.country, '?') AS country, COALESCE(a.city, '?') AS city,
+               c.name AS category, COALESCE(u.name, '?') AS seller, p.name AS product,
+               oi.quantity,
+               %s AS revenue
+        FROM Orders o
+        JOIN Order_Items oi ON oi.order_id = o.order_id
+        JOIN Products p ON oi.product_id = p.product_id
+        JOIN Categories c ON p.category_id = c.category_id
+        LEFT JOIN Addresses a ON o.shipping_address_id = a.address_id
+        LEFT JOIN Users u ON o.seller_id = u.user_id
+        WHERE o.status IN ('PAID', 'SHIPPED', 'DELIVERED')
+        """.formatted(SalesRollup.LINE_REVENUE_EXPR);
+
+    /** Dictionary-encoded string columns, plus MONTH ("yyyy-MM") derived from the order date. */
+    public enum Column { COUNTRY, CITY, CATEGORY, SELLER, PRODUCT, MONTH }
+
+    // LOAD_SQL column of each Column, by ordinal; MONTH is derived.
+    private static final String[] SOURCES = {"country", "city", "category", "seller", "product"};
+
+    public enum Measure { REVENUE, QUANTITY, LINES }
+
+    /** Keeps rows whose order date lies between from and to, both inclusive. */
+    public static class DateRange {
+        final int fromDay, toDay;
+
+        public DateRange(LocalDate from, LocalDate to) {
+            this.fromDay = (int) from.toEpochDay();
+            this.toDay = (int) to.toEpochDay();
+        }
+    }
+
+    /** One group of a report: the column value and the summed measure (cents for REVENUE). */
+    public static class Group {
+        public final String value;
+        public final long total;
+
+        Group(String value, long total) {
+            this.value = value;
+            this.total = total;
+        }
+    }
+
+    private static class Dictionary {
+        final Map<String, Integer> codes = new HashMap<>();
+        final List<String> values = new ArrayList<>();
+
+        int encode(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+    }
+
+    private static volatile AnalyticsSnapshot current;
+    private static final AtomicBoolean reloading = new AtomicBoolean();
+
+    final long loadedAt = System.currentTimeMillis();
+    final int rows;
+    final int[] epochDay;
+    final int[][] codes = new int[Column.values().length][];
+    final String[][] dictionaries = new String[Column.values().length][];
+    final int[] quantity;
+    final long[] revenue;
+
+    private AnalyticsSnapshot(int rows, int[] epochDay, int[][] codes, Dictionary[] dictionaries,
+                              int[] quantity, long[] revenue) {
+        this.rows = rows;
+        this.epochDay = epochDay;
+        for (int c = 0; c < codes.length; c++) {
+            this.codes[c] = codes[c];
+            this.dictionaries[c] = dictionaries[c].values.toArray(new String[0]);
+        }
+        this.quantity = quantity;
+        this.revenue = revenue;
+    }
+
+    /**
+     * The current snapshot. Only the first call waits for a load; once the snapshot is older than
+     * REFRESH_MS it is still returned while a background reload replaces it.
+     */
+    public static AnalyticsSnapshot get() throws SQLException {
+        AnalyticsSnapshot s = current;
+        if (s == null) {
+            synchronized (AnalyticsSnapshot.class) {
+                s = current;
+                if (s == null) {
+                    s = load();
+                    current = s;
+                }
+                return s;
+            }
+        }
+        if (System.currentTimeMillis() - s.loadedAt >= REFRESH_MS && reloading.compareAndSet(false, true)) {
+            Thread reload = new Thread(() -> {
+                try {
+                    current = load();
+                } catch (SQLException e) {
+                    e.printStackTrace();  // keep serving the old snapshot; the next get() tries again
+                } finally {
+                    reloading.set(false);
+                }
+            }, "analytics-snapshot-reload");
+            reload.setDaemon(true);
+            reload.start();
+        }
+        return s;
+    }
+
+    public int rowCount() {
+        return rows;
+    }
+
+    public long loadedAt() {
+        return loadedAt;
+    }
+
+    /**
+     * Sums measure per value of column over the rows in range (null for all rows) whose filterColumn
+     * equals filterValue (filterColumn null for no filter), largest first, at most limit groups.
+     */
+    public List<Group> groupBy(Column column, Measure measure, DateRange range,
+                               Column filterColumn, String filterValue, int limit) {
+        int filterCode = -1;
+        if (filterColumn != null) {
+            filterCode = Arrays.asList(dictionaries[filterColumn.ordinal()]).indexOf(filterValue);
+            if (filterCode < 0) {
+                return new ArrayList<>();
+            }
+        }
+        ScanTask task = new ScanTask(this, column.ordinal(), measure, range,
+                                     filterColumn != null ? codes[filterColumn.ordinal()] : null, filterCode, 0, rows);
+        long[] totals = ForkJoinPool.commonPool().invoke(task);
+
+        String[] values = dictionaries[column.ordinal()];
+        List<Group> groups = new ArrayList<>();
+        for (int code = 0; code < totals.length; code++) {
+            if (totals[code] != 0) {
+                groups.add(new Group(values[code], totals[code]));
+            }
+        }
+        groups.sort((a, b) -> Long.compare(b.total, a.total));
+        return groups.size() > limit ? new ArrayList<>(groups.subList(0, limit)) : groups;
+    }
+
+    private static class ScanTask extends RecursiveTask<long[]> {
+        final AnalyticsSnapshot snapshot;
+        final int column;
+        final Measure measure;
+        final DateRange range;
+        final int[] filter;
+        final int filterCode;
+        final int from, to;
+
+        ScanTask(AnalyticsSnapshot snapshot, int column, Measure measure, DateRange range,
+                 int[] filter, int filterCode, int from, int to) {
+            this.snapshot = snapshot;
+            this.column = column;
+            this.measure = measure;
+            this.range = range;
+            this.filter = filter;
+            this.filterCode = filterCode;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from > LEAF_ROWS) {
+                int mid = (from + to) >>> 1;
+                ScanTask left = new ScanTask(snapshot, column, measure, range, filter, filterCode, from, mid);
+                left.fork();
+                long[] right = new ScanTask(snapshot, column, measure, range, filter, filterCode, mid, to).compute();
+                long[] sums = left.join();
+                for (int i = 0; i < sums.length; i++) {
+                    sums[i] += right[i];
+                }
+                return sums;
+            }
+
+            long[] sums = new long[snapshot.dictionaries[column].length];
+            int[] groups = snapshot.codes[column];
+            int[] days = snapshot.epochDay;
+            int fromDay = range != null ? range.fromDay : Integer.MIN_VALUE;
+            int toDay = range != null ? range.toDay : Integer.MAX_VALUE;
+            for (int row = from; row < to; row++) {
+                if (days[row] < fromDay || days[row] > toDay || (filter != null && filter[row] != filterCode)) {
+                    continue;
+                }
+                switch (measure) {
+                    case REVENUE:
+                        sums[groups[row]] += snapshot.revenue[row];
+                        break;
+                    case QUANTITY:
+                        sums[groups[row]] += snapshot.quantity[row];
+                        break;
+                    default:
+                        sums[groups[row]]++;
+                }
+            }
+            return sums;
+        }
+    }
+
+    private static AnalyticsSnapshot load() throws SQLException {
+        int capacity = 1024;
+        int rows = 0;
+        int[] epochDay = new int[capacity];
+        int[][] codes = new int[Column.values().length][capacity];
+        Dictionary[] dictionaries = new Dictionary[Column.values().length];
+        for (int c = 0; c < dictionaries.length; c++) {
+            dictionaries[c] = new Dictionary();
+        }
+        int[] quantity = new int[capacity];
+        long[] revenue = new long[capacity];
+        Map<Integer, Integer> monthCodes = new HashMap<>();  // by epoch day
+        int month = Column.MONTH.ordinal();
+
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
+            Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(Integer.MIN_VALUE);  // stream rows instead of buffering the whole result
+            ResultSet rs = stmt.executeQuery(LOAD_SQL);
+            while (rs.next()) {
+                if (rows == capacity) {
+                    capacity *= 2;
+                    epochDay = Arrays.copyOf(epochDay, capacity);
+                    for (int c = 0; c < codes.length; c++) {
+                        codes[c] = Arrays.copyOf(codes[c], capacity);
+                    }
+                    quantity = Arrays.copyOf(quantity, capacity);
+                    revenue = Arrays.copyOf(revenue, capacity);
+                }
+                int day = rs.getInt("epoch_day");
+                epochDay[rows] = day;
+                for (int c = 0; c < SOURCES.length; c++) {
+                    codes[c][rows] = dictionaries[c].encode(rs.getString(SOURCES[c]));
+                }
+                Dictionary months = dictionaries[month];
+                codes[month][rows] = monthCodes.computeIfAbsent(day,
+                    d -> months.encode(LocalDate.ofEpochDay(d).toString().substring(0, 7)));
+                quantity[rows] = rs.getInt("quantity");
+                revenue[rows] = Money.get(rs, "revenue");
+                rows++;
+            }
+        }
+        return new AnalyticsSnapshot(rows, epochDay, codes, dictionaries, quantity, revenue);
+    }
+}
@@ -0,0 +1,114 @@
+import java.sql.*;
+
+/**
+ * Cart operations on a customer's ONGOING order.
+ * Each operation runs as one short transaction with as few round trips as possible,
+ * retried by TransactionTemplate if it loses a deadlock.
+ * Stock is held through InventoryReservationService instead of locking the product row.
+ */
+public class CartService {
+
+    // Product, seller, the customer's ongoing order, the existing cart line and a fallback
+    // address, all in one round trip.
+    private static final String ADD_LOOKUP_SQL = """
+        SELECT p.price, c.seller_id,
+               o.order_id, o.seller_id AS order_seller_id,
+               oi.price_at_purchase AS cart_price, oi.quantity AS cart_quantity,
+               (SELECT a.address_id FROM Addresses a WHERE a.user_id = ? LIMIT 1) AS address_id
+        FROM Products p
+        JOIN Catalogs c ON p.catalog_id = c.catalog_id
+        LEFT JOIN Orders o ON o.customer_id = ? AND o.status = 'ONGOING'
+        LEFT JOIN Order_Items oi ON oi.order_id = o.order_id AND oi.product_id = p.product_id
+        WHERE p.product_id = ?
+        """;
+
+    private static final String CREATE_ORDER_SQL = """
+        INSERT INTO Orders (customer_id, seller_id, shipping_address_id, billing_address_id, status)
+        VALUES (?, ?, ?, ?, 'ONGOING')
+        """;
+
+    // Relies on uq_order_product; quantity is assigned before subtotal so subtotal sees the new quantity.
+    private static final String UPSERT_ITEM_SQL = """
+        INSERT INTO Order_Items (order_id, product_id, quantity, price_at_purchase, subtotal)
+        VALUES (?, ?, ?, ?, ?)
+        ON DUPLICATE KEY UPDATE
+            quantity = quantity + VALUES(quantity),
+            subtotal = quantity * price_at_purchase
+        """;
+
+    private static final String ADD_TO_TOTAL_SQL =
+        "UPDATE Orders SET total_amount = total_amount + ? WHERE order_id = ?";
+
+    /**
+     * Adds quantity units of a product to the customer's ongoing order, creating the order if needed.
+     * Returns the order id.
+     */
+    public static int addToCart(int customerId, int productId, int quantity)
+            throws SQLException, BusinessException {
+        return TransactionTemplate.execute("addToCart", conn -> {
+            PreparedStatement lookupStmt = conn.prepareStatement(ADD_LOOKUP_SQL);
+            lookupStmt.setInt(1, customerId);
+            lookupStmt.setInt(2, customerId);
+            lookupStmt.setInt(3, productId);
+            ResultSet rs = lookupStmt.executeQuery();
+
+            if (!rs.next()) {
+                throw new BusinessException("Product not found!");
+            }
+
+            long price = Money.get(rs, "price");
+            int productSellerId = rs.getInt("seller_id");
+            int orderId = rs.getInt("order_id");
+            boolean hasOrder = !rs.wasNull();
+            int orderSellerId = rs.getInt("order_seller_id");
+            long cartPrice = Money.get(rs, "cart_price");
+            boolean inCart = !rs.wasNull();
+            int cartQuantity = rs.getInt("cart_quantity");
+            int addressId = rs.getInt("address_id");
+            boolean hasAddress = !rs.wasNull();
+
+            if (hasOrder && orderSellerId != productSellerId) {
+                throw new BusinessException("You already have items from a different seller in your cart!\n" +
+                                            "Please complete or cancel your current order first.");
+            }
+
+            if (!hasOrder) {
+                if (!hasAddress) {
+                    throw new BusinessException("Please add an address first in the Addresses tab!");
+                }
+                PreparedStatement createStmt = conn.prepareStatement(CREATE_ORDER_SQL, Statement.RETURN_GENERATED_KEYS);
+                createStmt.setInt(1, customerId);
+                createStmt.setInt(2, productSellerId);
+                createStmt.setInt(3, addressId);
+                createStmt.setInt(4, addressId);
+                createStmt.executeUpdate();
+
+                ResultSet keys = createStmt.getGeneratedKeys();
+                if (!keys.next()) {
+                    throw new SQLException("Failed to create order");
+                }
+                orderId = keys.getInt(1);
+            }
+
+            // The hold covers the whole line, including what was already in the cart.
+            InventoryReservationService.hold(conn, orderId, productId, cartQuantity + quantity);
+
+            PreparedStatement upsertStmt = conn.prepareStatement(UPSERT_ITEM_SQL);
+            upsertStmt.setInt(1, orderId);
+            upsertStmt.setInt(2, productId);
+            upsertStmt.setInt(3, quantity);
+            Money.set(upsertStmt, 4, price);
+            Money.set(upsertStmt, 5, Money.times(price, quantity));
+            upsertStmt.executeUpdate();
+
+            // An existing line keeps its original price_at_purchase.
+            long unitPrice = inCart ? cartPrice : price;
+            PreparedStatement totalStmt = conn.prepareStatement(ADD_TO_TOTAL_SQL);
+            Money.set(totalStmt, 1, Money.times(unitPrice, quantity));
+            totalStmt.setInt(2, orderId);
+            totalStmt.executeUpdate();
+
+            return orderId;
+        });
+    }
+}
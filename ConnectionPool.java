@@ -0,0 +1,401 @@
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded JDBC connection pool.
+ * Connections handed out are proxies: close() returns the physical connection to the pool
+ * instead of closing it, so existing try-with-resources code keeps working unchanged.
+ */
+public class ConnectionPool {
+
+    /** Pool sizing and timeouts. All durations are in milliseconds. */
+    public static class Config {
+        int minSize = 2;
+        int maxSize = 10;
+        long acquireTimeoutMs = 5000;
+        long idleTimeoutMs = 10 * 60 * 1000;
+        long validationIdleMs = 500;
+        int validationTimeoutSec = 2;
+        long leakThresholdMs = 60 * 1000;
+        long housekeepingIntervalMs = 30 * 1000;
+        int statementCacheSize = 64;
+
+        public Config minSize(int v) { minSize = v; return this; }
+        public Config maxSize(int v) { maxSize = v; return this; }
+        public Config acquireTimeoutMs(long v) { acquireTimeoutMs = v; return this; }
+        public Config idleTimeoutMs(long v) { idleTimeoutMs = v; return this; }
+        public Config validationIdleMs(long v) { validationIdleMs = v; return this; }
+        public Config leakThresholdMs(long v) { leakThresholdMs = v; return this; }
+        public Config statementCacheSize(int v) { statementCacheSize = v; return this; }
+    }
+
+    /** Point-in-time view of the pool counters. */
+    public static class Stats {
+        public final String poolName;
+        public final int active, idle, total, waiting, maxSize;
+        public final long borrows, timeouts, created, destroyed, validationFailures, leaksDetected;
+        public final long stmtCacheHits, stmtCacheMisses, stmtCacheEvictions;
+        public final double avgWaitMs;
+
+        Stats(ConnectionPool p) {
+            poolName = p.name;
+            active = p.borrowed.size();
+            idle = p.idle.size();
+            total = p.totalConnections.get();
+            waiting = p.permits.getQueueLength();
+            maxSize = p.config.maxSize;
+            borrows = p.borrowCount.get();
+            timeouts = p.timeoutCount.get();
+            created = p.createdCount.get();
+            destroyed = p.destroyedCount.get();
+            validationFailures = p.validationFailureCount.get();
+            leaksDetected = p.leakCount.get();
+            avgWaitMs = borrows == 0 ? 0.0 : p.waitNanos.get() / 1_000_000.0 / borrows;
+            stmtCacheHits = p.stmtCounters.hits.get();
+            stmtCacheMisses = p.stmtCounters.misses.get();
+            stmtCacheEvictions = p.stmtCounters.evictions.get();
+        }
+
+        public double stmtCacheHitRatio() {
+            long lookups = stmtCacheHits + stmtCacheMisses;
+            return lookups == 0 ? 0.0 : (double) stmtCacheHits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: active=%d idle=%d total=%d/%d waiting=%d borrows=%d timeouts=%d " +
+                                 "created=%d destroyed=%d invalid=%d leaks=%d avgWait=%.2fms " +
+                                 "stmtCache[hits=%d misses=%d evictions=%d]",
+                poolName, active, idle, total, maxSize, waiting, borrows, timeouts,
+                created, destroyed, validationFailures, leaksDetected, avgWaitMs,
+                stmtCacheHits, stmtCacheMisses, stmtCacheEvictions);
+        }
+    }
+
+    private final String name;
+    private final String url;
+    private final Properties props;
+    private final Config config;
+
+    private final LinkedBlockingDeque<PooledEntry> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledEntry> borrowed = ConcurrentHashMap.newKeySet();
+    private final Semaphore permits;
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean shutdown = false;
+
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong destroyedCount = new AtomicLong();
+    private final AtomicLong validationFailureCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final StatementCache.Counters stmtCounters = new StatementCache.Counters();
+
+    public ConnectionPool(String name, String url, Properties props, Config config) {
+        this.name = name;
+        this.url = url;
+        this.props = props;
+        this.config = config;
+        this.permits = new Semaphore(config.maxSize, true);
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, name + "-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep,
+            config.housekeepingIntervalMs, config.housekeepingIntervalMs, TimeUnit.MILLISECONDS);
+        fillToMinimum();
+    }
+
+    /**
+     * Borrows a connection, waiting up to the acquire timeout when the pool is exhausted.
+     */
+    public Connection borrow() throws SQLException {
+        if (shutdown) {
+            throw new SQLException("Connection pool " + name + " is shut down");
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(config.acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                timeoutCount.incrementAndGet();
+                throw new SQLTransientConnectionException(
+                    "Timed out after " + config.acquireTimeoutMs + "ms waiting for a connection (" + getStats() + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+
+        try {
+            PooledEntry entry = takeValidIdle();
+            if (entry == null) {
+                entry = createEntry();
+            }
+            entry.borrowedAt = System.currentTimeMillis();
+            entry.borrowSite = config.leakThresholdMs > 0
+                ? new Exception("Connection borrowed by " + Thread.currentThread().getName())
+                : null;
+            entry.leakReported = false;
+            borrowed.add(entry);
+
+            borrowCount.incrementAndGet();
+            waitNanos.addAndGet(System.nanoTime() - start);
+            return entry.newProxy();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(this);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void shutdown() {
+        shutdown = true;
+        housekeeper.shutdownNow();
+        PooledEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            destroy(entry);
+        }
+    }
+
+    private PooledEntry takeValidIdle() {
+        PooledEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            long idleFor = System.currentTimeMillis() - entry.lastReturnedAt;
+            if (idleFor < config.validationIdleMs || isValid(entry)) {
+                return entry;
+            }
+            validationFailureCount.incrementAndGet();
+            destroy(entry);
+        }
+        return null;
+    }
+
+    private boolean isValid(PooledEntry entry) {
+        try {
+            return entry.physical.isValid(config.validationTimeoutSec);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledEntry createEntry() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, props);
+        totalConnections.incrementAndGet();
+        createdCount.incrementAndGet();
+        return new PooledEntry(physical);
+    }
+
+    private void destroy(PooledEntry entry) {
+        if (entry.statementCache != null) {
+            entry.statementCache.closeAll();
+        }
+        try {
+            entry.physical.close();
+        } catch (SQLException e) {
+            // already broken, nothing else to release
+        }
+        totalConnections.decrementAndGet();
+        destroyedCount.incrementAndGet();
+    }
+
+    private void release(PooledEntry entry) {
+        borrowed.remove(entry);
+        boolean reusable = !shutdown;
+        try {
+            entry.closeOpenStatements();
+            if (!entry.physical.getAutoCommit()) {
+                entry.physical.rollback();
+                entry.physical.setAutoCommit(true);
+            }
+            if (entry.physical.isReadOnly()) {
+                entry.physical.setReadOnly(false);
+            }
+        } catch (SQLException e) {
+            reusable = false;
+        }
+
+        if (reusable) {
+            entry.lastReturnedAt = System.currentTimeMillis();
+            entry.borrowSite = null;
+            idle.offerFirst(entry);
+        } else {
+            destroy(entry);
+        }
+        permits.release();
+    }
+
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+
+        // Evict connections idle for too long, oldest first, but never below the minimum size.
+        List<PooledEntry> expired = new ArrayList<>();
+        for (PooledEntry entry : idle) {
+            if (now - entry.lastReturnedAt > config.idleTimeoutMs) {
+                expired.add(entry);
+            }
+        }
+        for (PooledEntry entry : expired) {
+            if (totalConnections.get() <= config.minSize) break;
+            if (idle.remove(entry)) {
+                destroy(entry);
+            }
+        }
+
+        if (config.leakThresholdMs > 0) {
+            for (PooledEntry entry : borrowed) {
+                if (!entry.leakReported && now - entry.borrowedAt > config.leakThresholdMs) {
+                    entry.leakReported = true;
+                    leakCount.incrementAndGet();
+                    System.err.println("[" + name + "] Possible connection leak: held for "
+                        + (now - entry.borrowedAt) + "ms");
+                    if (entry.borrowSite != null) {
+                        entry.borrowSite.printStackTrace();
+                    }
+                }
+            }
+        }
+
+        fillToMinimum();
+    }
+
+    private void fillToMinimum() {
+        while (!shutdown && totalConnections.get() < config.minSize && permits.tryAcquire()) {
+            try {
+                PooledEntry entry = createEntry();
+                entry.lastReturnedAt = System.currentTimeMillis();
+                idle.offerLast(entry);
+            } catch (SQLException e) {
+                // Database not reachable yet; borrowers will surface the error.
+                break;
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    /** One physical connection plus the bookkeeping the pool needs for it. */
+    private class PooledEntry {
+        final Connection physical;
+        final StatementCache statementCache;
+        final Set<Statement> openStatements = ConcurrentHashMap.newKeySet();
+        volatile long borrowedAt;
+        volatile long lastReturnedAt;
+        volatile Exception borrowSite;
+        volatile boolean leakReported;
+
+        PooledEntry(Connection physical) {
+            this.physical = physical;
+            this.statementCache = config.statementCacheSize > 0
+                ? new StatementCache(physical, config.statementCacheSize, stmtCounters)
+                : null;
+        }
+
+        Connection newProxy() {
+            return (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new LogicalConnection(this));
+        }
+
+        void closeOpenStatements() {
+            for (Statement stmt : openStatements) {
+                try {
+                    stmt.close();
+                } catch (SQLException e) {
+                    // ignore, the statement is being discarded
+                }
+            }
+            openStatements.clear();
+        }
+    }
+
+    /** Handle given to callers; becomes unusable once closed. */
+    private class LogicalConnection implements InvocationHandler {
+        private final PooledEntry entry;
+        private boolean closed = false;
+
+        LogicalConnection(PooledEntry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        release(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || entry.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + name + "] " + entry.physical;
+                default:
+                    break;
+            }
+
+            if (closed) {
+                throw new SQLException("Connection is closed");
+            }
+
+            if (entry.statementCache != null && isCacheablePrepare(method)) {
+                Integer autoGeneratedKeys = args.length == 2 ? (Integer) args[1] : null;
+                Statement stmt = entry.statementCache.prepare((Connection) proxy, (String) args[0], autoGeneratedKeys);
+                entry.openStatements.add(stmt);
+                return stmt;
+            }
+
+            try {
+                Object result = method.invoke(entry.physical, args);
+                if (result instanceof Statement) {
+                    entry.openStatements.add((Statement) result);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        // prepareStatement(String) and prepareStatement(String, int autoGeneratedKeys)
+        private boolean isCacheablePrepare(Method method) {
+            if (!method.getName().equals("prepareStatement")) return false;
+            Class<?>[] params = method.getParameterTypes();
+            return params.length == 1 || (params.length == 2 && params[1] == int.class);
+        }
+    }
+}
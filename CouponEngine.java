@@ -0,0 +1,270 @@
+import java.sql.*;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Validates, prices and redeems coupons.
+ * Active coupons are held in an in-memory index keyed by code, reloaded every REFRESH_MS
+ * or after invalidate(), so checking a code and pricing a cart needs no database round trip.
+ * Validity windows are checked against the clock on every lookup.
+ * A coupon with a redemption cap keeps its remaining redemptions spread over several
+ * Coupon_Redemption_Slots rows; a redemption takes one unit from a random slot, so a popular
+ * code does not serialize every checkout on a single counter row. Canceling an order gives
+ * its redemption back (release()).
+ */
+public class CouponEngine {
+
+    private static final long REFRESH_MS = Long.getLong("coupons.refreshSeconds", 60L) * 1000;
+    private static final int DEFAULT_SLOTS = Integer.getInteger("coupons.slots", 8);
+
+    private static final String LOAD_SQL = """
+        SELECT c.coupon_id, c.code, c.discount_percent, c.valid_from, c.valid_until, c.max_redemptions,
+               (SELECT COUNT(*) FROM Coupon_Redemption_Slots s WHERE s.coupon_id = c.coupon_id) AS slots
+        FROM Coupons c
+        WHERE c.is_active = TRUE
+        """;
+
+    private static final String TAKE_SLOT_SQL =
+        "UPDATE Coupon_Redemption_Slots SET remaining = remaining - 1 WHERE coupon_id = ? AND slot = ? AND remaining > 0";
+
+    private static final String REDEEM_SQL = "INSERT INTO Order_Coupons (order_id, coupon_id) VALUES (?, ?)";
+
+    // SET runs left to right, so total_amount subtracts the discount_amount just computed.
+    private static final String APPLY_DISCOUNT_SQL = """
+        UPDATE Orders
+        SET discount_amount = ROUND(total_amount * ? / 100, 2),
+            total_amount = total_amount - discount_amount
+        WHERE order_id = ?
+        """;
+
+    private static final String ORDER_COUPON_SQL = "SELECT coupon_id FROM Order_Coupons WHERE order_id = ? FOR UPDATE";
+
+    private static final String UNREDEEM_SQL = "DELETE FROM Order_Coupons WHERE order_id = ?";
+
+    private static final String SLOT_COUNT_SQL = "SELECT COUNT(*) FROM Coupon_Redemption_Slots WHERE coupon_id = ?";
+
+    private static final String RETURN_SLOT_SQL =
+        "UPDATE Coupon_Redemption_Slots SET remaining = remaining + 1 WHERE coupon_id = ? AND slot = ?";
+
+    private static final String CLEAR_SLOTS_SQL = "DELETE FROM Coupon_Redemption_Slots WHERE coupon_id = ?";
+
+    private static final String SET_CAP_SQL = "UPDATE Coupons SET max_redemptions = ? WHERE coupon_id = ?";
+
+    private static final String REDEEMED_SQL = "SELECT COUNT(*) FROM Order_Coupons WHERE coupon_id = ?";
+
+    private static final String ADD_SLOT_SQL =
+        "INSERT INTO Coupon_Redemption_Slots (coupon_id, slot, remaining) VALUES (?, ?, ?)";
+
+    /** One active coupon as held in the index. */
+    public static class Coupon {
+        public final int couponId;
+        public final String code;
+        public final int discountPercent;
+        final Timestamp validFrom;
+        final Timestamp validUntil;
+        final boolean capped;
+        final int slots;
+
+        Coupon(int couponId, String code, int discountPercent, Timestamp validFrom, Timestamp validUntil,
+               boolean capped, int slots) {
+            this.couponId = couponId;
+            this.code = code;
+            this.discountPercent = discountPercent;
+            this.validFrom = validFrom;
+            this.validUntil = validUntil;
+            this.capped = capped;
+            this.slots = slots;
+        }
+
+        boolean isValidAt(long now) {
+            return (validFrom == null || validFrom.getTime() <= now)
+                && (validUntil == null || validUntil.getTime() >= now);
+        }
+
+        /** Discount on a total in cents, rounded the same way redeem() rounds it. */
+        public long discountOn(long totalCents) {
+            return Money.percentOf(totalCents, discountPercent);
+        }
+    }
+
+    private static volatile Map<String, Coupon> index;
+    private static volatile long loadedAt = 0;
+    // Coupons whose slots ran dry; rejected without a database call until the next reload.
+    private static volatile Map<Integer, Boolean> exhausted = new HashMap<>();
+
+    /**
+     * Looks up a code and checks it is active, inside its validity window and not used up.
+     * Throws BusinessException with a message for the customer otherwise.
+     */
+    public static Coupon validate(String code) throws SQLException, BusinessException {
+        Coupon coupon = code == null ? null : index().get(normalize(code));
+        if (coupon == null || !coupon.isValidAt(System.currentTimeMillis())) {
+            throw new BusinessException("Invalid or expired coupon code!");
+        }
+        if (exhausted.containsKey(coupon.couponId)) {
+            throw new BusinessException("This coupon has reached its redemption limit.");
+        }
+        return coupon;
+    }
+
+    /**
+     * Redeems a coupon for an order inside the checkout transaction: takes one redemption from
+     * the coupon's cap, records it in Order_Coupons and takes the discount off the order total.
+     */
+    public static void redeem(Connection conn, String code, int orderId) throws SQLException, BusinessException {
+        Coupon coupon = validate(code);
+
+        if (coupon.capped && !takeRedemption(conn, coupon)) {
+            markExhausted(coupon.couponId);
+            throw new BusinessException("This coupon has reached its redemption limit.");
+        }
+
+        PreparedStatement redeemStmt = conn.prepareStatement(REDEEM_SQL);
+        redeemStmt.setInt(1, orderId);
+        redeemStmt.setInt(2, coupon.couponId);
+        redeemStmt.executeUpdate();
+
+        PreparedStatement discountStmt = conn.prepareStatement(APPLY_DISCOUNT_SQL);
+        discountStmt.setInt(1, coupon.discountPercent);
+        discountStmt.setInt(2, orderId);
+        discountStmt.executeUpdate();
+    }
+
+    /**
+     * Gives back the coupon redeemed for an order, if any: deletes its Order_Coupons row and, for a
+     * capped coupon, returns the unit to a random slot. Call inside the transaction that cancels
+     * the order. The order keeps its discounted total.
+     */
+    public static void release(Connection conn, int orderId) throws SQLException {
+        PreparedStatement couponStmt = conn.prepareStatement(ORDER_COUPON_SQL);
+        couponStmt.setInt(1, orderId);
+        ResultSet rs = couponStmt.executeQuery();
+        if (!rs.next()) {
+            return;
+        }
+        int couponId = rs.getInt("coupon_id");
+
+        PreparedStatement unredeemStmt = conn.prepareStatement(UNREDEEM_SQL);
+        unredeemStmt.setInt(1, orderId);
+        unredeemStmt.executeUpdate();
+
+        PreparedStatement countStmt = conn.prepareStatement(SLOT_COUNT_SQL);
+        countStmt.setInt(1, couponId);
+        ResultSet countRs = countStmt.executeQuery();
+        int slots = countRs.next() ? countRs.getInt(1) : 0;
+        if (slots == 0) {
+            return;  // uncapped
+        }
+        PreparedStatement returnStmt = conn.prepareStatement(RETURN_SLOT_SQL);
+        returnStmt.setInt(1, couponId);
+        returnStmt.setInt(2, ThreadLocalRandom.current().nextInt(slots));
+        returnStmt.executeUpdate();
+        clearExhausted(couponId);
+    }
+
+    /**
+     * Sets how many more times a coupon may be redeemed in total (null removes the cap) and
+     * spreads what is left over DEFAULT_SLOTS counter rows. Call invalidate() after committing.
+     */
+    public static void setRedemptionCap(Connection conn, int couponId, Integer maxRedemptions) throws SQLException {
+        PreparedStatement capStmt = conn.prepareStatement(SET_CAP_SQL);
+        if (maxRedemptions == null) {
+            capStmt.setNull(1, Types.INTEGER);
+        } else {
+            capStmt.setInt(1, maxRedemptions);
+        }
+        capStmt.setInt(2, couponId);
+        capStmt.executeUpdate();
+
+        PreparedStatement clearStmt = conn.prepareStatement(CLEAR_SLOTS_SQL);
+        clearStmt.setInt(1, couponId);
+        clearStmt.executeUpdate();
+        if (maxRedemptions == null) {
+            return;
+        }
+
+        PreparedStatement redeemedStmt = conn.prepareStatement(REDEEMED_SQL);
+        redeemedStmt.setInt(1, couponId);
+        ResultSet rs = redeemedStmt.executeQuery();
+        int left = Math.max(0, maxRedemptions - (rs.next() ? rs.getInt(1) : 0));
+
+        PreparedStatement slotStmt = conn.prepareStatement(ADD_SLOT_SQL);
+        for (int slot = 0; slot < DEFAULT_SLOTS; slot++) {
+            slotStmt.setInt(1, couponId);
+            slotStmt.setInt(2, slot);
+            slotStmt.setInt(3, left / DEFAULT_SLOTS + (slot < left % DEFAULT_SLOTS ? 1 : 0));
+            slotStmt.addBatch();
+        }
+        slotStmt.executeBatch();
+    }
+
+    /** Drops the index; the next lookup reloads it. Call after changing Coupons. */
+    public static synchronized void invalidate() {
+        loadedAt = 0;
+    }
+
+    // Starts at a random slot and walks the others, so an emptied slot only costs one more update.
+    private static boolean takeRedemption(Connection conn, Coupon coupon) throws SQLException {
+        if (coupon.slots == 0) {
+            return false;
+        }
+        PreparedStatement takeStmt = conn.prepareStatement(TAKE_SLOT_SQL);
+        int start = ThreadLocalRandom.current().nextInt(coupon.slots);
+        for (int i = 0; i < coupon.slots; i++) {
+            takeStmt.setInt(1, coupon.couponId);
+            takeStmt.setInt(2, (start + i) % coupon.slots);
+            if (takeStmt.executeUpdate() == 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static synchronized void markExhausted(int couponId) {
+        Map<Integer, Boolean> updated = new HashMap<>(exhausted);
+        updated.put(couponId, Boolean.TRUE);
+        exhausted = updated;
+    }
+
+    private static synchronized void clearExhausted(int couponId) {
+        if (exhausted.containsKey(couponId)) {
+            Map<Integer, Boolean> updated = new HashMap<>(exhausted);
+            updated.remove(couponId);
+            exhausted = updated;
+        }
+    }
+
+    private static String normalize(String code) {
+        return code.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static Map<String, Coupon> index() throws SQLException {
+        Map<String, Coupon> current = index;
+        if (current != null && System.currentTimeMillis() - loadedAt < REFRESH_MS) {
+            return current;
+        }
+        synchronized (CouponEngine.class) {
+            if (index != null && System.currentTimeMillis() - loadedAt < REFRESH_MS) {
+                return index;
+            }
+            Map<String, Coupon> loaded = new HashMap<>();
+            try (Connection conn = DatabaseConnection.getReadConnection()) {
+                ResultSet rs = conn.createStatement().executeQuery(LOAD_SQL);
+                while (rs.next()) {
+                    rs.getInt("max_redemptions");
+                    boolean capped = !rs.wasNull();
+                    Coupon coupon = new Coupon(rs.getInt("coupon_id"), rs.getString("code"),
+                                               rs.getInt("discount_percent"), rs.getTimestamp("valid_from"),
+                                               rs.getTimestamp("valid_until"), capped, rs.getInt("slots"));
+                    loaded.put(normalize(coupon.code), coupon);
+                }
+            }
+            index = loaded;
+            exhausted = new HashMap<>();
+            loadedAt = System.currentTimeMillis();
+            return loaded;
+        }
+    }
+}
@@ -1,19 +1,39 @@
 import java.awt.*;
 import java.sql.*;
-import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.List;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 
 public class CustomerDashboard extends JFrame {
     private User currentUser;
     private JTabbedPane tabbedPane;
-    private DefaultTableModel modelProducts, modelCart, modelHistory, modelAddresses, modelReviews;
+    private PagedTableModel modelProducts;
+    private DefaultTableModel modelCart, modelHistory, modelAddresses, modelReviews;
     private JTable tableProducts, tableCart, tableHistory, tableAddresses, tableReviews;
     private JLabel lblCartTotal;
     private JComboBox<String> cmbCategories;
     private JTextField txtSearch, txtMinPrice, txtMaxPrice;
     private int selectedCatalogId = -1;
 
+    // Keys for loads where a newer request should replace one still in flight.
+    private static final String PRODUCTS_REQUEST = "customer.products";
+    private static final String CART_REQUEST = "customer.cart";
+    private static final String HISTORY_REQUEST = "customer.history";
+    private static final String REVIEWS_REQUEST = "customer.reviews";
+    private static final String STATS_REQUEST = "customer.stats";
+    private static final String ADDRESSES_REQUEST = "customer.addresses";
+
+    // Idempotency key of the checkout in progress; reused when the same order is retried, dropped on success.
+    private String checkoutKey;
+    private int checkoutKeyOrderId = -1;
+
+    // Coupon validated in the cart panel; redeemed at checkout.
+    private CouponEngine.Coupon appliedCoupon;
+    private JTextField txtCoupon;
+    private JButton btnApplyCoupon;
+    private long cartTotal = 0;  // cents
+
     public CustomerDashboard(User user) {
     this.currentUser = user;
     setTitle("Customer Dashboard - " + user.getName());
@@ -108,16 +128,16 @@ public class CustomerDashboard extends JFrame {
     panel.add(northPanel, BorderLayout.NORTH);
 
     String[] columns = {"Product ID", "Name", "Category", "Price", "Stock", "Avg Rating", "Reviews"};
-    modelProducts = new DefaultTableModel(columns, 0) {
-        @Override
-        public boolean isCellEditable(int row, int col) {
-            return false;
-        }
-    };
+    modelProducts = new PagedTableModel(columns);
+    modelProducts.setErrorHandler(ex -> {
+        ex.printStackTrace();
+        JOptionPane.showMessageDialog(this, "Error loading products: " + ex.getMessage());
+    });
     tableProducts = new JTable(modelProducts);
     tableProducts.getColumnModel().getColumn(0).setMinWidth(0);
     tableProducts.getColumnModel().getColumn(0).setMaxWidth(0);
     tableProducts.getColumnModel().getColumn(0).setWidth(0);
+    tableProducts.getColumnModel().getColumn(3).setCellRenderer(new Money.Renderer());
     panel.add(new JScrollPane(tableProducts), BorderLayout.CENTER);
 
     JPanel btnPanel = new JPanel(new FlowLayout());
@@ -138,21 +158,28 @@ public class CustomerDashboard extends JFrame {
             JOptionPane.showMessageDialog(this, "Please select a product!");
             return;
         }
+        if (!modelProducts.isRowLoaded(row)) {
+            JOptionPane.showMessageDialog(this, "This row is still loading, please try again.");
+            return;
+        }
         int productId = (Integer) modelProducts.getValueAt(row, 0);
         
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "INSERT INTO Wishlists (user_id, product_id) VALUES (?, ?)";
-            PreparedStatement pstmt = conn.prepareStatement(sql);
-            pstmt.setInt(1, currentUser.getUserId());
-            pstmt.setInt(2, productId);
-            pstmt.executeUpdate();
-            JOptionPane.showMessageDialog(this, "Added to Wishlist!");
-        } catch (SQLIntegrityConstraintViolationException ex) {
-            JOptionPane.showMessageDialog(this, "This item is already in your wishlist!", "Info", JOptionPane.INFORMATION_MESSAGE);
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error: " + ex.getMessage());
-        }
+        DataAccessExecutor.run(() -> {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                String sql = "INSERT INTO Wishlists (user_id, product_id) VALUES (?, ?)";
+                PreparedStatement pstmt = conn.prepareStatement(sql);
+                pstmt.setInt(1, currentUser.getUserId());
+                pstmt.setInt(2, productId);
+                pstmt.executeUpdate();
+            }
+        }, () -> JOptionPane.showMessageDialog(this, "Added to Wishlist!"), ex -> {
+            if (ex instanceof SQLIntegrityConstraintViolationException) {
+                JOptionPane.showMessageDialog(this, "This item is already in your wishlist!", "Info", JOptionPane.INFORMATION_MESSAGE);
+            } else {
+                ex.printStackTrace();
+                JOptionPane.showMessageDialog(this, "Error: " + ex.getMessage());
+            }
+        });
     });
 
     panel.add(btnPanel, BorderLayout.SOUTH);
@@ -163,106 +190,114 @@ public class CustomerDashboard extends JFrame {
     private void loadCatalogs(JComboBox<String> cmb) {
         cmb.removeAllItems();
         cmb.addItem("-- Select Catalog --");
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "SELECT c.catalog_id, u.name FROM Catalogs c " +
-                        "JOIN Users u ON c.seller_id = u.user_id " +
-                        "ORDER BY u.name";
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
-            while (rs.next()) {
-                cmb.addItem(rs.getInt("catalog_id") + " - " + rs.getString("name"));
+        DataAccessExecutor.submit(() -> {
+            List<String> catalogs = new ArrayList<>();
+            for (ReferenceDataCache.Catalog catalog : ReferenceDataCache.catalogs()) {
+                catalogs.add(catalog.catalogId + " - " + catalog.sellerName);
             }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-        }
+            return catalogs;
+        }, catalogs -> catalogs.forEach(cmb::addItem), Exception::printStackTrace);
     }
 
     private void loadCategories() {
         cmbCategories.removeAllItems();
         cmbCategories.addItem("All");
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "SELECT DISTINCT c.name FROM Categories c " +
-                        "JOIN Products p ON c.category_id = p.category_id " +
-                        "ORDER BY c.name";
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
-            while (rs.next()) {
-                cmbCategories.addItem(rs.getString("name"));
-            }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-        }
+        DataAccessExecutor.submit(ReferenceDataCache::categoriesInUse,
+            categories -> categories.forEach(cmbCategories::addItem), Exception::printStackTrace);
     }
 
     private void loadProducts() {
-        modelProducts.setRowCount(0);
-        if (selectedCatalogId == -1) return;
-
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "SELECT p.product_id, p.name, c.name as category_name, p.price, p.stock_quantity, " +
-                        "COALESCE(AVG(r.rating), 0) as avg_rating, COUNT(r.review_id) as review_count " +
-                        "FROM Products p " +
-                        "JOIN Categories c ON p.category_id = c.category_id " +
-                        "LEFT JOIN Reviews r ON p.product_id = r.product_id " +
-                        "WHERE p.catalog_id = ? ";
-
-            String search = txtSearch.getText().trim();
-            String category = (String) cmbCategories.getSelectedItem();
-            String minPrice = txtMinPrice.getText().trim();
-            String maxPrice = txtMaxPrice.getText().trim();
-
-            if (!search.isEmpty()) {
-                sql += "AND (p.name LIKE ? OR p.description LIKE ?) ";
-            }
-            if (category != null && !category.equals("All")) {
-                sql += "AND c.name = ? ";
-            }
-            if (!minPrice.isEmpty()) {
-                sql += "AND p.price >= ? ";
-            }
-            if (!maxPrice.isEmpty()) {
-                sql += "AND p.price <= ? ";
-            }
+        if (selectedCatalogId == -1) {
+            DataAccessExecutor.cancel(PRODUCTS_REQUEST);
+            modelProducts.clear();
+            return;
+        }
 
-            sql += "GROUP BY p.product_id, p.name, c.name, p.price, p.stock_quantity " +
-                   "ORDER BY p.name";
+        String where = "p.catalog_id = ? ";
+        List<Object> params = new ArrayList<>();
+        params.add(selectedCatalogId);
 
-            PreparedStatement pstmt = conn.prepareStatement(sql);
-            int paramIndex = 1;
-            pstmt.setInt(paramIndex++, selectedCatalogId);
+        String search = txtSearch.getText().trim();
+        String category = (String) cmbCategories.getSelectedItem();
+        String minPrice = txtMinPrice.getText().trim();
+        String maxPrice = txtMaxPrice.getText().trim();
 
-            if (!search.isEmpty()) {
-                String searchPattern = "%" + search + "%";
-                pstmt.setString(paramIndex++, searchPattern);
-                pstmt.setString(paramIndex++, searchPattern);
-            }
-            if (category != null && !category.equals("All")) {
-                pstmt.setString(paramIndex++, category);
-            }
+        if (category != null && !category.equals("All")) {
+            where += "AND c.name = ? ";
+            params.add(category);
+        } else {
+            category = null;
+        }
+        long minCents = Long.MIN_VALUE;
+        long maxCents = Long.MAX_VALUE;
+        try {
             if (!minPrice.isEmpty()) {
-                pstmt.setDouble(paramIndex++, Double.parseDouble(minPrice));
+                minCents = Money.parse(minPrice);
+                where += "AND p.price >= ? ";
+                params.add(Money.decimal(minCents));
             }
             if (!maxPrice.isEmpty()) {
-                pstmt.setDouble(paramIndex++, Double.parseDouble(maxPrice));
-            }
-
-            ResultSet rs = pstmt.executeQuery();
-            DecimalFormat df = new DecimalFormat("#0.00");
-            while (rs.next()) {
-                modelProducts.addRow(new Object[]{
-                    rs.getInt("product_id"),
-                    rs.getString("name"),
-                    rs.getString("category_name"),
-                    "$" + df.format(rs.getDouble("price")),
-                    rs.getInt("stock_quantity"),
-                    String.format("%.1f", rs.getDouble("avg_rating")),
-                    rs.getInt("review_count")
-                });
+                maxCents = Money.parse(maxPrice);
+                where += "AND p.price <= ? ";
+                params.add(Money.decimal(maxCents));
             }
-        } catch (SQLException | NumberFormatException ex) {
+        } catch (NumberFormatException ex) {
             ex.printStackTrace();
             JOptionPane.showMessageDialog(this, "Error loading products: " + ex.getMessage());
+            return;
+        }
+
+        String columns = "p.product_id, p.name, c.name as category_name, p.price, " +
+                         StockStripes.STOCK_EXPR + " as stock_quantity, " +
+                         "p.rating_sum, p.rating_count";
+        String from = "Products p " +
+                      "JOIN Categories c ON p.category_id = c.category_id";
+        PagedTableModel.RowMapper mapper = rs -> new Object[]{
+            rs.getInt("product_id"),
+            rs.getString("name"),
+            rs.getString("category_name"),
+            Money.get(rs, "price"),
+            rs.getInt("stock_quantity"),
+            String.format("%.1f", ReviewService.averageRating(rs.getInt("rating_sum"), rs.getInt("rating_count"))),
+            rs.getInt("rating_count")
+        };
+
+        if (search.isEmpty()) {
+            DataAccessExecutor.cancel(PRODUCTS_REQUEST);
+            // Pages are read on demand, seeking on (name, product_id).
+            modelProducts.setSource(new PagedTableModel.SqlPageSource()
+                .select(columns)
+                .from(from)
+                .where(where, params)
+                .orderBy(new String[]{"p.name", "p.product_id"}, new int[]{1, 0}, false)
+                .map(mapper));
+            return;
         }
+
+        final int catalogId = selectedCatalogId;
+        final String categoryName = category;
+        final long min = minCents;
+        final long max = maxCents;
+        // Keyword matching, the filters and the name order are answered by the in-memory index;
+        // the DB only fetches the rows of the page on screen.
+        // Keyed so that a newer search supersedes one still waiting for the index.
+        DataAccessExecutor.submit(PRODUCTS_REQUEST,
+            () -> {
+                int categoryId = categoryName == null ? -1 : ReferenceDataCache.categoryId(categoryName);
+                if (categoryName != null && categoryId == -1) {
+                    return new int[0];
+                }
+                return ProductSearchIndex.getInstance().search(search, catalogId, categoryId, min, max);
+            },
+            matchingIds -> {
+                if (matchingIds.length == 0) {
+                    modelProducts.clear();
+                    return;
+                }
+                modelProducts.setSource(new PagedTableModel.IdListPageSource(
+                    matchingIds, columns, from, "p.product_id", 0, mapper));
+            },
+            DataAccessExecutor.showError(this, "Error loading products"));
     }
 
     private void viewProductDetails() {
@@ -271,89 +306,106 @@ public class CustomerDashboard extends JFrame {
             JOptionPane.showMessageDialog(this, "Please select a product first!");
             return;
         }
+        if (!modelProducts.isRowLoaded(row)) {
+            JOptionPane.showMessageDialog(this, "This row is still loading, please try again.");
+            return;
+        }
 
         int productId = (Integer) modelProducts.getValueAt(row, 0);
         showProductDetailsDialog(productId);
     }
 
+    // Runs on a background thread when the product is not cached or has changed
+    private ProductDetailCache.Details loadProductDetails(Connection conn, int productId) throws SQLException {
+        String sql = "SELECT p.*, " + StockStripes.STOCK_EXPR + " as stock_total, " +
+                    "c.name as category_name, u.name as seller_name " +
+                    "FROM Products p " +
+                    "JOIN Categories c ON p.category_id = c.category_id " +
+                    "JOIN Catalogs cat ON p.catalog_id = cat.catalog_id " +
+                    "JOIN Users u ON cat.seller_id = u.user_id " +
+                    "WHERE p.product_id = ?";
+        PreparedStatement pstmt = conn.prepareStatement(sql);
+        pstmt.setInt(1, productId);
+        ResultSet rs = pstmt.executeQuery();
+
+        if (!rs.next()) {
+            return null;
+        }
+        int ratingCount = rs.getInt("rating_count");
+        StringBuilder histogram = new StringBuilder();
+        for (int stars = 5; stars >= 1; stars--) {
+            histogram.append("  " + stars + " stars: " + rs.getInt("rating_" + stars) + "\n");
+        }
+        String details =
+            "Product: " + rs.getString("name") + "\n\n" +
+            "Category: " + rs.getString("category_name") + "\n" +
+            "Seller: " + rs.getString("seller_name") + "\n" +
+            "Price: " + Money.format(Money.get(rs, "price")) + "\n" +
+            "Stock: " + rs.getInt("stock_total") + "\n" +
+            "Average Rating: " + String.format("%.1f", ReviewService.averageRating(rs.getInt("rating_sum"), ratingCount)) + " / 5.0\n" +
+            "Total Reviews: " + ratingCount + "\n" +
+            histogram + "\n" +
+            "Description:\n" + (rs.getString("description") != null ? rs.getString("description") : "No description available");
+
+        // Reviews hang off the order item; the product is found through Order_Items.
+        String reviewsSql = "SELECT r.rating, r.comment, r.created_at, u.name as customer_name " +
+                           "FROM Reviews r " +
+                           "JOIN Order_Items oi ON r.order_item_id = oi.order_item_id " +
+                           "JOIN Users u ON r.customer_id = u.user_id " +
+                           "WHERE oi.product_id = ? " +
+                           "ORDER BY r.created_at DESC";
+        PreparedStatement reviewsStmt = conn.prepareStatement(reviewsSql);
+        reviewsStmt.setInt(1, productId);
+        ResultSet reviewsRs = reviewsStmt.executeQuery();
+
+        StringBuilder reviews = new StringBuilder("\n\n--- Customer Reviews ---\n\n");
+        boolean hasReviews = false;
+        while (reviewsRs.next()) {
+            hasReviews = true;
+            reviews.append("Rating: " + reviewsRs.getInt("rating") + "/5\n");
+            reviews.append("By: " + reviewsRs.getString("customer_name") + "\n");
+            reviews.append("Date: " + reviewsRs.getTimestamp("created_at") + "\n");
+            if (reviewsRs.getString("comment") != null) {
+                reviews.append("Comment: " + reviewsRs.getString("comment") + "\n");
+            }
+            reviews.append("---\n\n");
+        }
+        if (!hasReviews) {
+            reviews.append("No reviews yet.\n");
+        }
+        return new ProductDetailCache.Details(details, reviews.toString());
+    }
+
     private void showProductDetailsDialog(int productId) {
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "SELECT p.*, c.name as category_name, u.name as seller_name, " +
-                        "COALESCE(AVG(r.rating), 0) as avg_rating, COUNT(r.review_id) as review_count " +
-                        "FROM Products p " +
-                        "JOIN Categories c ON p.category_id = c.category_id " +
-                        "JOIN Catalogs cat ON p.catalog_id = cat.catalog_id " +
-                        "JOIN Users u ON cat.seller_id = u.user_id " +
-                        "LEFT JOIN Reviews r ON p.product_id = r.product_id " +
-                        "WHERE p.product_id = ? " +
-                        "GROUP BY p.product_id";
-            PreparedStatement pstmt = conn.prepareStatement(sql);
-            pstmt.setInt(1, productId);
-            ResultSet rs = pstmt.executeQuery();
+        DataAccessExecutor.submit(() -> ProductDetailCache.get(productId, this::loadProductDetails), texts -> {
+            if (texts == null) return;
 
-            if (rs.next()) {
-                JDialog dialog = new JDialog(this, "Product Details", true);
-                dialog.setSize(600, 500);
-                dialog.setLocationRelativeTo(this);
-
-                JPanel panel = new JPanel(new BorderLayout());
-                JTextArea details = new JTextArea();
-                details.setEditable(false);
-                details.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
-                details.setText(
-                    "Product: " + rs.getString("name") + "\n\n" +
-                    "Category: " + rs.getString("category_name") + "\n" +
-                    "Seller: " + rs.getString("seller_name") + "\n" +
-                    "Price: $" + rs.getDouble("price") + "\n" +
-                    "Stock: " + rs.getInt("stock_quantity") + "\n" +
-                    "Average Rating: " + String.format("%.1f", rs.getDouble("avg_rating")) + " / 5.0\n" +
-                    "Total Reviews: " + rs.getInt("review_count") + "\n\n" +
-                    "Description:\n" + (rs.getString("description") != null ? rs.getString("description") : "No description available")
-                );
-                panel.add(new JScrollPane(details), BorderLayout.CENTER);
-
-                String reviewsSql = "SELECT r.rating, r.comment, r.review_date, u.name as customer_name " +
-                                   "FROM Reviews r " +
-                                   "JOIN Users u ON r.customer_id = u.user_id " +
-                                   "WHERE r.product_id = ? " +
-                                   "ORDER BY r.review_date DESC";
-                PreparedStatement reviewsStmt = conn.prepareStatement(reviewsSql);
-                reviewsStmt.setInt(1, productId);
-                ResultSet reviewsRs = reviewsStmt.executeQuery();
-
-                JTextArea reviewsArea = new JTextArea();
-                reviewsArea.setEditable(false);
-                reviewsArea.append("\n\n--- Customer Reviews ---\n\n");
-                boolean hasReviews = false;
-                while (reviewsRs.next()) {
-                    hasReviews = true;
-                    reviewsArea.append("Rating: " + reviewsRs.getInt("rating") + "/5\n");
-                    reviewsArea.append("By: " + reviewsRs.getString("customer_name") + "\n");
-                    reviewsArea.append("Date: " + reviewsRs.getTimestamp("review_date") + "\n");
-                    if (reviewsRs.getString("comment") != null) {
-                        reviewsArea.append("Comment: " + reviewsRs.getString("comment") + "\n");
-                    }
-                    reviewsArea.append("---\n\n");
-                }
-                if (!hasReviews) {
-                    reviewsArea.append("No reviews yet.\n");
-                }
-                panel.add(new JScrollPane(reviewsArea), BorderLayout.SOUTH);
+            JDialog dialog = new JDialog(this, "Product Details", true);
+            dialog.setSize(600, 500);
+            dialog.setLocationRelativeTo(this);
 
-                JButton btnAddToCart = new JButton("Add to Cart");
-                btnAddToCart.addActionListener(e -> {
-                    addProductToCart(productId);
-                    dialog.dispose();
-                });
-                panel.add(btnAddToCart, BorderLayout.NORTH);
+            JPanel panel = new JPanel(new BorderLayout());
+            JTextArea details = new JTextArea();
+            details.setEditable(false);
+            details.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+            details.setText(texts.summary);
+            panel.add(new JScrollPane(details), BorderLayout.CENTER);
+
+            JTextArea reviewsArea = new JTextArea();
+            reviewsArea.setEditable(false);
+            reviewsArea.setText(texts.reviews);
+            panel.add(new JScrollPane(reviewsArea), BorderLayout.SOUTH);
+
+            JButton btnAddToCart = new JButton("Add to Cart");
+            btnAddToCart.addActionListener(e -> {
+                addProductToCart(productId);
+                dialog.dispose();
+            });
+            panel.add(btnAddToCart, BorderLayout.NORTH);
 
-                dialog.add(panel);
-                dialog.setVisible(true);
-            }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error loading product details: " + ex.getMessage());
-        }
+            dialog.add(panel);
+            dialog.setVisible(true);
+        }, DataAccessExecutor.showError(this, "Error loading product details"));
     }
 
     private void addToCart() {
@@ -362,6 +414,10 @@ public class CustomerDashboard extends JFrame {
             JOptionPane.showMessageDialog(this, "Please select a product first!");
             return;
         }
+        if (!modelProducts.isRowLoaded(row)) {
+            JOptionPane.showMessageDialog(this, "This row is still loading, please try again.");
+            return;
+        }
 
         int productId = (Integer) modelProducts.getValueAt(row, 0);
         addProductToCart(productId);
@@ -378,144 +434,19 @@ public class CustomerDashboard extends JFrame {
                 return;
             }
 
-            try (Connection conn = DatabaseConnection.getConnection()) {
-                String stockSql = "SELECT stock_quantity FROM Products WHERE product_id = ?";
-                PreparedStatement stockStmt = conn.prepareStatement(stockSql);
-                stockStmt.setInt(1, productId);
-                ResultSet stockRs = stockStmt.executeQuery();
-                if (stockRs.next()) {
-                    int stock = stockRs.getInt("stock_quantity");
-                    if (stock < quantity) {
-                        JOptionPane.showMessageDialog(this, 
-                            "Insufficient stock! Available: " + stock, 
-                            "Stock Error", 
-                            JOptionPane.ERROR_MESSAGE);
-                        return;
-                    }
-                }
-
-                String sellerSql = "SELECT c.seller_id FROM Products p " +
-                                  "JOIN Catalogs c ON p.catalog_id = c.catalog_id " +
-                                  "WHERE p.product_id = ?";
-                PreparedStatement sellerStmt = conn.prepareStatement(sellerSql);
-                sellerStmt.setInt(1, productId);
-                ResultSet sellerRs = sellerStmt.executeQuery();
-                if (!sellerRs.next()) {
-                    JOptionPane.showMessageDialog(this, "Error: Product not found!");
-                    return;
-                }
-                int productSellerId = sellerRs.getInt("seller_id");
-
-                String orderSql = "SELECT order_id, seller_id FROM Orders " +
-                                 "WHERE customer_id = ? AND status = 'ONGOING'";
-                PreparedStatement orderStmt = conn.prepareStatement(orderSql);
-                orderStmt.setInt(1, currentUser.getUserId());
-                ResultSet orderRs = orderStmt.executeQuery();
-
-                int orderId;
-                if (orderRs.next()) {
-                    orderId = orderRs.getInt("order_id");
-                    int existingSellerId = orderRs.getInt("seller_id");
-                    
-                    if (existingSellerId != productSellerId) {
-                        JOptionPane.showMessageDialog(this, 
-                            "You already have items from a different seller in your cart!\n" +
-                            "Please complete or cancel your current order first.", 
-                            "Cart Error", 
-                            JOptionPane.ERROR_MESSAGE);
-                        return;
-                    }
-                } else {
-                    String addressSql = "SELECT address_id FROM Addresses WHERE user_id = ? LIMIT 1";
-                    PreparedStatement addrStmt = conn.prepareStatement(addressSql);
-                    addrStmt.setInt(1, currentUser.getUserId());
-                    ResultSet addrRs = addrStmt.executeQuery();
-                    
-                    if (!addrRs.next()) {
-                        JOptionPane.showMessageDialog(this, 
-                            "Please add an address first in the Addresses tab!", 
-                            "Address Required", 
-                            JOptionPane.WARNING_MESSAGE);
-                        return;
-                    }
-                    
-                    int addressId = addrRs.getInt("address_id");
-                    
-                    String createOrderSql = "INSERT INTO Orders (customer_id, seller_id, shipping_address_id, billing_address_id, status) " +
-                                          "VALUES (?, ?, ?, ?, 'ongoing')";
-                    PreparedStatement createStmt = conn.prepareStatement(createOrderSql, Statement.RETURN_GENERATED_KEYS);
-                    createStmt.setInt(1, currentUser.getUserId());
-                    createStmt.setInt(2, productSellerId);
-                    createStmt.setInt(3, addressId);
-                    createStmt.setInt(4, addressId);
-                    createStmt.executeUpdate();
-                    
-                    ResultSet generatedKeys = createStmt.getGeneratedKeys();
-                    if (generatedKeys.next()) {
-                        orderId = generatedKeys.getInt(1);
-                    } else {
-                        throw new SQLException("Failed to create order");
-                    }
-                }
-
-                String priceSql = "SELECT price FROM Products WHERE product_id = ?";
-                PreparedStatement priceStmt = conn.prepareStatement(priceSql);
-                priceStmt.setInt(1, productId);
-                ResultSet priceRs = priceStmt.executeQuery();
-                if (!priceRs.next()) {
-                    throw new SQLException("Product price not found");
-                }
-                double price = priceRs.getDouble("price");
-                double subtotal = price * quantity;
-
-                String checkSql = "SELECT order_item_id, quantity FROM Order_Items " +
-                                 "WHERE order_id = ? AND product_id = ?";
-                PreparedStatement checkStmt = conn.prepareStatement(checkSql);
-                checkStmt.setInt(1, orderId);
-                checkStmt.setInt(2, productId);
-                ResultSet checkRs = checkStmt.executeQuery();
-
-                if (checkRs.next()) {
-                    int existingQty = checkRs.getInt("quantity");
-                    int newQty = existingQty + quantity;
-                    double newSubtotal = price * newQty;
-                    
-                    String updateSql = "UPDATE Order_Items SET quantity = ?, subtotal = ? " +
-                                      "WHERE order_id = ? AND product_id = ?";
-                    PreparedStatement updateStmt = conn.prepareStatement(updateSql);
-                    updateStmt.setInt(1, newQty);
-                    updateStmt.setDouble(2, newSubtotal);
-                    updateStmt.setInt(3, orderId);
-                    updateStmt.setInt(4, productId);
-                    updateStmt.executeUpdate();
-                } else {
-                    String insertSql = "INSERT INTO Order_Items (order_id, product_id, quantity, price_at_purchase, subtotal) " +
-                                     "VALUES (?, ?, ?, ?, ?)";
-                    PreparedStatement insertStmt = conn.prepareStatement(insertSql);
-                    insertStmt.setInt(1, orderId);
-                    insertStmt.setInt(2, productId);
-                    insertStmt.setInt(3, quantity);
-                    insertStmt.setDouble(4, price);
-                    insertStmt.setDouble(5, subtotal);
-                    insertStmt.executeUpdate();
-                }
-
-                String totalSql = "UPDATE Orders SET total_amount = " +
-                                 "(SELECT COALESCE(SUM(subtotal), 0) FROM Order_Items WHERE order_id = ?) " +
-                                 "WHERE order_id = ?";
-                PreparedStatement totalStmt = conn.prepareStatement(totalSql);
-                totalStmt.setInt(1, orderId);
-                totalStmt.setInt(2, orderId);
-                totalStmt.executeUpdate();
-
+            DataAccessExecutor.run(() -> CartService.addToCart(currentUser.getUserId(), productId, quantity), () -> {
                 JOptionPane.showMessageDialog(this, "Product added to cart successfully!");
                 loadCart();
-            }
+            }, ex -> {
+                if (ex instanceof BusinessException) {
+                    JOptionPane.showMessageDialog(this, ex.getMessage(), "Cart Error", JOptionPane.ERROR_MESSAGE);
+                } else {
+                    ex.printStackTrace();
+                    JOptionPane.showMessageDialog(this, "Error adding to cart: " + ex.getMessage());
+                }
+            });
         } catch (NumberFormatException e) {
             JOptionPane.showMessageDialog(this, "Invalid quantity!");
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error adding to cart: " + ex.getMessage());
         }
     }
 
@@ -530,38 +461,41 @@ public class CustomerDashboard extends JFrame {
         }
     };
     tableCart = new JTable(modelCart);
+    tableCart.getColumnModel().getColumn(2).setCellRenderer(new Money.Renderer());
+    tableCart.getColumnModel().getColumn(3).setCellRenderer(new Money.Renderer());
     panel.add(new JScrollPane(tableCart), BorderLayout.CENTER);
 
     JPanel bottomPanel = new JPanel(new BorderLayout());
 
     JPanel couponPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
-    JTextField txtCoupon = new JTextField(10);
-    JButton btnApplyCoupon = new JButton("Apply Coupon");
+    txtCoupon = new JTextField(10);
+    btnApplyCoupon = new JButton("Apply Coupon");
 
+    // Checked against the in-memory coupon index; nothing is written until checkout.
     btnApplyCoupon.addActionListener(e -> {
+        if (appliedCoupon != null) {
+            clearCoupon();
+            return;
+        }
         String code = txtCoupon.getText().trim();
         if (code.isEmpty()) return;
-        
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "SELECT discount_percent FROM Coupons WHERE code = ? AND is_active = TRUE AND expiry_date >= CURDATE()";
-            PreparedStatement pstmt = conn.prepareStatement(sql);
-            pstmt.setString(1, code);
-            ResultSet rs = pstmt.executeQuery();
-            
-            if (rs.next()) {
-                int discount = rs.getInt("discount_percent");
-                JOptionPane.showMessageDialog(this, 
-                    "Coupon Applied! " + discount + "% discount will be reflected at checkout payment.", 
-                    "Success", JOptionPane.INFORMATION_MESSAGE);
-                // Not: Fiyatı gerçekten düşürmüyoruz, sistemi bozma riski almamak için sadece doğrulama yapıyoruz.
-                txtCoupon.setEnabled(false); 
-                btnApplyCoupon.setEnabled(false);
+
+        DataAccessExecutor.submit(() -> CouponEngine.validate(code), coupon -> {
+            appliedCoupon = coupon;
+            txtCoupon.setEnabled(false);
+            btnApplyCoupon.setText("Remove Coupon");
+            updateCartTotal();
+            JOptionPane.showMessageDialog(this,
+                "Coupon Applied! " + coupon.discountPercent + "% off your order.",
+                "Success", JOptionPane.INFORMATION_MESSAGE);
+        }, ex -> {
+            if (ex instanceof BusinessException) {
+                JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
             } else {
-                JOptionPane.showMessageDialog(this, "Invalid or expired coupon code!", "Error", JOptionPane.ERROR_MESSAGE);
+                ex.printStackTrace();
+                JOptionPane.showMessageDialog(this, "Error checking coupon: " + ex.getMessage());
             }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-        }
+        });
     });
 
     couponPanel.add(new JLabel("Coupon Code:"));
@@ -595,35 +529,59 @@ public class CustomerDashboard extends JFrame {
 }
 
     private void loadCart() {
-        modelCart.setRowCount(0);
-        double total = 0.0;
-
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "SELECT oi.order_item_id, p.name, oi.quantity, oi.price_at_purchase, oi.subtotal " +
-                        "FROM Order_Items oi " +
-                        "JOIN Products p ON oi.product_id = p.product_id " +
-                        "JOIN Orders o ON oi.order_id = o.order_id " +
-                        "WHERE o.customer_id = ? AND o.status = 'ONGOING' " +
-                        "ORDER BY oi.order_item_id";
-            PreparedStatement pstmt = conn.prepareStatement(sql);
-            pstmt.setInt(1, currentUser.getUserId());
-            ResultSet rs = pstmt.executeQuery();
+        DataAccessExecutor.submit(CART_REQUEST, () -> {
+            List<Object[]> rows = new ArrayList<>();
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                String sql = "SELECT oi.order_item_id, p.name, oi.quantity, oi.price_at_purchase, oi.subtotal " +
+                            "FROM Order_Items oi " +
+                            "JOIN Products p ON oi.product_id = p.product_id " +
+                            "JOIN Orders o ON oi.order_id = o.order_id " +
+                            "WHERE o.customer_id = ? AND o.status = 'ONGOING' " +
+                            "ORDER BY oi.order_item_id";
+                PreparedStatement pstmt = conn.prepareStatement(sql);
+                pstmt.setInt(1, currentUser.getUserId());
+                ResultSet rs = pstmt.executeQuery();
 
-            DecimalFormat df = new DecimalFormat("#0.00");
-            while (rs.next()) {
-                modelCart.addRow(new Object[]{
-                    rs.getString("name"),
-                    rs.getInt("quantity"),
-                    "$" + df.format(rs.getDouble("price_at_purchase")),
-                    "$" + df.format(rs.getDouble("subtotal"))
-                });
-                total += rs.getDouble("subtotal");
+                while (rs.next()) {
+                    rows.add(new Object[]{
+                        rs.getString("name"),
+                        rs.getInt("quantity"),
+                        Money.get(rs, "price_at_purchase"),
+                        Money.get(rs, "subtotal")
+                    });
+                }
+            }
+            return rows;
+        }, rows -> {
+            modelCart.setRowCount(0);
+            long total = 0;
+            for (Object[] row : rows) {
+                modelCart.addRow(row);
+                total += (Long) row[3];
             }
+            cartTotal = total;
+            updateCartTotal();
+        }, Exception::printStackTrace);
+    }
 
-            lblCartTotal.setText("Total: $" + df.format(total));
-        } catch (SQLException ex) {
-            ex.printStackTrace();
+    // Prices the cart with the applied coupon, if any, without going to the database.
+    private void updateCartTotal() {
+        if (appliedCoupon == null) {
+            lblCartTotal.setText("Total: " + Money.format(cartTotal));
+            return;
         }
+        long discount = appliedCoupon.discountOn(cartTotal);
+        lblCartTotal.setText("Total: " + Money.format(cartTotal) +
+                             "  Coupon " + appliedCoupon.code + ": " + Money.format(-discount) +
+                             "  To Pay: " + Money.format(cartTotal - discount));
+    }
+
+    private void clearCoupon() {
+        appliedCoupon = null;
+        txtCoupon.setText("");
+        txtCoupon.setEnabled(true);
+        btnApplyCoupon.setText("Apply Coupon");
+        updateCartTotal();
     }
 
     private void removeFromCart() {
@@ -633,8 +591,8 @@ public class CustomerDashboard extends JFrame {
             return;
         }
 
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "SELECT oi.order_item_id, oi.order_id " +
+        DataAccessExecutor.submit(() -> TransactionTemplate.execute("removeFromCart", conn -> {
+            String sql = "SELECT oi.order_item_id, oi.order_id, oi.product_id, oi.subtotal " +
                         "FROM Order_Items oi " +
                         "JOIN Orders o ON oi.order_id = o.order_id " +
                         "WHERE o.customer_id = ? AND o.status = 'ONGOING' " +
@@ -644,30 +602,33 @@ public class CustomerDashboard extends JFrame {
             pstmt.setInt(2, row);
             ResultSet rs = pstmt.executeQuery();
 
-            if (rs.next()) {
-                int orderItemId = rs.getInt("order_item_id");
-                int orderId = rs.getInt("order_id");
+            if (!rs.next()) {
+                return false;
+            }
+            int orderItemId = rs.getInt("order_item_id");
+            int orderId = rs.getInt("order_id");
+            int productId = rs.getInt("product_id");
+            long subtotal = Money.get(rs, "subtotal");
 
-                String deleteSql = "DELETE FROM Order_Items WHERE order_item_id = ?";
-                PreparedStatement deleteStmt = conn.prepareStatement(deleteSql);
-                deleteStmt.setInt(1, orderItemId);
-                deleteStmt.executeUpdate();
+            InventoryReservationService.release(conn, orderId, productId);
 
-                String totalSql = "UPDATE Orders SET total_amount = " +
-                                 "(SELECT COALESCE(SUM(subtotal), 0) FROM Order_Items WHERE order_id = ?) " +
-                                 "WHERE order_id = ?";
-                PreparedStatement totalStmt = conn.prepareStatement(totalSql);
-                totalStmt.setInt(1, orderId);
-                totalStmt.setInt(2, orderId);
-                totalStmt.executeUpdate();
+            String deleteSql = "DELETE FROM Order_Items WHERE order_item_id = ?";
+            PreparedStatement deleteStmt = conn.prepareStatement(deleteSql);
+            deleteStmt.setInt(1, orderItemId);
+            deleteStmt.executeUpdate();
 
+            String totalSql = "UPDATE Orders SET total_amount = total_amount - ? WHERE order_id = ?";
+            PreparedStatement totalStmt = conn.prepareStatement(totalSql);
+            Money.set(totalStmt, 1, subtotal);
+            totalStmt.setInt(2, orderId);
+            totalStmt.executeUpdate();
+            return true;
+        }), removed -> {
+            if (removed) {
                 loadCart();
                 JOptionPane.showMessageDialog(this, "Item removed from cart!");
             }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error removing item: " + ex.getMessage());
-        }
+        }, DataAccessExecutor.showError(this, "Error removing item"));
     }
 
     private void updateQuantity() {
@@ -680,195 +641,145 @@ public class CustomerDashboard extends JFrame {
         String qtyStr = JOptionPane.showInputDialog(this, "Enter new quantity:");
         if (qtyStr == null || qtyStr.trim().isEmpty()) return;
 
+        int newQty;
         try {
-            int newQty = Integer.parseInt(qtyStr);
-            if (newQty <= 0) {
-                JOptionPane.showMessageDialog(this, "Quantity must be greater than 0!");
-                return;
-            }
-
-            try (Connection conn = DatabaseConnection.getConnection()) {
-                String sql = "SELECT oi.order_item_id, oi.order_id, oi.product_id, oi.price_at_purchase " +
-                            "FROM Order_Items oi " +
-                            "JOIN Orders o ON oi.order_id = o.order_id " +
-                            "WHERE o.customer_id = ? AND o.status = 'ONGOING' " +
-                            "LIMIT 1 OFFSET ?";
-                PreparedStatement pstmt = conn.prepareStatement(sql);
-                pstmt.setInt(1, currentUser.getUserId());
-                pstmt.setInt(2, row);
-                ResultSet rs = pstmt.executeQuery();
-
-                if (rs.next()) {
-                    int orderItemId = rs.getInt("order_item_id");
-                    int orderId = rs.getInt("order_id");
-                    int productId = rs.getInt("product_id");
-                    double price = rs.getDouble("price_at_purchase");
-
-                    String stockSql = "SELECT stock_quantity FROM Products WHERE product_id = ?";
-                    PreparedStatement stockStmt = conn.prepareStatement(stockSql);
-                    stockStmt.setInt(1, productId);
-                    ResultSet stockRs = stockStmt.executeQuery();
-                    if (stockRs.next()) {
-                        int stock = stockRs.getInt("stock_quantity");
-                        if (stock < newQty) {
-                            JOptionPane.showMessageDialog(this, 
-                                "Insufficient stock! Available: " + stock, 
-                                "Stock Error", 
-                                JOptionPane.ERROR_MESSAGE);
-                            return;
-                        }
-                    }
-
-                    double newSubtotal = price * newQty;
-                    String updateSql = "UPDATE Order_Items SET quantity = ?, subtotal = ? WHERE order_item_id = ?";
-                    PreparedStatement updateStmt = conn.prepareStatement(updateSql);
-                    updateStmt.setInt(1, newQty);
-                    updateStmt.setDouble(2, newSubtotal);
-                    updateStmt.setInt(3, orderItemId);
-                    updateStmt.executeUpdate();
-
-                    String totalSql = "UPDATE Orders SET total_amount = " +
-                                     "(SELECT COALESCE(SUM(subtotal), 0) FROM Order_Items WHERE order_id = ?) " +
-                                     "WHERE order_id = ?";
-                    PreparedStatement totalStmt = conn.prepareStatement(totalSql);
-                    totalStmt.setInt(1, orderId);
-                    totalStmt.setInt(2, orderId);
-                    totalStmt.executeUpdate();
-
-                    loadCart();
-                    JOptionPane.showMessageDialog(this, "Quantity updated!");
-                }
-            }
+            newQty = Integer.parseInt(qtyStr);
         } catch (NumberFormatException e) {
             JOptionPane.showMessageDialog(this, "Invalid quantity!");
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error updating quantity: " + ex.getMessage());
+            return;
         }
-    }
-
-private void submitOrder() {
-    Connection conn = null;
-    try {
-        conn = DatabaseConnection.getConnection();
-        conn.setAutoCommit(false);
-
-        String checkSql = "SELECT COUNT(*) as item_count FROM Order_Items oi " +
-                         "JOIN Orders o ON oi.order_id = o.order_id " +
-                         "WHERE o.customer_id = ? AND o.status = 'ONGOING'";
-        PreparedStatement checkStmt = conn.prepareStatement(checkSql);
-        checkStmt.setInt(1, currentUser.getUserId());
-        ResultSet checkRs = checkStmt.executeQuery();
-        
-        if (!checkRs.next() || checkRs.getInt("item_count") == 0) {
-            conn.rollback(); 
-            JOptionPane.showMessageDialog(this, "Your cart is empty!");
+        if (newQty <= 0) {
+            JOptionPane.showMessageDialog(this, "Quantity must be greater than 0!");
             return;
         }
 
-        String orderSql = "SELECT order_id, shipping_address_id, billing_address_id FROM Orders " +
-                        "WHERE customer_id = ? AND status = 'ONGOING'";
-        PreparedStatement orderStmt = conn.prepareStatement(orderSql);
-        orderStmt.setInt(1, currentUser.getUserId());
-        ResultSet orderRs = orderStmt.executeQuery();
-
-        if (orderRs.next()) {
-            int orderId = orderRs.getInt("order_id");
-            int shippingAddrId = orderRs.getInt("shipping_address_id");
-            int billingAddrId = orderRs.getInt("billing_address_id");
-
-            AddressSelectionDialog dialog = new AddressSelectionDialog(this, conn, currentUser.getUserId(), 
-                                                                      shippingAddrId, billingAddrId);
-            dialog.setVisible(true);
+        DataAccessExecutor.submit(() -> TransactionTemplate.execute("updateCartQuantity", conn -> {
+            String sql = "SELECT oi.order_item_id, oi.order_id, oi.product_id, oi.price_at_purchase, oi.subtotal " +
+                        "FROM Order_Items oi " +
+                        "JOIN Orders o ON oi.order_id = o.order_id " +
+                        "WHERE o.customer_id = ? AND o.status = 'ONGOING' " +
+                        "LIMIT 1 OFFSET ?";
+            PreparedStatement pstmt = conn.prepareStatement(sql);
+            pstmt.setInt(1, currentUser.getUserId());
+            pstmt.setInt(2, row);
+            ResultSet rs = pstmt.executeQuery();
 
-            if (!dialog.isConfirmed()) {
-                conn.rollback();
-                return;
+            if (!rs.next()) {
+                return false;
             }
+            int orderItemId = rs.getInt("order_item_id");
+            int orderId = rs.getInt("order_id");
+            int productId = rs.getInt("product_id");
+            long price = Money.get(rs, "price_at_purchase");
+            long oldSubtotal = Money.get(rs, "subtotal");
 
-            shippingAddrId = dialog.getShippingAddressId();
-            billingAddrId = dialog.getBillingAddressId();
-
-            String stockCheckSql = "SELECT oi.product_id, oi.quantity, p.stock_quantity, p.name " +
-                                 "FROM Order_Items oi " +
-                                 "JOIN Products p ON oi.product_id = p.product_id " +
-                                 "WHERE oi.order_id = ?";
-            PreparedStatement stockCheckStmt = conn.prepareStatement(stockCheckSql);
-            stockCheckStmt.setInt(1, orderId);
-            ResultSet stockRs = stockCheckStmt.executeQuery();
-
-            while (stockRs.next()) {
-                int prodId = stockRs.getInt("product_id");
-                int qtyNeeded = stockRs.getInt("quantity");
-                int currentStock = stockRs.getInt("stock_quantity");
-                String prodName = stockRs.getString("name");
-
-                if (currentStock < qtyNeeded) {
-                    conn.rollback(); 
-                    JOptionPane.showMessageDialog(this, 
-                        "Sorry, insufficient stock for: " + prodName + "\nAvailable: " + currentStock, 
-                        "Stock Error", JOptionPane.ERROR_MESSAGE);
-                    return;
-                }
-
-                String reduceStockSql = "UPDATE Products SET stock_quantity = stock_quantity - ? WHERE product_id = ?";
-                PreparedStatement reduceStmt = conn.prepareStatement(reduceStockSql);
-                reduceStmt.setInt(1, qtyNeeded);
-                reduceStmt.setInt(2, prodId);
-                reduceStmt.executeUpdate();
-            }
+            InventoryReservationService.hold(conn, orderId, productId, newQty);
 
-            String updateSql = "UPDATE Orders SET shipping_address_id = ?, billing_address_id = ?, status = 'PENDING' " +
-                              "WHERE order_id = ?";
+            long newSubtotal = Money.times(price, newQty);
+            String updateSql = "UPDATE Order_Items SET quantity = ?, subtotal = ? WHERE order_item_id = ?";
             PreparedStatement updateStmt = conn.prepareStatement(updateSql);
-            updateStmt.setInt(1, shippingAddrId);
-            updateStmt.setInt(2, billingAddrId);
-            updateStmt.setInt(3, orderId);
+            updateStmt.setInt(1, newQty);
+            Money.set(updateStmt, 2, newSubtotal);
+            updateStmt.setInt(3, orderItemId);
             updateStmt.executeUpdate();
 
-            String totalSql = "SELECT total_amount FROM Orders WHERE order_id = ?";
+            String totalSql = "UPDATE Orders SET total_amount = total_amount + ? WHERE order_id = ?";
             PreparedStatement totalStmt = conn.prepareStatement(totalSql);
-            totalStmt.setInt(1, orderId);
-            ResultSet totalRs = totalStmt.executeQuery();
-            double totalAmount = 0.0;
-            if (totalRs.next()) {
-                totalAmount = totalRs.getDouble("total_amount");
+            Money.set(totalStmt, 1, newSubtotal - oldSubtotal);
+            totalStmt.setInt(2, orderId);
+            totalStmt.executeUpdate();
+            return true;
+        }), updated -> {
+            if (updated) {
+                loadCart();
+                JOptionPane.showMessageDialog(this, "Quantity updated!");
+            }
+        }, ex -> {
+            if (ex instanceof BusinessException) {
+                JOptionPane.showMessageDialog(this, ex.getMessage(), "Stock Error", JOptionPane.ERROR_MESSAGE);
+            } else {
+                ex.printStackTrace();
+                JOptionPane.showMessageDialog(this, "Error updating quantity: " + ex.getMessage());
             }
+        });
+    }
+
+private void submitOrder() {
+    DataAccessExecutor.submit(() -> {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            String orderSql = "SELECT o.order_id, o.shipping_address_id, o.billing_address_id, " +
+                            "COUNT(oi.order_item_id) as item_count " +
+                            "FROM Orders o " +
+                            "LEFT JOIN Order_Items oi ON oi.order_id = o.order_id " +
+                            "WHERE o.customer_id = ? AND o.status = 'ONGOING' " +
+                            "GROUP BY o.order_id, o.shipping_address_id, o.billing_address_id";
+            PreparedStatement orderStmt = conn.prepareStatement(orderSql);
+            orderStmt.setInt(1, currentUser.getUserId());
+            ResultSet orderRs = orderStmt.executeQuery();
 
-            String paymentSql = "INSERT INTO Payments (order_id, transaction_id, amount, method, status) " +
-                              "VALUES (?, ?, ?, 'Credit Card', 'Completed')"; // Otomatik Completed varsayıyoruz
-            PreparedStatement paymentStmt = conn.prepareStatement(paymentSql);
-            paymentStmt.setInt(1, orderId);
-            paymentStmt.setString(2, "TXN-" + System.currentTimeMillis());
-            paymentStmt.setDouble(3, totalAmount);
-            paymentStmt.executeUpdate();
+            if (!orderRs.next() || orderRs.getInt("item_count") == 0) {
+                return null;
+            }
+            CheckoutInfo info = new CheckoutInfo();
+            info.orderId = orderRs.getInt("order_id");
+            info.shippingAddressId = orderRs.getInt("shipping_address_id");
+            info.billingAddressId = orderRs.getInt("billing_address_id");
+            info.addresses = AddressSelectionDialog.loadAddresses(conn, currentUser.getUserId());
+            return info;
+        }
+    }, info -> {
+        if (info == null) {
+            JOptionPane.showMessageDialog(this, "Your cart is empty!");
+            return;
+        }
 
-            conn.commit();
+        if (checkoutKey == null || checkoutKeyOrderId != info.orderId) {
+            checkoutKey = IdempotencyKeys.newKey();
+            checkoutKeyOrderId = info.orderId;
+        }
+        final String key = checkoutKey;
+        final String couponCode = appliedCoupon != null ? appliedCoupon.code : null;
 
+        // The dialog is modal, so it runs before the checkout transaction is opened.
+        AddressSelectionDialog dialog = new AddressSelectionDialog(this, info.addresses,
+                                                                  info.shippingAddressId, info.billingAddressId);
+        dialog.setVisible(true);
+
+        if (!dialog.isConfirmed()) {
+            return;
+        }
+
+        DataAccessExecutor.run(() -> OrderSubmissionQueue.submitAndWait(key, currentUser.getUserId(), info.orderId,
+                                                                        dialog.getShippingAddressId(), dialog.getBillingAddressId(),
+                                                                        couponCode), () -> {
+            if (key.equals(checkoutKey)) {
+                checkoutKey = null;
+            }
+            clearCoupon();
             JOptionPane.showMessageDialog(this, 
-                "Order submitted successfully! Order ID: " + orderId, 
+                "Order submitted successfully! Order ID: " + info.orderId, 
                 "Success", 
                 JOptionPane.INFORMATION_MESSAGE);
             loadCart(); 
-        }
-    } catch (SQLException ex) {
-        try {
-            if (conn != null) conn.rollback();
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        ex.printStackTrace();
-        JOptionPane.showMessageDialog(this, "Error submitting order: " + ex.getMessage());
-    } finally {
-        try {
-            if (conn != null) conn.setAutoCommit(true);
-            if (conn != null) conn.close();
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-    }
+        }, ex -> {
+            if (ex instanceof BusinessException) {
+                JOptionPane.showMessageDialog(this, ex.getMessage(), "Checkout Error", JOptionPane.ERROR_MESSAGE);
+            } else {
+                ex.printStackTrace();
+                JOptionPane.showMessageDialog(this, "Error submitting order: " + ex.getMessage());
+            }
+        });
+    }, DataAccessExecutor.showError(this, "Error submitting order"));
 }
 
+    // Ongoing order and the customer's addresses, read before the address dialog opens.
+    private static class CheckoutInfo {
+        int orderId;
+        int shippingAddressId;
+        int billingAddressId;
+        List<Object[]> addresses;
+    }
+
     private JPanel createHistoryPanel() {
         JPanel panel = new JPanel(new BorderLayout());
 
@@ -880,6 +791,7 @@ private void submitOrder() {
             }
         };
         tableHistory = new JTable(modelHistory);
+        tableHistory.getColumnModel().getColumn(3).setCellRenderer(new Money.Renderer());
         panel.add(new JScrollPane(tableHistory), BorderLayout.CENTER);
 
         JPanel btnPanel = new JPanel(new FlowLayout());
@@ -896,30 +808,33 @@ private void submitOrder() {
     }
 
     private void loadOrderHistory() {
-        modelHistory.setRowCount(0);
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "SELECT o.order_id, o.order_date, u.name as seller_name, o.total_amount, o.status " +
-                        "FROM Orders o " +
-                        "JOIN Users u ON o.seller_id = u.user_id " +
-                        "WHERE o.customer_id = ? AND o.status != 'ongoing' " +
-                        "ORDER BY o.order_date DESC";
-            PreparedStatement pstmt = conn.prepareStatement(sql);
-            pstmt.setInt(1, currentUser.getUserId());
-            ResultSet rs = pstmt.executeQuery();
+        DataAccessExecutor.submit(HISTORY_REQUEST, () -> {
+            List<Object[]> rows = new ArrayList<>();
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                String sql = "SELECT o.order_id, o.order_date, u.name as seller_name, o.total_amount, o.status " +
+                            "FROM Orders o " +
+                            "JOIN Users u ON o.seller_id = u.user_id " +
+                            "WHERE o.customer_id = ? AND o.status != 'ongoing' " +
+                            "ORDER BY o.order_date DESC";
+                PreparedStatement pstmt = conn.prepareStatement(sql);
+                pstmt.setInt(1, currentUser.getUserId());
+                ResultSet rs = pstmt.executeQuery();
 
-            DecimalFormat df = new DecimalFormat("#0.00");
-            while (rs.next()) {
-                modelHistory.addRow(new Object[]{
-                    rs.getInt("order_id"),
-                    rs.getTimestamp("order_date"),
-                    rs.getString("seller_name"),
-                    "$" + df.format(rs.getDouble("total_amount")),
-                    rs.getString("status")
-                });
+                while (rs.next()) {
+                    rows.add(new Object[]{
+                        rs.getInt("order_id"),
+                        rs.getTimestamp("order_date"),
+                        rs.getString("seller_name"),
+                        Money.get(rs, "total_amount"),
+                        rs.getString("status")
+                    });
+                }
             }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-        }
+            return rows;
+        }, rows -> {
+            modelHistory.setRowCount(0);
+            rows.forEach(modelHistory::addRow);
+        }, Exception::printStackTrace);
     }
 
     private void viewOrderDetails() {
@@ -934,15 +849,28 @@ private void submitOrder() {
     }
 
     private void showOrderDetailsDialog(int orderId) {
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "SELECT oi.product_id, p.name, oi.quantity, oi.price_at_purchase, oi.subtotal " +
-                        "FROM Order_Items oi " +
-                        "JOIN Products p ON oi.product_id = p.product_id " +
-                        "WHERE oi.order_id = ?";
-            PreparedStatement pstmt = conn.prepareStatement(sql);
-            pstmt.setInt(1, orderId);
-            ResultSet rs = pstmt.executeQuery();
+        DataAccessExecutor.submit(() -> {
+            List<Object[]> rows = new ArrayList<>();
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                String sql = "SELECT oi.product_id, p.name, oi.quantity, oi.price_at_purchase, oi.subtotal " +
+                            "FROM Order_Items oi " +
+                            "JOIN Products p ON oi.product_id = p.product_id " +
+                            "WHERE oi.order_id = ?";
+                PreparedStatement pstmt = conn.prepareStatement(sql);
+                pstmt.setInt(1, orderId);
+                ResultSet rs = pstmt.executeQuery();
 
+                while (rs.next()) {
+                    rows.add(new Object[]{
+                        rs.getString("name"),
+                        rs.getInt("quantity"),
+                        Money.get(rs, "price_at_purchase"),
+                        Money.get(rs, "subtotal")
+                    });
+                }
+            }
+            return rows;
+        }, rows -> {
             JDialog dialog = new JDialog(this, "Order Details - Order #" + orderId, true);
             dialog.setSize(600, 400);
             dialog.setLocationRelativeTo(this);
@@ -951,31 +879,24 @@ private void submitOrder() {
                 new String[]{"Product", "Quantity", "Unit Price", "Subtotal"}, 0
             );
             JTable table = new JTable(model);
-            DecimalFormat df = new DecimalFormat("#0.00");
-            double total = 0.0;
+            table.getColumnModel().getColumn(2).setCellRenderer(new Money.Renderer());
+            table.getColumnModel().getColumn(3).setCellRenderer(new Money.Renderer());
+            long total = 0;
 
-            while (rs.next()) {
-                model.addRow(new Object[]{
-                    rs.getString("name"),
-                    rs.getInt("quantity"),
-                    "$" + df.format(rs.getDouble("price_at_purchase")),
-                    "$" + df.format(rs.getDouble("subtotal"))
-                });
-                total += rs.getDouble("subtotal");
+            for (Object[] row : rows) {
+                model.addRow(row);
+                total += (Long) row[3];
             }
 
             JPanel panel = new JPanel(new BorderLayout());
             panel.add(new JScrollPane(table), BorderLayout.CENTER);
-            JLabel totalLabel = new JLabel("Total: $" + df.format(total));
+            JLabel totalLabel = new JLabel("Total: " + Money.format(total));
             totalLabel.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 14));
             panel.add(totalLabel, BorderLayout.SOUTH);
 
             dialog.add(panel);
             dialog.setVisible(true);
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error loading order details: " + ex.getMessage());
-        }
+        }, DataAccessExecutor.showError(this, "Error loading order details"));
     }
 
     private void cancelOrder() {
@@ -1002,7 +923,17 @@ private void submitOrder() {
             JOptionPane.YES_NO_OPTION);
         
         if (confirm == JOptionPane.YES_OPTION) {
-            try (Connection conn = DatabaseConnection.getConnection()) {
+            DataAccessExecutor.run(() -> TransactionTemplate.execute("cancelOrder", conn -> {
+                // The status row is locked first, so of two overlapping cancels (a double click)
+                // only the one that sees the order still pending gives the stock back.
+                String oldStatus = OrderService.changeStatus(conn, orderId, "CANCELED");
+                if (oldStatus == null || oldStatus.equalsIgnoreCase("CANCELED")) {
+                    return null;
+                }
+                if (!oldStatus.equalsIgnoreCase("pending")) {
+                    throw new BusinessException("Only pending orders can be canceled!");
+                }
+
                 String restoreSql = "UPDATE Products p " +
                                   "JOIN Order_Items oi ON p.product_id = oi.product_id " +
                                   "SET p.stock_quantity = p.stock_quantity + oi.quantity " +
@@ -1010,18 +941,11 @@ private void submitOrder() {
                 PreparedStatement restoreStmt = conn.prepareStatement(restoreSql);
                 restoreStmt.setInt(1, orderId);
                 restoreStmt.executeUpdate();
-
-                String updateSql = "UPDATE Orders SET status = 'CANCELED' WHERE order_id = ?";
-                PreparedStatement updateStmt = conn.prepareStatement(updateSql);
-                updateStmt.setInt(1, orderId);
-                updateStmt.executeUpdate();
-
+                return null;
+            }), () -> {
                 JOptionPane.showMessageDialog(this, "Order canceled successfully!");
                 loadOrderHistory();
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-                JOptionPane.showMessageDialog(this, "Error canceling order: " + ex.getMessage());
-            }
+            }, DataAccessExecutor.showError(this, "Error canceling order"));
         }
     }
 
@@ -1059,9 +983,8 @@ private void submitOrder() {
         
         int orderId = (Integer) modelReviews.getValueAt(row, 0);
         String productName = (String) modelReviews.getValueAt(row, 1);
+        // The dialog reloads the list once its review has been saved.
         showReviewDialog(orderId, productName);
-        
-        loadReviewableItems(); 
     });
 
     panel.add(btnReview, BorderLayout.SOUTH);
@@ -1071,38 +994,40 @@ private void submitOrder() {
     private void loadReviewableItems() {
     if (modelReviews == null) return;
 
-    modelReviews.setRowCount(0); // Tabloyu temizle
-
-    try (Connection conn = DatabaseConnection.getConnection()) {
-        String sql = "SELECT o.order_id, p.name, oi.quantity, o.status, oi.order_item_id, p.product_id " +
-                     "FROM Order_Items oi " +
-                     "JOIN Orders o ON oi.order_id = o.order_id " +
-                     "JOIN Products p ON oi.product_id = p.product_id " +
-                     "WHERE o.customer_id = ? " +
-                     "AND o.status IN ('Shipped', 'Delivered') " +
-                     "AND NOT EXISTS ( " +
-                     "    SELECT 1 FROM Reviews r WHERE r.order_item_id = oi.order_item_id " +
-                     ") " +
-                     "ORDER BY o.order_date DESC";
+    DataAccessExecutor.submit(REVIEWS_REQUEST, () -> {
+        List<Object[]> rows = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            String sql = "SELECT o.order_id, p.name, oi.quantity, o.status, oi.order_item_id, p.product_id " +
+                         "FROM Order_Items oi " +
+                         "JOIN Orders o ON oi.order_id = o.order_id " +
+                         "JOIN Products p ON oi.product_id = p.product_id " +
+                         "WHERE o.customer_id = ? " +
+                         "AND o.status IN ('Shipped', 'Delivered') " +
+                         "AND NOT EXISTS ( " +
+                         "    SELECT 1 FROM Reviews r WHERE r.order_item_id = oi.order_item_id " +
+                         ") " +
+                         "ORDER BY o.order_date DESC";
 
-        PreparedStatement pstmt = conn.prepareStatement(sql);
-        pstmt.setInt(1, currentUser.getUserId());
-        ResultSet rs = pstmt.executeQuery();
+            PreparedStatement pstmt = conn.prepareStatement(sql);
+            pstmt.setInt(1, currentUser.getUserId());
+            ResultSet rs = pstmt.executeQuery();
 
-        while (rs.next()) {
-            modelReviews.addRow(new Object[]{
-                rs.getInt("order_id"),
-                rs.getString("name"),
-                rs.getInt("quantity"),
-                rs.getString("status"),
-                rs.getInt("order_item_id"), // Gizli kolon
-                rs.getInt("product_id")     // Gizli kolon
-            });
+            while (rs.next()) {
+                rows.add(new Object[]{
+                    rs.getInt("order_id"),
+                    rs.getString("name"),
+                    rs.getInt("quantity"),
+                    rs.getString("status"),
+                    rs.getInt("order_item_id"), // Gizli kolon
+                    rs.getInt("product_id")     // Gizli kolon
+                });
+            }
         }
-    } catch (SQLException ex) {
-        ex.printStackTrace();
-        JOptionPane.showMessageDialog(this, "Error loading reviewable items: " + ex.getMessage());
-    }
+        return rows;
+    }, rows -> {
+        modelReviews.setRowCount(0); // Tabloyu temizle
+        rows.forEach(modelReviews::addRow);
+    }, DataAccessExecutor.showError(this, "Error loading reviewable items"));
 }
 
     private JPanel createStatsPanel() {
@@ -1113,79 +1038,46 @@ private void submitOrder() {
 
     private void updateStats() {
         JPanel panel = (JPanel) tabbedPane.getComponentAt(4);
-        panel.removeAll();
 
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String monthlySql = "SELECT MONTH(order_date) as month, YEAR(order_date) as year, " +
-                               "SUM(total_amount) as total " +
-                               "FROM Orders " +
-                               "WHERE customer_id = ? AND status != 'ongoing' " +
-                               "GROUP BY YEAR(order_date), MONTH(order_date) " +
-                               "ORDER BY year DESC, month DESC";
-            PreparedStatement monthlyStmt = conn.prepareStatement(monthlySql);
-            monthlyStmt.setInt(1, currentUser.getUserId());
-            ResultSet monthlyRs = monthlyStmt.executeQuery();
-
-            panel.add(new JLabel("=== Monthly Purchase Amount ==="));
-            DecimalFormat df = new DecimalFormat("#0.00");
-            while (monthlyRs.next()) {
-                panel.add(new JLabel(monthlyRs.getInt("year") + "-" + 
-                                    String.format("%02d", monthlyRs.getInt("month")) + 
-                                    ": $" + df.format(monthlyRs.getDouble("total"))));
-            }
+        DataAccessExecutor.submit(STATS_REQUEST, () -> {
+            // Lines to show; headers start with "===" and get a gap above them.
+            List<String> lines = new ArrayList<>();
+            CustomerStats.Snapshot stats = CustomerStats.get(currentUser.getUserId());
+
+            lines.add("=== Monthly Purchase Amount ===");
+            stats.monthlyTotals.forEach((month, total) -> lines.add(month + ": " + Money.format(total)));
 
-            panel.add(Box.createVerticalStrut(20));
-
-            String categorySql = "SELECT c.name, SUM(oi.quantity) as total_quantity " +
-                                "FROM Order_Items oi " +
-                                "JOIN Products p ON oi.product_id = p.product_id " +
-                                "JOIN Categories c ON p.category_id = c.category_id " +
-                                "JOIN Orders o ON oi.order_id = o.order_id " +
-                                "WHERE o.customer_id = ? AND o.status != 'ongoing' " +
-                                "GROUP BY c.category_id, c.name " +
-                                "ORDER BY total_quantity DESC " +
-                                "LIMIT 1";
-            PreparedStatement categoryStmt = conn.prepareStatement(categorySql);
-            categoryStmt.setInt(1, currentUser.getUserId());
-            ResultSet categoryRs = categoryStmt.executeQuery();
-
-            panel.add(new JLabel("=== Most Purchased Category ==="));
-            if (categoryRs.next()) {
-                panel.add(new JLabel(categoryRs.getString("name") + 
-                                    " (" + categoryRs.getInt("total_quantity") + " items)"));
+            lines.add("=== Most Purchased Category ===");
+            int topCategory = stats.topCategory();
+            if (topCategory != -1) {
+                String name = ReferenceDataCache.categoryName(topCategory);
+                lines.add((name != null ? name : "Category #" + topCategory) +
+                          " (" + stats.categoryQuantities.get(topCategory) + " items)");
             } else {
-                panel.add(new JLabel("No purchases yet"));
+                lines.add("No purchases yet");
             }
 
-            panel.add(Box.createVerticalStrut(20));
-
-            String avgSql = "SELECT AVG(monthly_total) as avg_monthly " +
-                           "FROM (SELECT YEAR(order_date) as year, MONTH(order_date) as month, " +
-                           "SUM(total_amount) as monthly_total " +
-                           "FROM Orders " +
-                           "WHERE customer_id = ? AND status != 'ongoing' " +
-                           "GROUP BY YEAR(order_date), MONTH(order_date)) as monthly";
-            PreparedStatement avgStmt = conn.prepareStatement(avgSql);
-            avgStmt.setInt(1, currentUser.getUserId());
-            ResultSet avgRs = avgStmt.executeQuery();
-
-            panel.add(new JLabel("=== Average Monthly Purchase ==="));
-            if (avgRs.next()) {
-                double avg = avgRs.getDouble("avg_monthly");
-                if (!avgRs.wasNull()) {
-                    panel.add(new JLabel("$" + df.format(avg)));
-                } else {
-                    panel.add(new JLabel("No purchases yet"));
+            lines.add("=== Average Monthly Purchase ===");
+            long avg = stats.averageMonthly();
+            lines.add(avg != -1 ? Money.format(avg) : "No purchases yet");
+            return lines;
+        }, lines -> {
+            panel.removeAll();
+            for (int i = 0; i < lines.size(); i++) {
+                if (i > 0 && lines.get(i).startsWith("===")) {
+                    panel.add(Box.createVerticalStrut(20));
                 }
+                panel.add(new JLabel(lines.get(i)));
             }
-
-        } catch (SQLException ex) {
+            panel.revalidate();
+            panel.repaint();
+        }, ex -> {
             ex.printStackTrace();
+            panel.removeAll();
             panel.add(new JLabel("Error loading statistics: " + ex.getMessage()));
-        }
-
-        panel.revalidate();
-        panel.repaint();
+            panel.revalidate();
+            panel.repaint();
+        });
     }
 
     private JPanel createAddressesPanel() {
@@ -1221,24 +1113,28 @@ private void submitOrder() {
     }
 
     private void loadAddresses() {
-        modelAddresses.setRowCount(0);
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "SELECT address_id, street, city, country FROM Addresses WHERE user_id = ?";
-            PreparedStatement pstmt = conn.prepareStatement(sql);
-            pstmt.setInt(1, currentUser.getUserId());
-            ResultSet rs = pstmt.executeQuery();
+        DataAccessExecutor.submit(ADDRESSES_REQUEST, () -> {
+            List<Object[]> rows = new ArrayList<>();
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                String sql = "SELECT address_id, street, city, country FROM Addresses WHERE user_id = ?";
+                PreparedStatement pstmt = conn.prepareStatement(sql);
+                pstmt.setInt(1, currentUser.getUserId());
+                ResultSet rs = pstmt.executeQuery();
 
-            while (rs.next()) {
-                modelAddresses.addRow(new Object[]{
-                    rs.getInt("address_id"),
-                    rs.getString("street"),
-                    rs.getString("city"),
-                    rs.getString("country")
-                });
+                while (rs.next()) {
+                    rows.add(new Object[]{
+                        rs.getInt("address_id"),
+                        rs.getString("street"),
+                        rs.getString("city"),
+                        rs.getString("country")
+                    });
+                }
             }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-        }
+            return rows;
+        }, rows -> {
+            modelAddresses.setRowCount(0);
+            rows.forEach(modelAddresses::addRow);
+        }, Exception::printStackTrace);
     }
 
     private void addAddress() {
@@ -1261,21 +1157,23 @@ private void submitOrder() {
                 return;
             }
 
-            try (Connection conn = DatabaseConnection.getConnection()) {
-                String sql = "INSERT INTO Addresses (user_id, street, city, country) VALUES (?, ?, ?, ?)";
-                PreparedStatement pstmt = conn.prepareStatement(sql);
-                pstmt.setInt(1, currentUser.getUserId());
-                pstmt.setString(2, txtStreet.getText().trim());
-                pstmt.setString(3, txtCity.getText().trim());
-                pstmt.setString(4, txtCountry.getText().trim());
-                pstmt.executeUpdate();
-
+            String street = txtStreet.getText().trim();
+            String city = txtCity.getText().trim();
+            String country = txtCountry.getText().trim();
+            DataAccessExecutor.run(() -> {
+                try (Connection conn = DatabaseConnection.getConnection()) {
+                    String sql = "INSERT INTO Addresses (user_id, street, city, country) VALUES (?, ?, ?, ?)";
+                    PreparedStatement pstmt = conn.prepareStatement(sql);
+                    pstmt.setInt(1, currentUser.getUserId());
+                    pstmt.setString(2, street);
+                    pstmt.setString(3, city);
+                    pstmt.setString(4, country);
+                    pstmt.executeUpdate();
+                }
+            }, () -> {
                 JOptionPane.showMessageDialog(this, "Address added successfully!");
                 loadAddresses();
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-                JOptionPane.showMessageDialog(this, "Error adding address: " + ex.getMessage());
-            }
+            }, DataAccessExecutor.showError(this, "Error adding address"));
         }
     }
 
@@ -1303,21 +1201,23 @@ private void submitOrder() {
 
         int option = JOptionPane.showConfirmDialog(this, message, "Edit Address", JOptionPane.OK_CANCEL_OPTION);
         if (option == JOptionPane.OK_OPTION) {
-            try (Connection conn = DatabaseConnection.getConnection()) {
-                String sql = "UPDATE Addresses SET street = ?, city = ?, country = ? WHERE address_id = ?";
-                PreparedStatement pstmt = conn.prepareStatement(sql);
-                pstmt.setString(1, txtStreet.getText().trim());
-                pstmt.setString(2, txtCity.getText().trim());
-                pstmt.setString(3, txtCountry.getText().trim());
-                pstmt.setInt(4, addressId);
-                pstmt.executeUpdate();
-
+            String street = txtStreet.getText().trim();
+            String city = txtCity.getText().trim();
+            String country = txtCountry.getText().trim();
+            DataAccessExecutor.run(() -> {
+                try (Connection conn = DatabaseConnection.getConnection()) {
+                    String sql = "UPDATE Addresses SET street = ?, city = ?, country = ? WHERE address_id = ?";
+                    PreparedStatement pstmt = conn.prepareStatement(sql);
+                    pstmt.setString(1, street);
+                    pstmt.setString(2, city);
+                    pstmt.setString(3, country);
+                    pstmt.setInt(4, addressId);
+                    pstmt.executeUpdate();
+                }
+            }, () -> {
                 JOptionPane.showMessageDialog(this, "Address updated successfully!");
                 loadAddresses();
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-                JOptionPane.showMessageDialog(this, "Error updating address: " + ex.getMessage());
-            }
+            }, DataAccessExecutor.showError(this, "Error updating address"));
         }
     }
 
@@ -1356,44 +1256,24 @@ private void submitOrder() {
     btnSubmit.addActionListener(e -> {
         String comment = txtComment.getText().trim();
         int rating = ratingSlider.getValue();
+        btnSubmit.setEnabled(false);
         
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String findItemSql = "SELECT oi.order_item_id, oi.product_id " +
-                               "FROM Order_Items oi WHERE oi.order_id = ? LIMIT 1";
-            PreparedStatement findStmt = conn.prepareStatement(findItemSql);
-            findStmt.setInt(1, orderId);
-            ResultSet findRs = findStmt.executeQuery();
-            
-            if (findRs.next()) {
-                int orderItemId = findRs.getInt("order_item_id");
-                int productId = findRs.getInt("product_id");
-                
-                String checkSql = "SELECT review_id FROM Reviews WHERE order_item_id = ?";
-                PreparedStatement checkStmt = conn.prepareStatement(checkSql);
-                checkStmt.setInt(1, orderItemId);
-                if (checkStmt.executeQuery().next()) {
-                    JOptionPane.showMessageDialog(dialog, "You have already reviewed this item!");
-                    return;
-                }
-
-                String insertSql = "INSERT INTO Reviews (customer_id, product_id, order_id, order_item_id, rating, comment) " +
-                                 "VALUES (?, ?, ?, ?, ?, ?)";
-                PreparedStatement pstmt = conn.prepareStatement(insertSql);
-                pstmt.setInt(1, currentUser.getUserId());
-                pstmt.setInt(2, productId);
-                pstmt.setInt(3, orderId);
-                pstmt.setInt(4, orderItemId);
-                pstmt.setInt(5, rating);
-                pstmt.setString(6, comment);
-                pstmt.executeUpdate();
-                
+        DataAccessExecutor.submit(() -> ReviewService.submitReview(currentUser.getUserId(), orderId, rating, comment), submitted -> {
+            btnSubmit.setEnabled(true);
+            if (submitted) {
                 JOptionPane.showMessageDialog(dialog, "Review submitted! Thank you.");
                 dialog.dispose();
+                loadReviewableItems();
             }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            JOptionPane.showMessageDialog(dialog, "Error: " + ex.getMessage());
-        }
+        }, ex -> {
+            btnSubmit.setEnabled(true);
+            if (ex instanceof BusinessException) {
+                JOptionPane.showMessageDialog(dialog, ex.getMessage());
+            } else {
+                ex.printStackTrace();
+                JOptionPane.showMessageDialog(dialog, "Error: " + ex.getMessage());
+            }
+        });
     });
     
     dialog.add(panel);
@@ -1415,18 +1295,17 @@ private void submitOrder() {
             JOptionPane.YES_NO_OPTION);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            try (Connection conn = DatabaseConnection.getConnection()) {
-                String sql = "DELETE FROM Addresses WHERE address_id = ?";
-                PreparedStatement pstmt = conn.prepareStatement(sql);
-                pstmt.setInt(1, addressId);
-                pstmt.executeUpdate();
-
+            DataAccessExecutor.run(() -> {
+                try (Connection conn = DatabaseConnection.getConnection()) {
+                    String sql = "DELETE FROM Addresses WHERE address_id = ?";
+                    PreparedStatement pstmt = conn.prepareStatement(sql);
+                    pstmt.setInt(1, addressId);
+                    pstmt.executeUpdate();
+                }
+            }, () -> {
                 JOptionPane.showMessageDialog(this, "Address deleted successfully!");
                 loadAddresses();
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-                JOptionPane.showMessageDialog(this, "Error deleting address: " + ex.getMessage());
-            }
+            }, DataAccessExecutor.showError(this, "Error deleting address"));
         }
     }
 
@@ -1437,7 +1316,7 @@ private void submitOrder() {
         private boolean confirmed = false;
         private JComboBox<String> cmbShipping, cmbBilling;
 
-        public AddressSelectionDialog(JFrame parent, Connection conn, int userId, 
+        public AddressSelectionDialog(JFrame parent, List<Object[]> addresses, 
                                      int currentShippingId, int currentBillingId) {
             super(parent, "Select Addresses", true);
             setSize(400, 300);
@@ -1451,14 +1330,14 @@ private void submitOrder() {
             panel.add(new JLabel("Shipping Address:"), gbc);
             gbc.gridx = 1;
             cmbShipping = new JComboBox<>();
-            loadAddresses(conn, userId, cmbShipping, currentShippingId);
+            fillAddresses(addresses, cmbShipping, currentShippingId);
             panel.add(cmbShipping, gbc);
 
             gbc.gridx = 0; gbc.gridy = 1;
             panel.add(new JLabel("Billing Address:"), gbc);
             gbc.gridx = 1;
             cmbBilling = new JComboBox<>();
-            loadAddresses(conn, userId, cmbBilling, currentBillingId);
+            fillAddresses(addresses, cmbBilling, currentBillingId);
             panel.add(cmbBilling, gbc);
 
             gbc.gridx = 0; gbc.gridy = 2; gbc.gridwidth = 2;
@@ -1485,24 +1364,29 @@ private void submitOrder() {
             add(panel);
         }
 
-        private void loadAddresses(Connection conn, int userId, JComboBox<String> cmb, int currentId) {
-            try {
-                String sql = "SELECT address_id, street, city, country FROM Addresses WHERE user_id = ?";
-                PreparedStatement pstmt = conn.prepareStatement(sql);
-                pstmt.setInt(1, userId);
-                ResultSet rs = pstmt.executeQuery();
+        // Rows of {address_id, label}; called from the background before the dialog is built.
+        static List<Object[]> loadAddresses(Connection conn, int userId) throws SQLException {
+            String sql = "SELECT address_id, street, city, country FROM Addresses WHERE user_id = ?";
+            PreparedStatement pstmt = conn.prepareStatement(sql);
+            pstmt.setInt(1, userId);
+            ResultSet rs = pstmt.executeQuery();
 
-                while (rs.next()) {
-                    int addrId = rs.getInt("address_id");
-                    String addr = addrId + " - " + rs.getString("street") + ", " + 
-                                rs.getString("city") + ", " + rs.getString("country");
-                    cmb.addItem(addr);
-                    if (addrId == currentId) {
-                        cmb.setSelectedItem(addr);
-                    }
+            List<Object[]> addresses = new ArrayList<>();
+            while (rs.next()) {
+                int addrId = rs.getInt("address_id");
+                String addr = addrId + " - " + rs.getString("street") + ", " + 
+                            rs.getString("city") + ", " + rs.getString("country");
+                addresses.add(new Object[]{addrId, addr});
+            }
+            return addresses;
+        }
+
+        private void fillAddresses(List<Object[]> addresses, JComboBox<String> cmb, int currentId) {
+            for (Object[] address : addresses) {
+                cmb.addItem((String) address[1]);
+                if ((Integer) address[0] == currentId) {
+                    cmb.setSelectedItem(address[1]);
                 }
-            } catch (SQLException ex) {
-                ex.printStackTrace();
             }
         }
 
@@ -1512,48 +1396,47 @@ private void submitOrder() {
     }
 
         private void showNotifications() {
-    try (Connection conn = DatabaseConnection.getConnection()) {
-        // Demo amaçlı: Eğer hiç bildirim yoksa bir tane 'Hoşgeldin' bildirimi oluştur.
-        String checkSql = "SELECT COUNT(*) FROM Notifications WHERE user_id = ?";
-        PreparedStatement checkStmt = conn.prepareStatement(checkSql);
-        checkStmt.setInt(1, currentUser.getUserId());
-        ResultSet rsCheck = checkStmt.executeQuery();
-        if (rsCheck.next() && rsCheck.getInt(1) == 0) {
-            String insertSql = "INSERT INTO Notifications (user_id, message) VALUES (?, 'Welcome to E-Commerce System!')";
-            PreparedStatement insertStmt = conn.prepareStatement(insertSql);
-            insertStmt.setInt(1, currentUser.getUserId());
-            insertStmt.executeUpdate();
-        }
+    DataAccessExecutor.submit(() -> {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            // Demo amaçlı: Eğer hiç bildirim yoksa bir tane 'Hoşgeldin' bildirimi oluştur.
+            String checkSql = "SELECT COUNT(*) FROM Notifications WHERE user_id = ?";
+            PreparedStatement checkStmt = conn.prepareStatement(checkSql);
+            checkStmt.setInt(1, currentUser.getUserId());
+            ResultSet rsCheck = checkStmt.executeQuery();
+            if (rsCheck.next() && rsCheck.getInt(1) == 0) {
+                String insertSql = "INSERT INTO Notifications (user_id, message) VALUES (?, 'Welcome to E-Commerce System!')";
+                PreparedStatement insertStmt = conn.prepareStatement(insertSql);
+                insertStmt.setInt(1, currentUser.getUserId());
+                insertStmt.executeUpdate();
+            }
 
-        String sql = "SELECT message, created_at FROM Notifications WHERE user_id = ? ORDER BY created_at DESC";
-        PreparedStatement pstmt = conn.prepareStatement(sql);
-        pstmt.setInt(1, currentUser.getUserId());
-        ResultSet rs = pstmt.executeQuery();
+            String sql = "SELECT message, created_at FROM Notifications WHERE user_id = ? ORDER BY created_at DESC";
+            PreparedStatement pstmt = conn.prepareStatement(sql);
+            pstmt.setInt(1, currentUser.getUserId());
+            ResultSet rs = pstmt.executeQuery();
 
-        StringBuilder sb = new StringBuilder();
-        boolean hasData = false;
-        while (rs.next()) {
-            hasData = true;
-            sb.append("[").append(rs.getTimestamp("created_at")).append("]\n");
-            sb.append(rs.getString("message")).append("\n\n");
-        }
-        
-        if (!hasData) {
-            sb.append("No new notifications.");
+            StringBuilder sb = new StringBuilder();
+            boolean hasData = false;
+            while (rs.next()) {
+                hasData = true;
+                sb.append("[").append(rs.getTimestamp("created_at")).append("]\n");
+                sb.append(rs.getString("message")).append("\n\n");
+            }
+            
+            if (!hasData) {
+                sb.append("No new notifications.");
+            }
+            return sb.toString();
         }
-
-        JTextArea textArea = new JTextArea(sb.toString());
+    }, text -> {
+        JTextArea textArea = new JTextArea(text);
         textArea.setEditable(false);
         textArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
         JScrollPane scrollPane = new JScrollPane(textArea);
         scrollPane.setPreferredSize(new Dimension(350, 250));
 
         JOptionPane.showMessageDialog(this, scrollPane, "My Notifications", JOptionPane.INFORMATION_MESSAGE);
-
-    } catch (SQLException ex) {
-        ex.printStackTrace();
-        JOptionPane.showMessageDialog(this, "Error loading notifications: " + ex.getMessage());
-    }
+    }, DataAccessExecutor.showError(this, "Error loading notifications"));
 }
 
 }
@@ -0,0 +1,227 @@
+import java.sql.*;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Per-customer spending statistics kept in one Customer_Stats row.
+ * An order counts once it has left ONGOING and for as long as it is not CANCELED; the row is
+ * adjusted in the transaction that moves an order into or out of that set, so the customer
+ * stats tab is a single primary-key read instead of three aggregate queries over Orders.
+ * The counters are stored as a Properties text: month totals and order counts by "yyyy-MM",
+ * and quantities bought by category id. A customer without a row yet (data from before the
+ * table existed) gets one rebuilt from their orders on first use.
+ */
+public class CustomerStats {
+
+    private static final String ORDER_SQL =
+        "SELECT customer_id, DATE_FORMAT(order_date, '%Y-%m') AS month, total_amount FROM Orders WHERE order_id = ?";
+
+    private static final String ORDER_CATEGORIES_SQL = """
+        SELECT p.category_id, SUM(oi.quantity) AS quantity
+        FROM Order_Items oi
+        JOIN Products p ON oi.product_id = p.product_id
+        WHERE oi.order_id = ?
+        GROUP BY p.category_id
+        """;
+
+    private static final String LOCK_SQL = "SELECT stats FROM Customer_Stats WHERE customer_id = ? FOR UPDATE";
+
+    private static final String READ_SQL = "SELECT stats FROM Customer_Stats WHERE customer_id = ?";
+
+    private static final String SAVE_SQL = """
+        INSERT INTO Customer_Stats (customer_id, stats) VALUES (?, ?)
+        ON DUPLICATE KEY UPDATE stats = VALUES(stats)
+        """;
+
+    private static final String REBUILD_MONTHS_SQL = """
+        SELECT DATE_FORMAT(order_date, '%Y-%m') AS month, COUNT(*) AS orders, SUM(total_amount) AS total
+        FROM Orders
+        WHERE customer_id = ? AND status NOT IN ('ONGOING', 'CANCELED')
+        GROUP BY month
+        """;
+
+    private static final String REBUILD_CATEGORIES_SQL = """
+        SELECT p.category_id, SUM(oi.quantity) AS quantity
+        FROM Orders o
+        JOIN Order_Items oi ON oi.order_id = o.order_id
+        JOIN Products p ON oi.product_id = p.product_id
+        WHERE o.customer_id = ? AND o.status NOT IN ('ONGOING', 'CANCELED')
+        GROUP BY p.category_id
+        """;
+
+    /** A customer's statistics as read from their row. */
+    public static class Snapshot {
+        /** Purchase total in cents by "yyyy-MM", newest month first. */
+        public final Map<String, Long> monthlyTotals;
+        /** Units bought by category id. */
+        public final Map<Integer, Integer> categoryQuantities;
+
+        Snapshot(Map<String, Long> monthlyTotals, Map<Integer, Integer> categoryQuantities) {
+            this.monthlyTotals = Collections.unmodifiableMap(monthlyTotals);
+            this.categoryQuantities = Collections.unmodifiableMap(categoryQuantities);
+        }
+
+        /** Average of the monthly totals over the months with purchases, in cents; -1 if there are none. */
+        public long averageMonthly() {
+            if (monthlyTotals.isEmpty()) {
+                return -1;
+            }
+            long sum = 0;
+            for (long total : monthlyTotals.values()) {
+                sum += total;
+            }
+            return Math.round((double) sum / monthlyTotals.size());
+        }
+
+        /** Category id with the most units bought (the lowest id on a tie), or -1 if none. */
+        public int topCategory() {
+            int best = -1;
+            int bestQuantity = 0;
+            for (Map.Entry<Integer, Integer> e : categoryQuantities.entrySet()) {
+                int quantity = e.getValue();
+                if (best == -1 || quantity > bestQuantity || (quantity == bestQuantity && e.getKey() < best)) {
+                    best = e.getKey();
+                    bestQuantity = quantity;
+                }
+            }
+            return best;
+        }
+    }
+
+    /** True for the statuses in which an order counts towards the customer's spending. */
+    public static boolean counts(String status) {
+        if (status == null) {
+            return false;
+        }
+        String s = status.toUpperCase(Locale.ROOT);
+        return !s.equals("ONGOING") && !s.equals("CANCELED");
+    }
+
+    /**
+     * Adds the order to its customer's statistics when it starts counting and subtracts it when
+     * it stops. Must be called inside the transaction that changes the status, after the change
+     * and after any discount has been applied to the order total.
+     */
+    public static void applyTransition(Connection conn, int orderId, String oldStatus, String newStatus)
+            throws SQLException {
+        boolean counted = counts(oldStatus);
+        boolean counts = counts(newStatus);
+        if (counted == counts) {
+            return;
+        }
+
+        PreparedStatement orderStmt = conn.prepareStatement(ORDER_SQL);
+        orderStmt.setInt(1, orderId);
+        ResultSet rs = orderStmt.executeQuery();
+        if (!rs.next()) {
+            return;
+        }
+        int customerId = rs.getInt("customer_id");
+        String month = rs.getString("month");
+        long total = Money.get(rs, "total_amount");
+
+        PreparedStatement lockStmt = conn.prepareStatement(LOCK_SQL);
+        lockStmt.setInt(1, customerId);
+        ResultSet statsRs = lockStmt.executeQuery();
+        if (!statsRs.next()) {
+            // The rebuild already sees this transaction's status change.
+            save(conn, customerId, rebuild(conn, customerId));
+            return;
+        }
+        Properties stats = PropertiesText.fromText(statsRs.getString("stats"));
+
+        int sign = counts ? 1 : -1;
+        add(stats, "month." + month, sign * total);
+        add(stats, "orders." + month, sign);
+        if (Long.parseLong(stats.getProperty("orders." + month)) <= 0) {
+            stats.remove("month." + month);
+            stats.remove("orders." + month);
+        }
+
+        PreparedStatement categoryStmt = conn.prepareStatement(ORDER_CATEGORIES_SQL);
+        categoryStmt.setInt(1, orderId);
+        ResultSet categoryRs = categoryStmt.executeQuery();
+        while (categoryRs.next()) {
+            String key = "category." + categoryRs.getInt("category_id");
+            add(stats, key, sign * categoryRs.getLong("quantity"));
+            if (Long.parseLong(stats.getProperty(key)) <= 0) {
+                stats.remove(key);
+            }
+        }
+        save(conn, customerId, stats);
+    }
+
+    /** Reads a customer's statistics, building their row first if they do not have one yet. */
+    public static Snapshot get(int customerId) throws SQLException, BusinessException {
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
+            PreparedStatement pstmt = conn.prepareStatement(READ_SQL);
+            pstmt.setInt(1, customerId);
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next()) {
+                return parse(PropertiesText.fromText(rs.getString("stats")));
+            }
+        }
+
+        return TransactionTemplate.execute("rebuildCustomerStats", conn -> {
+            PreparedStatement lockStmt = conn.prepareStatement(LOCK_SQL);
+            lockStmt.setInt(1, customerId);
+            ResultSet rs = lockStmt.executeQuery();
+            if (rs.next()) {
+                return parse(PropertiesText.fromText(rs.getString("stats")));
+            }
+            Properties stats = rebuild(conn, customerId);
+            save(conn, customerId, stats);
+            return parse(stats);
+        });
+    }
+
+    private static Properties rebuild(Connection conn, int customerId) throws SQLException {
+        Properties stats = new Properties();
+
+        PreparedStatement monthsStmt = conn.prepareStatement(REBUILD_MONTHS_SQL);
+        monthsStmt.setInt(1, customerId);
+        ResultSet rs = monthsStmt.executeQuery();
+        while (rs.next()) {
+            stats.setProperty("month." + rs.getString("month"), String.valueOf(Money.get(rs, "total")));
+            stats.setProperty("orders." + rs.getString("month"), String.valueOf(rs.getInt("orders")));
+        }
+
+        PreparedStatement categoriesStmt = conn.prepareStatement(REBUILD_CATEGORIES_SQL);
+        categoriesStmt.setInt(1, customerId);
+        rs = categoriesStmt.executeQuery();
+        while (rs.next()) {
+            stats.setProperty("category." + rs.getInt("category_id"), String.valueOf(rs.getLong("quantity")));
+        }
+        return stats;
+    }
+
+    private static void save(Connection conn, int customerId, Properties stats) throws SQLException {
+        PreparedStatement saveStmt = conn.prepareStatement(SAVE_SQL);
+        saveStmt.setInt(1, customerId);
+        saveStmt.setString(2, PropertiesText.toText(stats));
+        saveStmt.executeUpdate();
+    }
+
+    private static void add(Properties stats, String key, long delta) {
+        long current = Long.parseLong(stats.getProperty(key, "0"));
+        stats.setProperty(key, String.valueOf(current + delta));
+    }
+
+    private static Snapshot parse(Properties stats) {
+        Map<String, Long> monthlyTotals = new TreeMap<>(Collections.reverseOrder());
+        Map<Integer, Integer> categoryQuantities = new HashMap<>();
+        for (String key : stats.stringPropertyNames()) {
+            String value = stats.getProperty(key);
+            if (key.startsWith("month.")) {
+                monthlyTotals.put(key.substring(6), Long.parseLong(value));
+            } else if (key.startsWith("category.")) {
+                categoryQuantities.put(Integer.parseInt(key.substring(9)), Integer.parseInt(value));
+            }
+        }
+        return new Snapshot(monthlyTotals, categoryQuantities);
+    }
+}
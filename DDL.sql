@@ -76,9 +76,22 @@ CREATE TABLE Products (
   price             DECIMAL(10,2) NOT NULL CHECK (price >= 0),
   stock_quantity    INT NOT NULL DEFAULT 0 CHECK (stock_quantity >= 0),
 
+  -- Rating aggregates, maintained together with each Reviews insert
+  rating_sum        INT NOT NULL DEFAULT 0,
+  rating_count      INT NOT NULL DEFAULT 0,
+  rating_1          INT NOT NULL DEFAULT 0,
+  rating_2          INT NOT NULL DEFAULT 0,
+  rating_3          INT NOT NULL DEFAULT 0,
+  rating_4          INT NOT NULL DEFAULT 0,
+  rating_5          INT NOT NULL DEFAULT 0,
+
+  -- Hot SKU mode: number of Product_Stock_Stripes rows holding part of the stock (0 = off)
+  stock_stripes     INT NOT NULL DEFAULT 0,
+
   is_active         BOOLEAN NOT NULL DEFAULT TRUE,
   created_at        TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
-  updated_at        TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  -- Microsecond precision: ProductDetailCache uses it as the product's version.
+  updated_at        TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
 
   CONSTRAINT fk_products_catalog
     FOREIGN KEY (catalog_id) REFERENCES Catalogs(catalog_id)
@@ -93,6 +106,7 @@ CREATE TABLE Products (
 
 CREATE INDEX ix_products_catalog  ON Products(catalog_id);
 CREATE INDEX ix_products_category ON Products(category_id);
+CREATE INDEX ix_products_catalog_rating ON Products(catalog_id, rating_count);
 
 CREATE TABLE Orders (
   order_id          BIGINT AUTO_INCREMENT PRIMARY KEY,
@@ -105,6 +119,8 @@ CREATE TABLE Orders (
   order_date        TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
   submitted_at      TIMESTAMP NULL,
   total_amount      DECIMAL(12,2) NOT NULL DEFAULT 0.00 CHECK (total_amount >= 0),
+  -- Coupon discount already taken off total_amount at checkout
+  discount_amount   DECIMAL(12,2) NOT NULL DEFAULT 0.00,
 
   ongoing_customer_id BIGINT
     GENERATED ALWAYS AS (CASE WHEN status='ONGOING' THEN customer_id ELSE NULL END) STORED,
@@ -133,8 +149,10 @@ CREATE TABLE Orders (
 ) ENGINE=InnoDB;
 
 CREATE INDEX ix_orders_customer ON Orders(customer_id);
-CREATE INDEX ix_orders_seller   ON Orders(seller_id);
+-- (seller_id, order_date) also serves SalesSketches rebuilding one seller's day.
+CREATE INDEX ix_orders_seller   ON Orders(seller_id, order_date);
 CREATE INDEX ix_orders_status   ON Orders(status);
+CREATE INDEX ix_orders_date     ON Orders(order_date);
 
 CREATE TABLE Order_Items (
   order_item_id     BIGINT AUTO_INCREMENT PRIMARY KEY,
@@ -171,6 +189,7 @@ CREATE TABLE Payments (
   method            ENUM('CREDIT_CARD','TRANSFER','WALLET','CASH_ON_DELIVERY') NOT NULL,
   status            ENUM('PENDING','COMPLETED','FAILED','REFUNDED') NOT NULL DEFAULT 'PENDING',
   amount            DECIMAL(12,2) NOT NULL CHECK (amount >= 0),
+  transaction_id    VARCHAR(64) NULL,
   paid_at           TIMESTAMP NULL,
   created_at        TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
 
@@ -246,6 +265,8 @@ CREATE TABLE Coupons (
   is_active         BOOLEAN NOT NULL DEFAULT TRUE,
   valid_from        TIMESTAMP NULL,
   valid_until       TIMESTAMP NULL,
+  -- NULL = unlimited; otherwise the remaining redemptions live in Coupon_Redemption_Slots
+  max_redemptions   INT NULL,
   created_by_admin  BIGINT NULL,
   created_at        TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
 
@@ -274,6 +295,20 @@ CREATE TABLE Order_Coupons (
     ON UPDATE CASCADE
 ) ENGINE=InnoDB;
 
+-- Remaining redemptions of a capped coupon, split over a few rows so checkouts using the
+-- same code update different rows instead of queueing on one counter.
+CREATE TABLE Coupon_Redemption_Slots (
+  coupon_id         BIGINT NOT NULL,
+  slot              INT NOT NULL,
+  remaining         INT NOT NULL CHECK (remaining >= 0),
+  PRIMARY KEY (coupon_id, slot),
+
+  CONSTRAINT fk_couponslots_coupon
+    FOREIGN KEY (coupon_id) REFERENCES Coupons(coupon_id)
+    ON DELETE CASCADE
+    ON UPDATE CASCADE
+) ENGINE=InnoDB;
+
 CREATE TABLE Wishlists (
   wishlist_id       BIGINT AUTO_INCREMENT PRIMARY KEY,
   customer_id       BIGINT NOT NULL,
@@ -321,6 +356,156 @@ CREATE TABLE Notifications (
 
 CREATE INDEX ix_notifications_user_read ON Notifications(user_id, is_read);
 
+-- Daily sales rollups. Maintained by the application whenever an order enters or leaves
+-- PAID/SHIPPED/DELIVERED; bucketed by the order's order_date. No foreign keys so that
+-- history survives deleting a seller, category or product.
+CREATE TABLE Sales_Daily_Seller (
+  sale_date         DATE NOT NULL,
+  seller_id         BIGINT NOT NULL,
+  order_count       INT NOT NULL DEFAULT 0,
+  revenue           DECIMAL(14,2) NOT NULL DEFAULT 0.00,
+
+  PRIMARY KEY (sale_date, seller_id)
+) ENGINE=InnoDB;
+
+CREATE INDEX ix_sales_seller ON Sales_Daily_Seller(seller_id, sale_date);
+
+CREATE TABLE Sales_Daily_Category (
+  sale_date         DATE NOT NULL,
+  category_id       BIGINT NOT NULL,
+  quantity          INT NOT NULL DEFAULT 0,
+  revenue           DECIMAL(14,2) NOT NULL DEFAULT 0.00,
+
+  PRIMARY KEY (sale_date, category_id)
+) ENGINE=InnoDB;
+
+CREATE TABLE Sales_Daily_Product (
+  sale_date         DATE NOT NULL,
+  product_id        BIGINT NOT NULL,
+  seller_id         BIGINT NOT NULL DEFAULT 0,
+  order_count       INT NOT NULL DEFAULT 0,
+  quantity          INT NOT NULL DEFAULT 0,
+  revenue           DECIMAL(14,2) NOT NULL DEFAULT 0.00,
+
+  PRIMARY KEY (sale_date, product_id)
+) ENGINE=InnoDB;
+
+CREATE INDEX ix_sales_product ON Sales_Daily_Product(product_id, sale_date);
+-- Seller best sellers over a date range read only that seller's buckets.
+CREATE INDEX ix_sales_product_seller ON Sales_Daily_Product(seller_id, sale_date);
+
+-- Every order becoming (+1) or ceasing to be (-1) a sale, kept for 31 days for PopularityTracker.
+CREATE TABLE Sales_Events (
+  event_id          BIGINT PRIMARY KEY AUTO_INCREMENT,
+  order_id          BIGINT NOT NULL,
+  sign              TINYINT NOT NULL,
+  occurred_at       TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+) ENGINE=InnoDB;
+
+CREATE INDEX ix_sales_events_time ON Sales_Events(occurred_at);
+
+-- Mergeable sketches per day and seller or category, maintained by SalesSketches:
+-- buyers is a HyperLogLog of customer ids, order_values a KLL sketch of order totals in
+-- cents (seller rows only). Same bucketing and sale statuses as the rollups above.
+CREATE TABLE Sales_Sketches (
+  sale_date         DATE NOT NULL,
+  dimension         ENUM('SELLER','CATEGORY') NOT NULL,
+  dimension_id      BIGINT NOT NULL,
+  buyers            BLOB NOT NULL,
+  order_values      BLOB NULL,
+
+  PRIMARY KEY (sale_date, dimension, dimension_id)
+) ENGINE=InnoDB;
+
+CREATE INDEX ix_sales_sketches_dimension ON Sales_Sketches(dimension, dimension_id, sale_date);
+
+-- Per-customer spending counters (monthly totals, units per category) as Properties text,
+-- maintained by CustomerStats whenever an order leaves ONGOING or is canceled.
+CREATE TABLE Customer_Stats (
+  customer_id       BIGINT PRIMARY KEY,
+  stats             TEXT NOT NULL,
+  updated_at        TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+
+  CONSTRAINT fk_customerstats_user
+    FOREIGN KEY (customer_id) REFERENCES Users(user_id)
+    ON DELETE CASCADE
+    ON UPDATE CASCADE
+) ENGINE=InnoDB;
+
+-- Stock of hot SKUs split into sub-counters; total stock = Products.stock_quantity + all stripes.
+CREATE TABLE Product_Stock_Stripes (
+  product_id        BIGINT NOT NULL,
+  stripe_no         INT NOT NULL,
+  quantity          INT NOT NULL DEFAULT 0 CHECK (quantity >= 0),
+
+  PRIMARY KEY (product_id, stripe_no),
+
+  CONSTRAINT fk_stripes_product
+    FOREIGN KEY (product_id) REFERENCES Products(product_id)
+    ON DELETE CASCADE
+    ON UPDATE CASCADE
+) ENGINE=InnoDB;
+
+-- Request keys of completed checkouts/cancellations; a row exists only if the operation committed.
+CREATE TABLE Idempotency_Keys (
+  idempotency_key   VARCHAR(64) NOT NULL PRIMARY KEY,
+  operation         VARCHAR(30) NOT NULL,
+  order_id          BIGINT NOT NULL,
+  created_at        TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+  CONSTRAINT fk_idempotency_order
+    FOREIGN KEY (order_id) REFERENCES Orders(order_id)
+    ON DELETE CASCADE
+    ON UPDATE CASCADE
+) ENGINE=InnoDB;
+
+CREATE INDEX ix_idempotency_created ON Idempotency_Keys(created_at);
+
+-- Transactional outbox: side effects of order changes, written in the order's transaction
+-- and carried out afterwards by the application's dispatcher, oldest first per order.
+CREATE TABLE Outbox_Events (
+  event_id          BIGINT AUTO_INCREMENT PRIMARY KEY,
+  order_id          BIGINT NOT NULL,
+  event_type        VARCHAR(40) NOT NULL,
+  payload           TEXT NULL,
+
+  status            ENUM('PENDING','PROCESSING','DONE','FAILED') NOT NULL DEFAULT 'PENDING',
+  attempts          INT NOT NULL DEFAULT 0,
+  available_at      TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  locked_until      TIMESTAMP NULL,
+  last_error        VARCHAR(500) NULL,
+  created_at        TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  processed_at      TIMESTAMP NULL
+) ENGINE=InnoDB;
+
+CREATE INDEX ix_outbox_status_available ON Outbox_Events(status, available_at);
+CREATE INDEX ix_outbox_order            ON Outbox_Events(order_id, event_id);
+CREATE INDEX ix_outbox_processed        ON Outbox_Events(status, processed_at);
+
+-- Short-lived stock holds for lines of ONGOING orders; expired rows are swept by the application.
+CREATE TABLE Stock_Reservations (
+  reservation_id    BIGINT AUTO_INCREMENT PRIMARY KEY,
+  order_id          BIGINT NOT NULL,
+  product_id        BIGINT NOT NULL,
+  quantity          INT NOT NULL CHECK (quantity > 0),
+  expires_at        TIMESTAMP NOT NULL,
+
+  CONSTRAINT fk_reservations_order
+    FOREIGN KEY (order_id) REFERENCES Orders(order_id)
+    ON DELETE CASCADE
+    ON UPDATE CASCADE,
+
+  CONSTRAINT fk_reservations_product
+    FOREIGN KEY (product_id) REFERENCES Products(product_id)
+    ON DELETE CASCADE
+    ON UPDATE CASCADE,
+
+  UNIQUE KEY uq_reservation_order_product (order_id, product_id)
+) ENGINE=InnoDB;
+
+CREATE INDEX ix_reservations_product ON Stock_Reservations(product_id, expires_at);
+CREATE INDEX ix_reservations_expiry  ON Stock_Reservations(expires_at);
+
 DELIMITER $$
 
 CREATE TRIGGER trg_reviews_only_after_shipped
@@ -342,44 +527,8 @@ BEGIN
   END IF;
 END$$
 
-CREATE TRIGGER trg_orderitems_check_stock
-BEFORE INSERT ON Order_Items
-FOR EACH ROW
-BEGIN
-  DECLARE v_stock INT;
-
-  SELECT stock_quantity INTO v_stock
-  FROM Products
-  WHERE product_id = NEW.product_id
-  FOR UPDATE;
-
-  IF v_stock IS NULL OR v_stock < NEW.quantity THEN
-    SIGNAL SQLSTATE '45000'
-      SET MESSAGE_TEXT = 'Insufficient stock for the selected product.';
-  END IF;
-END$$
-
-CREATE TRIGGER trg_orderitems_check_stock_update
-BEFORE UPDATE ON Order_Items
-FOR EACH ROW
-BEGIN
-  DECLARE v_stock INT;
-  DECLARE v_delta INT;
-
-  SET v_delta = NEW.quantity - OLD.quantity;
-
-  IF v_delta > 0 THEN
-    SELECT stock_quantity INTO v_stock
-    FROM Products
-    WHERE product_id = NEW.product_id
-    FOR UPDATE;
-
-    IF v_stock IS NULL OR v_stock < v_delta THEN
-      SIGNAL SQLSTATE '45000'
-        SET MESSAGE_TEXT = 'Insufficient stock for increasing quantity.';
-    END IF;
-  END IF;
-END$$
+-- Stock for cart lines is checked through Stock_Reservations rather than a trigger that
+-- locks the Products row on every Order_Items insert or update.
 
 DELIMITER ;
 
@@ -49,9 +49,31 @@ INSERT INTO Reviews (order_item_id, customer_id, rating, comment) VALUES
 (1, 4, 5, 'Excellent product'),
 (2, 4, 4, 'Good quality');
 
-INSERT INTO Coupons (code, discount_percent, is_active, created_by_admin) VALUES
-('WELCOME10', 10, TRUE, 1),
-('SPRING20', 20, TRUE, 1);
+-- Bring the rating aggregates in line with the reviews inserted above
+UPDATE Products p
+JOIN (
+  SELECT oi.product_id,
+         SUM(r.rating) AS rating_sum, COUNT(*) AS rating_count,
+         SUM(r.rating = 1) AS r1, SUM(r.rating = 2) AS r2, SUM(r.rating = 3) AS r3,
+         SUM(r.rating = 4) AS r4, SUM(r.rating = 5) AS r5
+  FROM Reviews r
+  JOIN Order_Items oi ON r.order_item_id = oi.order_item_id
+  GROUP BY oi.product_id
+) agg ON agg.product_id = p.product_id
+SET p.rating_sum = agg.rating_sum, p.rating_count = agg.rating_count,
+    p.rating_1 = agg.r1, p.rating_2 = agg.r2, p.rating_3 = agg.r3,
+    p.rating_4 = agg.r4, p.rating_5 = agg.r5;
+
+INSERT INTO Coupons (code, discount_percent, is_active, max_redemptions, created_by_admin) VALUES
+('WELCOME10', 10, TRUE, NULL, 1),
+('SPRING20', 20, TRUE, 100, 1);
+
+-- SPRING20's 100 redemptions spread over 4 slots
+INSERT INTO Coupon_Redemption_Slots (coupon_id, slot, remaining) VALUES
+(2, 0, 25),
+(2, 1, 25),
+(2, 2, 25),
+(2, 3, 25);
 
 INSERT INTO Order_Coupons (order_id, coupon_id) VALUES
 (1, 1);
@@ -68,3 +90,28 @@ INSERT INTO Wishlist_Items (wishlist_id, product_id) VALUES
 INSERT INTO Notifications (user_id, title, message) VALUES
 (4, 'Order Delivered', 'Your order has been delivered successfully.'),
 (5, 'Order Payment', 'Your payment has been received.');
+
+-- Sales rollups for the seeded PAID/SHIPPED/DELIVERED orders; line revenue is net of its
+-- share of any coupon discount, as in SalesRollup.LINE_REVENUE_EXPR
+INSERT INTO Sales_Daily_Seller (sale_date, seller_id, order_count, revenue)
+SELECT DATE(o.order_date), COALESCE(o.seller_id, 0), COUNT(*), SUM(o.total_amount)
+FROM Orders o
+WHERE o.status IN ('PAID', 'SHIPPED', 'DELIVERED')
+GROUP BY DATE(o.order_date), COALESCE(o.seller_id, 0);
+
+INSERT INTO Sales_Daily_Category (sale_date, category_id, quantity, revenue)
+SELECT DATE(o.order_date), p.category_id, SUM(oi.quantity),
+       SUM(COALESCE(ROUND(oi.subtotal * o.total_amount / NULLIF(o.total_amount + o.discount_amount, 0), 2), 0))
+FROM Orders o
+JOIN Order_Items oi ON oi.order_id = o.order_id
+JOIN Products p ON oi.product_id = p.product_id
+WHERE o.status IN ('PAID', 'SHIPPED', 'DELIVERED')
+GROUP BY DATE(o.order_date), p.category_id;
+
+INSERT INTO Sales_Daily_Product (sale_date, product_id, seller_id, order_count, quantity, revenue)
+SELECT DATE(o.order_date), oi.product_id, COALESCE(o.seller_id, 0), COUNT(*), SUM(oi.quantity),
+       SUM(COALESCE(ROUND(oi.subtotal * o.total_amount / NULLIF(o.total_amount + o.discount_amount, 0), 2), 0))
+FROM Orders o
+JOIN Order_Items oi ON oi.order_id = o.order_id
+WHERE o.status IN ('PAID', 'SHIPPED', 'DELIVERED')
+GROUP BY DATE(o.order_date), oi.product_id, COALESCE(o.seller_id, 0);
@@ -0,0 +1,150 @@
+import java.awt.Component;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
+
+/**
+ * Runs database work off the Swing event dispatch thread and hands results back on the EDT.
+ * Uses virtual threads when the JDK has them, otherwise a bounded pool sized like the connection pool.
+ */
+public class DataAccessExecutor {
+
+    /** Background work that produces a result. */
+    public interface Query<T> {
+        T call() throws Exception;
+    }
+
+    /** Background work with no result, usually a write; reads stay on the primary for a while afterwards. */
+    public interface Update {
+        void run() throws Exception;
+    }
+
+    private static final int PLATFORM_THREADS =
+        Integer.getInteger("db.executor.threads", Integer.getInteger("db.pool.maxSize", 10));
+
+    private static final ExecutorService EXECUTOR = createExecutor();
+
+    // Latest request per key; submitting under the same key cancels the previous one.
+    private static final Map<String, Request> latest = new ConcurrentHashMap<>();
+
+    /** Handle to a submitted request. A cancelled request never calls back. */
+    public static class Request {
+        private volatile boolean cancelled = false;
+        private volatile Future<?> future;
+
+        public void cancel() {
+            cancelled = true;
+            Future<?> f = future;
+            if (f != null) {
+                f.cancel(true);
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    public static <T> Request submit(Query<T> query, Consumer<? super T> onSuccess, Consumer<Exception> onError) {
+        return submit(null, query, onSuccess, onError);
+    }
+
+    /**
+     * Runs query in the background, then onSuccess or onError on the EDT.
+     * A non-null key supersedes any request still in flight under the same key,
+     * e.g. a new search cancels the previous product load.
+     */
+    public static <T> Request submit(String key, Query<T> query,
+                                     Consumer<? super T> onSuccess, Consumer<Exception> onError) {
+        Request request = new Request();
+        if (key != null) {
+            Request previous = latest.put(key, request);
+            if (previous != null) {
+                previous.cancel();
+            }
+        }
+
+        request.future = EXECUTOR.submit(() -> {
+            if (request.cancelled) return;
+            T result = null;
+            Exception error = null;
+            try {
+                result = query.call();
+            } catch (Exception e) {
+                error = e;
+            }
+
+            final T value = result;
+            final Exception failure = error;
+            SwingUtilities.invokeLater(() -> {
+                if (key != null) {
+                    latest.remove(key, request);
+                }
+                if (request.cancelled) return;
+                if (failure == null) {
+                    onSuccess.accept(value);
+                } else {
+                    onError.accept(failure);
+                }
+            });
+        });
+        return request;
+    }
+
+    public static Request run(Update update, Runnable onSuccess, Consumer<Exception> onError) {
+        return submit(null, () -> {
+            update.run();
+            DatabaseConnection.pinToPrimary();
+            return null;
+        }, ignored -> onSuccess.run(), onError);
+    }
+
+    public static void cancel(String key) {
+        Request request = latest.remove(key);
+        if (request != null) {
+            request.cancel();
+        }
+    }
+
+    /** Error callback that logs the exception and shows "prefix: message" in a dialog. */
+    public static Consumer<Exception> showError(Component parent, String prefix) {
+        return ex -> {
+            ex.printStackTrace();
+            JOptionPane.showMessageDialog(parent, prefix + ": " + ex.getMessage());
+        };
+    }
+
+    public static void shutdown() {
+        EXECUTOR.shutdownNow();
+    }
+
+    private static ExecutorService createExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            // Pre-21 JDK: platform threads, no more than the pool could serve anyway.
+            AtomicInteger counter = new AtomicInteger();
+            ThreadFactory threadFactory = r -> {
+                Thread t = new Thread(r, "db-worker-" + counter.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            };
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(PLATFORM_THREADS, PLATFORM_THREADS,
+                30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+            pool.allowCoreThreadTimeOut(true);
+            return pool;
+        }
+    }
+}
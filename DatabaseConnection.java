@@ -1,18 +1,186 @@
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class DatabaseConnection {
     private static final String URL = "jdbc:mysql://localhost:3306/ecommerce_db";
     private static final String USER = "root";
     private static final String PASSWORD = "123";// Your database password
-    
+
+    // Pool sizing can be overridden with -Ddb.pool.minSize=... etc.
+    private static final int POOL_MIN_SIZE = Integer.getInteger("db.pool.minSize", 2);
+    private static final int POOL_MAX_SIZE = Integer.getInteger("db.pool.maxSize", 10);
+    private static final long ACQUIRE_TIMEOUT_MS = Long.getLong("db.pool.acquireTimeoutMs", 5000L);
+    private static final long IDLE_TIMEOUT_MS = Long.getLong("db.pool.idleTimeoutMs", 600000L);
+    private static final long LEAK_THRESHOLD_MS = Long.getLong("db.pool.leakThresholdMs", 60000L);
+    private static final int STATEMENT_CACHE_SIZE = Integer.getInteger("db.pool.statementCacheSize", 64);
+
+    // Read replica for dashboard queries, e.g. -Ddb.replica.url=jdbc:mysql://replica:3306/ecommerce_db
+    // (a jdbc:mysql:loadbalance:// URL spreads reads over several replicas). Unset means reads use the primary.
+    private static final String REPLICA_URL = System.getProperty("db.replica.url");
+    private static final int REPLICA_MAX_LAG_SECONDS = Integer.getInteger("db.replica.maxLagSeconds", 5);
+    private static final long REPLICA_LAG_CHECK_MS = Long.getLong("db.replica.lagCheckMs", 2000L);
+    // How long reads stay on the primary after this session writes; should exceed the usual replica lag.
+    private static final long PRIMARY_PIN_MS = Long.getLong("db.replica.pinMs", 10000L);
+
+    // Created on first use so the driver is loaded and connections are opened only once.
+    // Each pool has its own lock, so replica trouble never holds up a primary borrow.
+    private static final Object PRIMARY_LOCK = new Object();
+    private static final Object REPLICA_LOCK = new Object();
+    private static volatile ConnectionPool primaryPool;
+    private static volatile ConnectionPool replicaPool;
+
+    // The app serves one signed-in user per process, so the read-your-writes pin is process-wide.
+    private static volatile long pinnedUntil = 0;
+    private static volatile boolean replicaUsable = false;
+    private static volatile long replicaCheckedAt = 0;
+    private static final AtomicBoolean lagCheckRunning = new AtomicBoolean();
+
+    /**
+     * Borrows a pooled connection. Closing it returns it to the pool.
+     */
     public static Connection getConnection() throws SQLException {
+        return primaryPool().borrow();
+    }
+
+    /**
+     * Borrows a read-only connection for queries that tolerate slightly stale data.
+     * Served by the replica unless none is configured, it lags more than the allowed threshold,
+     * it cannot be reached, or this session wrote within the last PRIMARY_PIN_MS.
+     * In those cases the primary answers instead.
+     */
+    public static Connection getReadConnection() throws SQLException {
+        if (REPLICA_URL == null || System.currentTimeMillis() < pinnedUntil || !isReplicaUsable()) {
+            return getConnection();
+        }
         try {
-            Class.forName("com.mysql.cj.jdbc.Driver");
-            return DriverManager.getConnection(URL, USER, PASSWORD);
-        } catch (ClassNotFoundException e) {
-            throw new SQLException("MySQL Driver not found!", e);
+            Connection conn = replicaPool().borrow();
+            conn.setReadOnly(true);
+            return conn;
+        } catch (SQLException e) {
+            replicaUsable = false;
+            replicaCheckedAt = System.currentTimeMillis();
+            return getConnection();
         }
     }
-}
\ No newline at end of file
+
+    /** Sends this session's reads to the primary for a while, so it sees what it just wrote. */
+    public static void pinToPrimary() {
+        pinnedUntil = System.currentTimeMillis() + PRIMARY_PIN_MS;
+    }
+
+    public static ConnectionPool.Stats getPoolStats() throws SQLException {
+        return primaryPool().getStats();
+    }
+
+    /** Replica pool counters, or null when no replica is configured. */
+    public static ConnectionPool.Stats getReplicaPoolStats() throws SQLException {
+        return REPLICA_URL == null ? null : replicaPool().getStats();
+    }
+
+    public static void shutdown() {
+        synchronized (REPLICA_LOCK) {
+            if (replicaPool != null) {
+                replicaPool.shutdown();
+                replicaPool = null;
+            }
+        }
+        synchronized (PRIMARY_LOCK) {
+            if (primaryPool != null) {
+                primaryPool.shutdown();
+                primaryPool = null;
+            }
+        }
+    }
+
+    // Re-checks replication lag at most every REPLICA_LAG_CHECK_MS. Only one caller runs the check;
+    // everyone else, including callers while it is in progress, reuses the last answer.
+    private static boolean isReplicaUsable() {
+        if (System.currentTimeMillis() - replicaCheckedAt < REPLICA_LAG_CHECK_MS
+                || !lagCheckRunning.compareAndSet(false, true)) {
+            return replicaUsable;
+        }
+        try {
+            if (System.currentTimeMillis() - replicaCheckedAt >= REPLICA_LAG_CHECK_MS) {
+                replicaUsable = measureReplicaLag() <= REPLICA_MAX_LAG_SECONDS;
+                replicaCheckedAt = System.currentTimeMillis();
+            }
+        } finally {
+            lagCheckRunning.set(false);
+        }
+        return replicaUsable;
+    }
+
+    // Seconds_Behind_Source, or Long.MAX_VALUE when replication is stopped or the replica is unreachable.
+    private static long measureReplicaLag() {
+        try (Connection conn = replicaPool().borrow()) {
+            Statement stmt = conn.createStatement();
+            ResultSet rs = stmt.executeQuery("SHOW REPLICA STATUS");
+            if (!rs.next()) {
+                return Long.MAX_VALUE;  // not a replica
+            }
+            long lag = rs.getLong("Seconds_Behind_Source");
+            return rs.wasNull() ? Long.MAX_VALUE : lag;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static ConnectionPool replicaPool() throws SQLException {
+        ConnectionPool pool = replicaPool;
+        if (pool != null) {
+            return pool;
+        }
+        primaryPool();  // loads the driver
+        synchronized (REPLICA_LOCK) {
+            if (replicaPool == null) {
+                replicaPool = createPool("replica", REPLICA_URL);
+            }
+            return replicaPool;
+        }
+    }
+
+    private static ConnectionPool primaryPool() throws SQLException {
+        ConnectionPool pool = primaryPool;
+        if (pool != null) {
+            return pool;
+        }
+        synchronized (PRIMARY_LOCK) {
+            if (primaryPool == null) {
+                try {
+                    Class.forName("com.mysql.cj.jdbc.Driver");
+                } catch (ClassNotFoundException e) {
+                    throw new SQLException("MySQL Driver not found!", e);
+                }
+                primaryPool = createPool("primary", URL);
+            }
+            return primaryPool;
+        }
+    }
+
+    private static ConnectionPool createPool(String name, String url) {
+        Properties props = new Properties();
+        props.setProperty("user", USER);
+        props.setProperty("password", PASSWORD);
+        // Server-side prepared statements so cached statements skip parsing on the server too;
+        // the pool's StatementCache does the caching, so the driver's own cache stays off.
+        props.setProperty("useServerPrepStmts", "true");
+        props.setProperty("cachePrepStmts", "false");
+        props.setProperty("useLocalSessionState", "true");
+        // Lets OrderService send its per-line stock updates as a single round trip.
+        props.setProperty("rewriteBatchedStatements", "true");
+
+        ConnectionPool.Config config = new ConnectionPool.Config()
+            .minSize(POOL_MIN_SIZE)
+            .maxSize(POOL_MAX_SIZE)
+            .acquireTimeoutMs(ACQUIRE_TIMEOUT_MS)
+            .idleTimeoutMs(IDLE_TIMEOUT_MS)
+            .leakThresholdMs(LEAK_THRESHOLD_MS)
+            .statementCacheSize(STATEMENT_CACHE_SIZE);
+        return new ConnectionPool(name, url, props, config);
+    }
+}
@@ -0,0 +1,97 @@
+import java.nio.ByteBuffer;
+
+/**
+ * HyperLogLog estimate of the number of distinct long keys, with 2^P one-byte registers
+ * (about 1.6% standard error). Two sketches merge by taking the larger of each register, so
+ * per-day sketches can be combined into any range without double counting a key.
+ * toBytes() keeps sketches with few keys sparse (3 bytes per used register) and switches
+ * to the full register array once that is smaller. Not thread-safe.
+ */
+public class HyperLogLog {
+
+    private static final int P = 12;
+    private static final int M = 1 << P;
+    private static final byte SPARSE = 0, DENSE = 1;
+
+    private final byte[] registers = new byte[M];
+
+    public void add(long key) {
+        long hash = mix(key);
+        int index = (int) (hash >>> (64 - P));
+        int rank = Math.min(Long.numberOfLeadingZeros(hash << P) + 1, 64 - P + 1);
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    public void merge(HyperLogLog other) {
+        for (int i = 0; i < M; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte r : registers) {
+            sum += 1.0 / (1L << r);
+            if (r == 0) {
+                zeros++;
+            }
+        }
+        double alpha = 0.7213 / (1 + 1.079 / M);
+        double estimate = alpha * M * M / sum;
+        if (estimate <= 2.5 * M && zeros > 0) {
+            estimate = M * Math.log((double) M / zeros);  // linear counting for small cardinalities
+        }
+        return Math.round(estimate);
+    }
+
+    public byte[] toBytes() {
+        int used = 0;
+        for (byte r : registers) {
+            if (r != 0) {
+                used++;
+            }
+        }
+        if (used * 3 >= M) {
+            ByteBuffer buf = ByteBuffer.allocate(1 + M);
+            buf.put(DENSE).put(registers);
+            return buf.array();
+        }
+        ByteBuffer buf = ByteBuffer.allocate(1 + used * 3);
+        buf.put(SPARSE);
+        for (int i = 0; i < M; i++) {
+            if (registers[i] != 0) {
+                buf.putShort((short) i).put(registers[i]);
+            }
+        }
+        return buf.array();
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        HyperLogLog hll = new HyperLogLog();
+        if (bytes == null || bytes.length == 0) {
+            return hll;
+        }
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        if (buf.get() == DENSE) {
+            buf.get(hll.registers);
+        } else {
+            while (buf.remaining() >= 3) {
+                hll.registers[buf.getShort()] = buf.get();
+            }
+        }
+        return hll;
+    }
+
+    // SplitMix64 finalizer: spreads sequential ids over all 64 bits.
+    private static long mix(long key) {
+        long z = key + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,52 @@
+import java.sql.*;
+import java.util.UUID;
+
+/**
+ * Client-supplied request keys that make retried operations safe.
+ * The key row is inserted first, inside the operation's own transaction: if the operation
+ * commits, the row records that it ran; if it rolls back, the row disappears and a retry
+ * runs it again. A concurrent retry blocks on the unique key until the first one finishes.
+ */
+public class IdempotencyKeys {
+
+    private static final String CLAIM_SQL =
+        "INSERT INTO Idempotency_Keys (idempotency_key, operation, order_id) VALUES (?, ?, ?)";
+
+    // Locking read, so it sees a row committed after this transaction's snapshot was taken.
+    private static final String FIND_SQL =
+        "SELECT operation, order_id FROM Idempotency_Keys WHERE idempotency_key = ? FOR UPDATE";
+
+    public static String newKey() {
+        return UUID.randomUUID().toString();
+    }
+
+    /**
+     * Claims the key for an operation on an order. Returns true when the caller should run the
+     * operation, false when the same operation on the same order already completed under this key.
+     * Must be the first statement of the operation's transaction.
+     */
+    public static boolean claim(Connection conn, String key, String operation, int orderId)
+            throws SQLException, BusinessException {
+        PreparedStatement claimStmt = conn.prepareStatement(CLAIM_SQL);
+        claimStmt.setString(1, key);
+        claimStmt.setString(2, operation);
+        claimStmt.setInt(3, orderId);
+        try {
+            claimStmt.executeUpdate();
+            return true;
+        } catch (SQLIntegrityConstraintViolationException e) {
+            // Already used; fall through and check it was for the same request.
+        }
+
+        PreparedStatement findStmt = conn.prepareStatement(FIND_SQL);
+        findStmt.setString(1, key);
+        ResultSet rs = findStmt.executeQuery();
+        if (!rs.next()) {
+            throw new SQLException("Idempotency key " + key + " vanished while being checked");
+        }
+        if (!operation.equals(rs.getString("operation")) || rs.getInt("order_id") != orderId) {
+            throw new BusinessException("This request key was already used for a different request.");
+        }
+        return false;
+    }
+}
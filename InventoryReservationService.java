@@ -0,0 +1,126 @@
+import java.sql.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Short-lived stock holds for items sitting in ongoing orders.
+ * A hold is one row per (order, product) with a quantity and an expiry. Cart writes check
+ * availability with a plain consistent read, so they never lock the Products row; the
+ * authoritative check happens at checkout, where holds are converted into a conditional
+ * stock deduction that also respects everyone else's unexpired holds.
+ * Expired holds are deleted by a background sweeper.
+ */
+public class InventoryReservationService {
+
+    private static final int HOLD_MINUTES = Integer.getInteger("inventory.hold.minutes", 15);
+    private static final int SWEEP_INTERVAL_SECONDS = Integer.getInteger("inventory.sweep.seconds", 60);
+    private static final int SWEEP_BATCH = 500;
+
+    // Stock minus what other orders are holding; this order's own hold does not count against it.
+    private static final String AVAILABLE_SQL = "SELECT " + StockStripes.STOCK_EXPR + """
+         - COALESCE((
+            SELECT SUM(r.quantity) FROM Stock_Reservations r
+            WHERE r.product_id = p.product_id AND r.order_id <> ? AND r.expires_at > NOW()
+        ), 0) AS available
+        FROM Products p
+        WHERE p.product_id = ?
+        """;
+
+    private static final String SET_HOLD_SQL = """
+        INSERT INTO Stock_Reservations (order_id, product_id, quantity, expires_at)
+        VALUES (?, ?, ?, NOW() + INTERVAL ? MINUTE)
+        ON DUPLICATE KEY UPDATE quantity = VALUES(quantity), expires_at = VALUES(expires_at)
+        """;
+
+    private static final String RELEASE_SQL = "DELETE FROM Stock_Reservations WHERE order_id = ? AND product_id = ?";
+
+    private static final String RELEASE_ORDER_SQL = "DELETE FROM Stock_Reservations WHERE order_id = ?";
+
+    private static final String SWEEP_SQL = "DELETE FROM Stock_Reservations WHERE expires_at <= NOW() LIMIT " + SWEEP_BATCH;
+
+    // Used at checkout: deducts only if the stock not held by other orders covers the line.
+    static final String DEDUCT_SQL = """
+        UPDATE Products SET stock_quantity = stock_quantity - ?
+        WHERE product_id = ? AND stock_quantity - COALESCE((
+            SELECT SUM(r.quantity) FROM Stock_Reservations r
+            WHERE r.product_id = ? AND r.order_id <> ? AND r.expires_at > NOW()
+        ), 0) >= ?
+        """;
+
+    private static ScheduledExecutorService sweeper;
+
+    /**
+     * Sets the order's hold on a product to quantity units and restarts its expiry.
+     * Call inside the transaction that writes the cart line.
+     */
+    public static void hold(Connection conn, int orderId, int productId, int quantity)
+            throws SQLException, BusinessException {
+        int available = available(conn, orderId, productId);
+        if (available < quantity) {
+            throw new BusinessException("Insufficient stock! Available: " + Math.max(available, 0));
+        }
+
+        PreparedStatement pstmt = conn.prepareStatement(SET_HOLD_SQL);
+        pstmt.setInt(1, orderId);
+        pstmt.setInt(2, productId);
+        pstmt.setInt(3, quantity);
+        pstmt.setInt(4, HOLD_MINUTES);
+        pstmt.executeUpdate();
+    }
+
+    public static void release(Connection conn, int orderId, int productId) throws SQLException {
+        PreparedStatement pstmt = conn.prepareStatement(RELEASE_SQL);
+        pstmt.setInt(1, orderId);
+        pstmt.setInt(2, productId);
+        pstmt.executeUpdate();
+    }
+
+    /** Drops every hold of the order, e.g. once checkout has deducted the stock. */
+    public static void releaseOrder(Connection conn, int orderId) throws SQLException {
+        PreparedStatement pstmt = conn.prepareStatement(RELEASE_ORDER_SQL);
+        pstmt.setInt(1, orderId);
+        pstmt.executeUpdate();
+    }
+
+    /** Units of the product the given order may still take. */
+    public static int available(Connection conn, int orderId, int productId) throws SQLException {
+        PreparedStatement pstmt = conn.prepareStatement(AVAILABLE_SQL);
+        pstmt.setInt(1, orderId);
+        pstmt.setInt(2, productId);
+        ResultSet rs = pstmt.executeQuery();
+        return rs.next() ? rs.getInt("available") : 0;
+    }
+
+    public static synchronized void startSweeper() {
+        if (sweeper != null) {
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "reservation-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        sweeper.scheduleWithFixedDelay(InventoryReservationService::sweepExpired,
+            SWEEP_INTERVAL_SECONDS, SWEEP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public static synchronized void stopSweeper() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+            sweeper = null;
+        }
+    }
+
+    // Deletes in small batches so the sweep never holds many row locks at once.
+    private static void sweepExpired() {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            PreparedStatement pstmt = conn.prepareStatement(SWEEP_SQL);
+            while (pstmt.executeUpdate() == SWEEP_BATCH) {
+                // more to delete
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+}
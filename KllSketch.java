@@ -0,0 +1,226 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * KLL quantile sketch of a stream of long values (Karnin, Lang, Liberty).
+ * Values sit in levels of compactors; an item at level h stands for 2^h values. When the sketch
+ * outgrows its budget a full level is sorted and every other item, from a random offset, is
+ * promoted to the next level. Level capacities shrink by 2/3 going down from the top, so
+ * with k = 200 the rank error stays under about 2% with a few hundred stored values.
+ * Sketches merge level by level, and toBytes() writes each level sorted and delta-encoded.
+ * Not thread-safe.
+ */
+public class KllSketch {
+
+    public static final int DEFAULT_K = 200;
+    private static final double DECAY = 2.0 / 3.0;
+
+    private final int k;
+    private long[][] levels = new long[0][];
+    private int[] sizes = new int[0];
+    private int size;    // values stored
+    private long count;  // values seen
+
+    public KllSketch() {
+        this(DEFAULT_K);
+    }
+
+    public KllSketch(int k) {
+        this.k = k;
+        grow();
+    }
+
+    public void add(long value) {
+        append(0, value);
+        size++;
+        count++;
+        if (size >= maxSize()) {
+            compress();
+        }
+    }
+
+    public void merge(KllSketch other) {
+        while (levels.length < other.levels.length) {
+            grow();
+        }
+        for (int h = 0; h < other.levels.length; h++) {
+            for (int i = 0; i < other.sizes[h]; i++) {
+                append(h, other.levels[h][i]);
+            }
+        }
+        size += other.size;
+        count += other.count;
+        while (size >= maxSize()) {
+            compress();
+        }
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /** The value at quantile q (0.5 for the median), or -1 if the sketch is empty. */
+    public long quantile(double q) {
+        long[] values = new long[size];
+        long[] weights = new long[size];
+        int n = 0;
+        for (int h = 0; h < levels.length; h++) {
+            for (int i = 0; i < sizes[h]; i++) {
+                values[n] = levels[h][i];
+                weights[n++] = 1L << h;
+            }
+        }
+        if (n == 0) {
+            return -1;
+        }
+
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(values[a], values[b]));
+        long total = 0;
+        for (long w : weights) {
+            total += w;
+        }
+        double target = q * total;
+        long cumulative = 0;
+        for (int i : order) {
+            cumulative += weights[i];
+            if (cumulative >= target) {
+                return values[i];
+            }
+        }
+        return values[order[n - 1]];
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeShort(k);
+            writeVarLong(out, count);
+            out.writeByte(levels.length);
+            for (int h = 0; h < levels.length; h++) {
+                long[] level = Arrays.copyOf(levels[h], sizes[h]);
+                Arrays.sort(level);
+                writeVarLong(out, level.length);
+                for (int i = 0; i < level.length; i++) {
+                    // The first value can be negative (zigzag-encoded); the deltas after it cannot.
+                    long v = level[i];
+                    writeVarLong(out, i == 0 ? (v << 1) ^ (v >> 63) : v - level[i - 1]);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);  // ByteArrayOutputStream does not throw
+        }
+        return bytes.toByteArray();
+    }
+
+    public static KllSketch fromBytes(byte[] data) {
+        if (data == null || data.length == 0) {
+            return new KllSketch();
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            KllSketch sketch = new KllSketch(in.readShort());
+            sketch.count = readVarLong(in);
+            int levelCount = in.readUnsignedByte();
+            while (sketch.levels.length < levelCount) {
+                sketch.grow();
+            }
+            for (int h = 0; h < levelCount; h++) {
+                int n = (int) readVarLong(in);
+                long previous = 0;
+                for (int i = 0; i < n; i++) {
+                    long raw = readVarLong(in);
+                    long v = i == 0 ? (raw >>> 1) ^ -(raw & 1) : previous + raw;
+                    sketch.append(h, v);
+                    previous = v;
+                }
+                sketch.size += n;
+            }
+            return sketch;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Corrupt KLL sketch", e);
+        }
+    }
+
+    // Capacity of a level: k at the top, shrinking by DECAY per level below it, at least 2.
+    private int capacity(int h) {
+        int depth = levels.length - h - 1;
+        return Math.max(2, (int) Math.ceil(k * Math.pow(DECAY, depth)));
+    }
+
+    private int maxSize() {
+        int max = 0;
+        for (int h = 0; h < levels.length; h++) {
+            max += capacity(h);
+        }
+        return max;
+    }
+
+    // Compacts the lowest full levels until the sketch is back under budget.
+    private void compress() {
+        for (int h = 0; h < levels.length; h++) {
+            if (sizes[h] >= capacity(h)) {
+                if (h + 1 == levels.length) {
+                    grow();
+                }
+                compact(h);
+                if (size < maxSize()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // Promotes every other sorted item of level h; with an odd count the smallest item stays.
+    private void compact(int h) {
+        long[] level = levels[h];
+        int n = sizes[h];
+        Arrays.sort(level, 0, n);
+        int keep = n % 2;
+        int offset = ThreadLocalRandom.current().nextInt(2);
+        for (int i = keep + offset; i < n; i += 2) {
+            append(h + 1, level[i]);
+        }
+        sizes[h] = keep;
+        size -= (n - keep) / 2;
+    }
+
+    private void append(int h, long value) {
+        if (sizes[h] == levels[h].length) {
+            levels[h] = Arrays.copyOf(levels[h], Math.max(8, levels[h].length * 2));
+        }
+        levels[h][sizes[h]++] = value;
+    }
+
+    private void grow() {
+        levels = Arrays.copyOf(levels, levels.length + 1);
+        levels[levels.length - 1] = new long[8];
+        sizes = Arrays.copyOf(sizes, sizes.length + 1);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+}
@@ -100,15 +100,24 @@ public class LoginFrame extends JFrame {
             return;
         }
         
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "SELECT user_id, name, email, password, role, is_active FROM Users WHERE email = ?";
-            PreparedStatement pstmt = conn.prepareStatement(sql);
-            pstmt.setString(1, email);
-            ResultSet rs = pstmt.executeQuery();
-            
-            if (rs.next()) {
-                String dbPassword = rs.getString("password");
-                boolean isActive = rs.getBoolean("is_active");
+        btnLogin.setEnabled(false);
+        DataAccessExecutor.submit(() -> {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                String sql = "SELECT user_id, name, email, password, role, is_active FROM Users WHERE email = ?";
+                PreparedStatement pstmt = conn.prepareStatement(sql);
+                pstmt.setString(1, email);
+                ResultSet rs = pstmt.executeQuery();
+                if (!rs.next()) {
+                    return null;
+                }
+                return new Object[]{rs.getInt("user_id"), rs.getString("name"), rs.getString("password"),
+                                    rs.getString("role"), rs.getBoolean("is_active")};
+            }
+        }, row -> {
+            btnLogin.setEnabled(true);
+            if (row != null) {
+                String dbPassword = (String) row[2];
+                boolean isActive = (Boolean) row[4];
                 
                 if (!isActive) {
                     JOptionPane.showMessageDialog(this, 
@@ -127,9 +136,9 @@ public class LoginFrame extends JFrame {
                 }
                 
                 if (passwordValid) {
-                    int userId = rs.getInt("user_id");
-                    String name = rs.getString("name");
-                    String role = rs.getString("role");
+                    int userId = (Integer) row[0];
+                    String name = (String) row[1];
+                    String role = (String) row[3];
                     
                     User currentUser = new User(userId, name, email, role);
                     
@@ -159,13 +168,14 @@ public class LoginFrame extends JFrame {
                     "Authentication Error", 
                     JOptionPane.ERROR_MESSAGE);
             }
-        } catch (SQLException ex) {
+        }, ex -> {
+            btnLogin.setEnabled(true);
             ex.printStackTrace();
             JOptionPane.showMessageDialog(this, 
                 "Database error: " + ex.getMessage(), 
                 "Error", 
                 JOptionPane.ERROR_MESSAGE);
-        }
+        });
     }
     
     public static void main(String[] args) {
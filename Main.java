@@ -2,6 +2,17 @@ import javax.swing.*;
 
 public class Main {
     public static void main(String[] args) {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            OutboxDispatcher.stop();
+            PopularityTracker.stop();
+            OrderSubmissionQueue.shutdown();
+            InventoryReservationService.stopSweeper();
+            DataAccessExecutor.shutdown();
+            DatabaseConnection.shutdown();
+        }));
+        InventoryReservationService.startSweeper();
+        OutboxDispatcher.start();
+
         SwingUtilities.invokeLater(new Runnable() {
             @Override
             public void run() {
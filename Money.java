@@ -0,0 +1,125 @@
+import java.awt.Component;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.*;
+import javax.swing.JTable;
+import javax.swing.SwingConstants;
+import javax.swing.table.DefaultTableCellRenderer;
+
+/**
+ * Money amounts as long cents.
+ * Amounts are converted to cents once when read from the database and back only when written,
+ * so cart lines, discounts and totals are added and multiplied exactly without BigDecimal or
+ * double arithmetic in between. Tables hold Long cents and render them with Renderer.
+ */
+public final class Money {
+
+    private static final int CACHE_SIZE = 1024;
+
+    // Direct-mapped cache of formatted amounts; a table repaint formats the same few values again
+    // and again. Entries are immutable, so a racy read sees either a whole entry or none.
+    private static final Formatted[] cache = new Formatted[CACHE_SIZE];
+
+    private static final class Formatted {
+        final long cents;
+        final String text;
+
+        Formatted(long cents, String text) {
+            this.cents = cents;
+            this.text = text;
+        }
+    }
+
+    /** Renders Long cents as "$12.50", right-aligned. */
+    public static class Renderer extends DefaultTableCellRenderer {
+        public Renderer() {
+            setHorizontalAlignment(SwingConstants.RIGHT);
+        }
+
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                                                       boolean hasFocus, int row, int column) {
+            Object text = value instanceof Long ? format((Long) value) : value;
+            return super.getTableCellRendererComponent(table, text, isSelected, hasFocus, row, column);
+        }
+    }
+
+    private Money() {
+    }
+
+    /** Reads a DECIMAL column as cents, rounding half up; NULL reads as 0. */
+    public static long get(ResultSet rs, String column) throws SQLException {
+        BigDecimal amount = rs.getBigDecimal(column);
+        return amount == null ? 0 : amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static void set(PreparedStatement pstmt, int index, long cents) throws SQLException {
+        pstmt.setBigDecimal(index, decimal(cents));
+    }
+
+    /** Cents as an exact DECIMAL value, for parameter lists bound later with setObject. */
+    public static BigDecimal decimal(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /** Parses user input such as "12", "12.5" or "$12.50" into cents. */
+    public static long parse(String text) {
+        String s = text.trim();
+        if (s.startsWith("$")) {
+            s = s.substring(1);
+        }
+        try {
+            return new BigDecimal(s).setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Too many decimal places: " + text);
+        }
+    }
+
+    public static long times(long cents, int quantity) {
+        return Math.multiplyExact(cents, quantity);
+    }
+
+    /** percent % of an amount, rounded half up like MySQL's ROUND on DECIMAL. */
+    public static long percentOf(long cents, int percent) {
+        long scaled = Math.multiplyExact(Math.abs(cents), percent);
+        long result = (scaled + 50) / 100;
+        return cents < 0 ? -result : result;
+    }
+
+    /** "$12.50", or "-$12.50" for negative amounts. */
+    public static String format(long cents) {
+        int slot = (int) Math.floorMod(cents, (long) CACHE_SIZE);
+        Formatted cached = cache[slot];
+        if (cached != null && cached.cents == cents) {
+            return cached.text;
+        }
+        String text = build(cents, true);
+        cache[slot] = new Formatted(cents, text);
+        return text;
+    }
+
+    /** "12.50", without the currency sign; for prefilling input fields. */
+    public static String plain(long cents) {
+        return build(cents, false);
+    }
+
+    private static String build(long cents, boolean sign) {
+        if (cents == Long.MIN_VALUE) {
+            return (sign ? "-$" : "-") + BigDecimal.valueOf(cents, 2).negate().toPlainString();
+        }
+        long abs = Math.abs(cents);
+        StringBuilder sb = new StringBuilder(24);
+        if (cents < 0) {
+            sb.append('-');
+        }
+        if (sign) {
+            sb.append('$');
+        }
+        long fraction = abs % 100;
+        sb.append(abs / 100).append('.');
+        if (fraction < 10) {
+            sb.append('0');
+        }
+        return sb.append(fraction).toString();
+    }
+}
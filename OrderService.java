@@ -0,0 +1,177 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Order lifecycle operations that must run atomically.
+ */
+public class OrderService {
+
+    private static final String SUBMIT_ORDER_SQL = """
+        UPDATE Orders SET shipping_address_id = ?, billing_address_id = ?, status = 'PENDING'
+        WHERE order_id = ? AND customer_id = ? AND status = 'ONGOING'
+        """;
+
+    // Ordered by product_id so concurrent checkouts lock product rows in the same order.
+    private static final String ORDER_ITEMS_SQL = """
+        SELECT oi.product_id, oi.quantity, p.name, p.stock_stripes
+        FROM Order_Items oi
+        JOIN Products p ON oi.product_id = p.product_id
+        WHERE oi.order_id = ?
+        ORDER BY oi.product_id
+        """;
+
+    private static final String LOCK_STATUS_SQL = "SELECT status, customer_id FROM Orders WHERE order_id = ? FOR UPDATE";
+
+    private static final String UPDATE_STATUS_SQL = "UPDATE Orders SET status = ? WHERE order_id = ?";
+
+    /**
+     * Submits the customer's ongoing order: moves it to PENDING, deducts stock for every line
+     * redeems couponCode if one is given (null for none) and queues the payment record in the outbox.
+     * Address selection must happen before calling this so that
+     * no row locks are held while the user is looking at a dialog.
+     * Retrying with the same idempotency key after a success returns without doing anything.
+     * Deadlocks and lock wait timeouts are retried by TransactionTemplate.
+     */
+    public static void submitOrder(String idempotencyKey, int customerId, int orderId,
+                                   int shippingAddressId, int billingAddressId, String couponCode)
+            throws SQLException, BusinessException {
+        TransactionTemplate.execute("submitOrder", conn -> {
+            applySubmit(conn, idempotencyKey, customerId, orderId, shippingAddressId, billingAddressId, couponCode);
+            return null;
+        });
+    }
+
+    /**
+     * The statements of submitOrder without the transaction handling, so that
+     * OrderSubmissionQueue can run several submissions in one transaction.
+     */
+    static void applySubmit(Connection conn, String idempotencyKey, int customerId, int orderId,
+                            int shippingAddressId, int billingAddressId, String couponCode)
+            throws SQLException, BusinessException {
+        if (!IdempotencyKeys.claim(conn, idempotencyKey, "CHECKOUT", orderId)) {
+            return;
+        }
+
+        PreparedStatement submitStmt = conn.prepareStatement(SUBMIT_ORDER_SQL);
+        submitStmt.setInt(1, shippingAddressId);
+        submitStmt.setInt(2, billingAddressId);
+        submitStmt.setInt(3, orderId);
+        submitStmt.setInt(4, customerId);
+        if (submitStmt.executeUpdate() == 0) {
+            throw new BusinessException("This order has already been submitted.");
+        }
+
+        reserveStock(conn, orderId);
+
+        // Before the payment event, which charges the (discounted) order total.
+        if (couponCode != null) {
+            CouponEngine.redeem(conn, couponCode, orderId);
+        }
+        CustomerStats.applyTransition(conn, orderId, "ONGOING", "PENDING");
+
+        Properties payment = new Properties();
+        payment.setProperty("transaction_id", "TXN-" + idempotencyKey);
+        Outbox.enqueue(conn, orderId, Outbox.PAYMENT_RECORD, payment);
+    }
+
+    /**
+     * Deducts stock for all lines of an order as one JDBC batch of conditional updates and
+     * drops the order's stock holds. A line only succeeds if the stock not held by other
+     * orders covers it. Products in hot SKU mode are taken from their stock stripes instead.
+     * Must be called inside a transaction; throws if any line lacks stock.
+     */
+    static void reserveStock(Connection conn, int orderId) throws SQLException, BusinessException {
+        PreparedStatement itemsStmt = conn.prepareStatement(ORDER_ITEMS_SQL);
+        itemsStmt.setInt(1, orderId);
+        ResultSet rs = itemsStmt.executeQuery();
+
+        List<int[]> lines = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        while (rs.next()) {
+            lines.add(new int[]{rs.getInt("product_id"), rs.getInt("quantity"), rs.getInt("stock_stripes")});
+            names.add(rs.getString("name"));
+        }
+        if (lines.isEmpty()) {
+            throw new BusinessException("Your cart is empty!");
+        }
+
+        PreparedStatement reserveStmt = conn.prepareStatement(InventoryReservationService.DEDUCT_SQL);
+        List<Integer> batched = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            int[] line = lines.get(i);
+            if (line[2] > 0) {
+                continue;
+            }
+            batched.add(i);
+            reserveStmt.setInt(1, line[1]);
+            reserveStmt.setInt(2, line[0]);
+            reserveStmt.setInt(3, line[0]);
+            reserveStmt.setInt(4, orderId);
+            reserveStmt.setInt(5, line[1]);
+            reserveStmt.addBatch();
+        }
+        int[] counts = batched.isEmpty() ? new int[0] : reserveStmt.executeBatch();
+
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                throw insufficientStock(conn, orderId, lines.get(batched.get(i))[0], names.get(batched.get(i)));
+            }
+        }
+
+        // Hot SKUs: other orders' holds are checked with a plain read, the stripes guarantee stock never goes negative.
+        for (int i = 0; i < lines.size(); i++) {
+            int[] line = lines.get(i);
+            if (line[2] == 0) {
+                continue;
+            }
+            if (InventoryReservationService.available(conn, orderId, line[0]) < line[1]
+                    || !StockStripes.decrement(conn, line[0], line[2], line[1])) {
+                throw insufficientStock(conn, orderId, line[0], names.get(i));
+            }
+        }
+
+        InventoryReservationService.releaseOrder(conn, orderId);
+    }
+
+    private static BusinessException insufficientStock(Connection conn, int orderId, int productId, String name)
+            throws SQLException {
+        int available = InventoryReservationService.available(conn, orderId, productId);
+        return new BusinessException("Sorry, insufficient stock for: " + name +
+                                     "\nAvailable: " + Math.max(available, 0));
+    }
+
+    /**
+     * Moves an order to newStatus, keeps the sales rollups and customer stats in step, gives back
+     * its coupon redemption when it is canceled and queues a notification for the customer.
+     * Must be called inside a transaction. Returns the previous status, or null if there is no such order.
+     */
+    static String changeStatus(Connection conn, int orderId, String newStatus) throws SQLException {
+        PreparedStatement lockStmt = conn.prepareStatement(LOCK_STATUS_SQL);
+        lockStmt.setInt(1, orderId);
+        ResultSet rs = lockStmt.executeQuery();
+        if (!rs.next()) {
+            return null;
+        }
+        String oldStatus = rs.getString("status");
+        int customerId = rs.getInt("customer_id");
+
+        PreparedStatement updateStmt = conn.prepareStatement(UPDATE_STATUS_SQL);
+        updateStmt.setString(1, newStatus);
+        updateStmt.setInt(2, orderId);
+        updateStmt.executeUpdate();
+
+        SalesRollup.applyTransition(conn, orderId, oldStatus, newStatus);
+        CustomerStats.applyTransition(conn, orderId, oldStatus, newStatus);
+        if (newStatus.equalsIgnoreCase("CANCELED") && !oldStatus.equalsIgnoreCase("CANCELED")) {
+            CouponEngine.release(conn, orderId);
+        }
+        if (!newStatus.equalsIgnoreCase(oldStatus)) {
+            Outbox.notifyUser(conn, orderId, customerId, Outbox.ORDER_UPDATE_TITLE,
+                              "Your order #" + orderId + " is now " + newStatus.toLowerCase(Locale.ROOT) + ".");
+        }
+        return oldStatus;
+    }
+}
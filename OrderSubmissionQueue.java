@@ -0,0 +1,232 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group commit for checkouts. Submissions wait in a bounded queue and a single worker
+ * applies them in micro-batches (up to BATCH_SIZE orders or BATCH_WINDOW_MS) inside one
+ * transaction, so a burst of checkouts costs one commit instead of one per order.
+ * Each order runs behind its own savepoint: an order that fails (e.g. out of stock) is
+ * rolled back alone and its caller gets the error, while the rest of the batch commits.
+ */
+public class OrderSubmissionQueue {
+
+    private static final int CAPACITY = Integer.getInteger("orders.queue.capacity", 1000);
+    private static final int BATCH_SIZE = Integer.getInteger("orders.batch.size", 50);
+    private static final long BATCH_WINDOW_MS = Long.getLong("orders.batch.windowMs", 5);
+
+    private static final BlockingQueue<Submission> queue = new ArrayBlockingQueue<>(CAPACITY);
+    private static Thread worker;
+    private static volatile boolean running = false;
+
+    private static class Submission {
+        final String idempotencyKey;
+        final int customerId;
+        final int orderId;
+        final int shippingAddressId;
+        final int billingAddressId;
+        final String couponCode;
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        Submission(String idempotencyKey, int customerId, int orderId, int shippingAddressId, int billingAddressId,
+                   String couponCode) {
+            this.idempotencyKey = idempotencyKey;
+            this.customerId = customerId;
+            this.orderId = orderId;
+            this.shippingAddressId = shippingAddressId;
+            this.billingAddressId = billingAddressId;
+            this.couponCode = couponCode;
+        }
+    }
+
+    /**
+     * Queues a checkout. The future completes once the batch holding it has committed,
+     * or exceptionally with the SQLException or BusinessException that failed this order.
+     * Submissions sharing an idempotency key run the checkout once.
+     */
+    public static CompletableFuture<Void> submit(String idempotencyKey, int customerId, int orderId,
+                                                 int shippingAddressId, int billingAddressId, String couponCode) {
+        ensureStarted();
+        Submission submission = new Submission(idempotencyKey, customerId, orderId, shippingAddressId, billingAddressId,
+                                               couponCode);
+        if (!queue.offer(submission)) {
+            submission.result.completeExceptionally(
+                new BusinessException("Checkout is busy right now, please try again in a moment."));
+        }
+        return submission.result;
+    }
+
+    /** Queues a checkout and blocks until it is done. Call from a background thread, never the EDT. */
+    public static void submitAndWait(String idempotencyKey, int customerId, int orderId,
+                                     int shippingAddressId, int billingAddressId, String couponCode)
+            throws SQLException, BusinessException {
+        try {
+            submit(idempotencyKey, customerId, orderId, shippingAddressId, billingAddressId, couponCode).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for checkout", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof BusinessException) {
+                throw (BusinessException) cause;
+            }
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            throw new SQLException("Checkout failed", cause);
+        }
+    }
+
+    public static synchronized void shutdown() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            worker = null;
+        }
+        Submission pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result.completeExceptionally(new SQLException("Application is shutting down"));
+        }
+    }
+
+    private static synchronized void ensureStarted() {
+        if (running) {
+            return;
+        }
+        running = true;
+        worker = new Thread(OrderSubmissionQueue::runWorker, "order-submission");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private static void runWorker() {
+        List<Submission> batch = new ArrayList<>(BATCH_SIZE);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(BATCH_WINDOW_MS);
+                while (batch.size() < BATCH_SIZE) {
+                    long wait = deadline - System.nanoTime();
+                    Submission next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                commitBatch(batch);
+            } catch (InterruptedException e) {
+                break;
+            } catch (RuntimeException e) {
+                // Never let one bad batch kill the worker; its callers still need an answer.
+                for (Submission submission : batch) {
+                    submission.result.completeExceptionally(e);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private static void commitBatch(List<Submission> batch) {
+        List<Submission> applied = new ArrayList<>(batch.size());
+        List<Submission> retry = new ArrayList<>();
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            for (int i = 0; i < batch.size(); i++) {
+                Submission submission = batch.get(i);
+                Savepoint savepoint = conn.setSavepoint();
+                try {
+                    OrderService.applySubmit(conn, submission.idempotencyKey, submission.customerId, submission.orderId,
+                                             submission.shippingAddressId, submission.billingAddressId, submission.couponCode);
+                    conn.releaseSavepoint(savepoint);
+                    applied.add(submission);
+                } catch (BusinessException e) {
+                    conn.rollback(savepoint);
+                    submission.result.completeExceptionally(e);
+                } catch (SQLException e) {
+                    if (!rollbackTo(conn, savepoint)) {
+                        // A deadlock aborted the whole transaction: the orders applied so far
+                        // and everything from this one on are resubmitted one by one.
+                        retry.addAll(applied);
+                        retry.addAll(batch.subList(i, batch.size()));
+                        applied.clear();
+                        break;
+                    }
+                    if (TransactionTemplate.isRetryable(e)) {
+                        // A lock wait timeout rolls back only the statement, so the batch goes on;
+                        // this order is resubmitted on its own after the commit.
+                        retry.add(submission);
+                    } else {
+                        submission.result.completeExceptionally(e);
+                    }
+                }
+            }
+
+            if (!applied.isEmpty()) {
+                conn.commit();
+                DatabaseConnection.pinToPrimary();
+            } else {
+                conn.rollback();
+            }
+            for (Submission submission : applied) {
+                submission.result.complete(null);
+            }
+
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackEx) {
+                    rollbackEx.printStackTrace();
+                }
+            }
+            for (Submission submission : applied) {
+                submission.result.completeExceptionally(e);
+            }
+            // Orders not reached before the failure have not been answered yet.
+            for (Submission submission : batch) {
+                if (!submission.result.isDone() && !retry.contains(submission)) {
+                    submission.result.completeExceptionally(e);
+                }
+            }
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        for (Submission submission : retry) {
+            try {
+                OrderService.submitOrder(submission.idempotencyKey, submission.customerId, submission.orderId,
+                                         submission.shippingAddressId, submission.billingAddressId, submission.couponCode);
+                submission.result.complete(null);
+            } catch (SQLException | BusinessException e) {
+                submission.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    // False when MySQL already rolled back the whole transaction and the savepoint with it:
+    // a deadlock, or a lock wait timeout with innodb_rollback_on_timeout=ON.
+    private static boolean rollbackTo(Connection conn, Savepoint savepoint) {
+        try {
+            conn.rollback(savepoint);
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+import java.sql.*;
+import java.util.Properties;
+
+/**
+ * Transactional outbox. Side effects of an order change (payment record, shipment,
+ * notification) are written here in the same transaction as the change itself and carried
+ * out afterwards by OutboxDispatcher, which keeps the order transaction to a few statements.
+ */
+public class Outbox {
+
+    public static final String PAYMENT_RECORD = "PAYMENT_RECORD";
+    public static final String SHIPMENT_CREATE = "SHIPMENT_CREATE";
+    public static final String NOTIFY = "NOTIFY";
+
+    public static final String ORDER_UPDATE_TITLE = "Order update";
+
+    private static final String INSERT_SQL =
+        "INSERT INTO Outbox_Events (order_id, event_type, payload) VALUES (?, ?, ?)";
+
+    /** Records an event for the order. Call inside the transaction that makes the change. */
+    public static void enqueue(Connection conn, int orderId, String eventType, Properties payload) throws SQLException {
+        PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL);
+        pstmt.setInt(1, orderId);
+        pstmt.setString(2, eventType);
+        pstmt.setString(3, PropertiesText.toText(payload));
+        pstmt.executeUpdate();
+    }
+
+    /** Queues a notification for a user about the order. */
+    public static void notifyUser(Connection conn, int orderId, int userId, String title, String message)
+            throws SQLException {
+        Properties payload = new Properties();
+        payload.setProperty("user_id", String.valueOf(userId));
+        payload.setProperty("title", title);
+        payload.setProperty("message", message);
+        enqueue(conn, orderId, NOTIFY, payload);
+    }
+}
@@ -0,0 +1,278 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carries out Outbox_Events after their order transaction has committed.
+ * A poller claims the oldest unfinished event of each order and hands it to one of several
+ * worker lanes chosen by order_id, so events of one order run one at a time and in order
+ * while different orders proceed in parallel. Each event is applied and marked DONE in one
+ * transaction; failures are retried with a growing delay until MAX_ATTEMPTS.
+ */
+public class OutboxDispatcher {
+
+    private static final int WORKERS = Integer.getInteger("outbox.workers", 4);
+    private static final long POLL_INTERVAL_MS = Long.getLong("outbox.pollMs", 500);
+    private static final int CLAIM_BATCH = 100;
+    private static final int MAX_ATTEMPTS = 10;
+    private static final int LEASE_SECONDS = 60;
+    private static final long PURGE_INTERVAL_MS = 60 * 60 * 1000;
+
+    // Only an order's oldest unfinished event is eligible; SKIP LOCKED lets several clients poll at once.
+    private static final String CLAIM_SQL = """
+        SELECT e.event_id, e.order_id, e.event_type, e.payload, e.attempts
+        FROM Outbox_Events e
+        WHERE e.status = 'PENDING' AND e.available_at <= NOW()
+          AND NOT EXISTS (
+              SELECT 1 FROM Outbox_Events prev
+              WHERE prev.order_id = e.order_id AND prev.event_id < e.event_id
+                AND prev.status IN ('PENDING', 'PROCESSING'))
+        ORDER BY e.event_id
+        LIMIT ?
+        FOR UPDATE SKIP LOCKED
+        """;
+
+    private static final String LEASE_SQL =
+        "UPDATE Outbox_Events SET status = 'PROCESSING', locked_until = NOW() + INTERVAL ? SECOND WHERE event_id = ?";
+
+    // Events whose dispatcher died mid-way go back to PENDING once the lease runs out.
+    private static final String RECLAIM_SQL =
+        "UPDATE Outbox_Events SET status = 'PENDING' WHERE status = 'PROCESSING' AND locked_until < NOW()";
+
+    private static final String DONE_SQL =
+        "UPDATE Outbox_Events SET status = 'DONE', processed_at = NOW() WHERE event_id = ? AND status = 'PROCESSING'";
+
+    // MySQL applies SET assignments left to right, so the IF sees the incremented attempts.
+    private static final String RETRY_SQL = """
+        UPDATE Outbox_Events
+        SET attempts = attempts + 1,
+            status = IF(attempts >= ?, 'FAILED', 'PENDING'),
+            available_at = NOW() + INTERVAL ? SECOND,
+            last_error = ?
+        WHERE event_id = ?
+        """;
+
+    private static final String PURGE_SQL =
+        "DELETE FROM Outbox_Events WHERE status = 'DONE' AND processed_at < NOW() - INTERVAL 7 DAY LIMIT 1000";
+
+    private static final String PAYMENT_EXISTS_SQL = "SELECT 1 FROM Payments WHERE order_id = ?";
+
+    private static final String PAYMENT_SQL = """
+        INSERT INTO Payments (order_id, transaction_id, amount, method, status, paid_at)
+        SELECT order_id, ?, total_amount, 'CREDIT_CARD', 'COMPLETED', NOW()
+        FROM Orders WHERE order_id = ?
+        """;
+
+    private static final String SHIPMENT_SQL = """
+        INSERT INTO Shipments (order_id, tracking_number, shipped_date, status)
+        VALUES (?, ?, CURDATE(), 'in_transit')
+        ON DUPLICATE KEY UPDATE shipped_date = CURDATE(), status = 'in_transit'
+        """;
+
+    private static final String NOTIFICATION_SQL = "INSERT INTO Notifications (user_id, title, message) VALUES (?, ?, ?)";
+
+    private static ScheduledExecutorService poller;
+    private static ExecutorService[] lanes;
+    private static long lastPurge = 0;
+
+    private static class Event {
+        long eventId;
+        int orderId;
+        String type;
+        String payload;
+        int attempts;
+    }
+
+    public static synchronized void start() {
+        if (poller != null) {
+            return;
+        }
+        lanes = new ExecutorService[WORKERS];
+        for (int i = 0; i < WORKERS; i++) {
+            String name = "outbox-worker-" + i;
+            lanes[i] = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, name);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "outbox-poller");
+            t.setDaemon(true);
+            return t;
+        });
+        poller.scheduleWithFixedDelay(OutboxDispatcher::pollOnce, POLL_INTERVAL_MS, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public static synchronized void stop() {
+        if (poller == null) {
+            return;
+        }
+        poller.shutdownNow();
+        for (ExecutorService lane : lanes) {
+            lane.shutdownNow();
+        }
+        poller = null;
+        lanes = null;
+    }
+
+    private static void pollOnce() {
+        List<Event> claimed = new ArrayList<>();
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.prepareStatement(RECLAIM_SQL).executeUpdate();
+
+            conn.setAutoCommit(false);
+            PreparedStatement claimStmt = conn.prepareStatement(CLAIM_SQL);
+            claimStmt.setInt(1, CLAIM_BATCH);
+            ResultSet rs = claimStmt.executeQuery();
+            while (rs.next()) {
+                Event event = new Event();
+                event.eventId = rs.getLong("event_id");
+                event.orderId = rs.getInt("order_id");
+                event.type = rs.getString("event_type");
+                event.payload = rs.getString("payload");
+                event.attempts = rs.getInt("attempts");
+                claimed.add(event);
+            }
+
+            PreparedStatement leaseStmt = conn.prepareStatement(LEASE_SQL);
+            for (Event event : claimed) {
+                leaseStmt.setInt(1, LEASE_SECONDS);
+                leaseStmt.setLong(2, event.eventId);
+                leaseStmt.addBatch();
+            }
+            if (!claimed.isEmpty()) {
+                leaseStmt.executeBatch();
+            }
+            conn.commit();
+
+            if (System.currentTimeMillis() - lastPurge > PURGE_INTERVAL_MS) {
+                conn.setAutoCommit(true);
+                conn.prepareStatement(PURGE_SQL).executeUpdate();
+                lastPurge = System.currentTimeMillis();
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackEx) {
+                    rollbackEx.printStackTrace();
+                }
+            }
+            claimed.clear();
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        ExecutorService[] current = lanes;
+        if (current == null) {
+            return;
+        }
+        for (Event event : claimed) {
+            current[Math.floorMod(event.orderId, current.length)].execute(() -> process(event));
+        }
+    }
+
+    private static void process(Event event) {
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            apply(conn, event);
+
+            PreparedStatement doneStmt = conn.prepareStatement(DONE_SQL);
+            doneStmt.setLong(1, event.eventId);
+            if (doneStmt.executeUpdate() == 0) {
+                // Lease expired and someone else took the event; let them finish it.
+                conn.rollback();
+                return;
+            }
+            conn.commit();
+
+        } catch (SQLException | RuntimeException e) {
+            e.printStackTrace();
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                    scheduleRetry(conn, event, e);
+                    conn.commit();
+                } catch (SQLException retryEx) {
+                    retryEx.printStackTrace();
+                }
+            }
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private static void apply(Connection conn, Event event) throws SQLException {
+        Properties payload = PropertiesText.fromText(event.payload);
+        switch (event.type) {
+            case Outbox.PAYMENT_RECORD: {
+                PreparedStatement existsStmt = conn.prepareStatement(PAYMENT_EXISTS_SQL);
+                existsStmt.setInt(1, event.orderId);
+                if (existsStmt.executeQuery().next()) {
+                    return;
+                }
+                PreparedStatement pstmt = conn.prepareStatement(PAYMENT_SQL);
+                pstmt.setString(1, payload.getProperty("transaction_id"));
+                pstmt.setInt(2, event.orderId);
+                pstmt.executeUpdate();
+                return;
+            }
+            case Outbox.SHIPMENT_CREATE: {
+                PreparedStatement pstmt = conn.prepareStatement(SHIPMENT_SQL);
+                pstmt.setInt(1, event.orderId);
+                pstmt.setString(2, payload.getProperty("tracking_number"));
+                pstmt.executeUpdate();
+                return;
+            }
+            case Outbox.NOTIFY: {
+                PreparedStatement pstmt = conn.prepareStatement(NOTIFICATION_SQL);
+                pstmt.setInt(1, Integer.parseInt(payload.getProperty("user_id")));
+                // Events queued before notifications had a title fall back to the generic one.
+                pstmt.setString(2, payload.getProperty("title", Outbox.ORDER_UPDATE_TITLE));
+                pstmt.setString(3, payload.getProperty("message"));
+                pstmt.executeUpdate();
+                return;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown outbox event type: " + event.type);
+        }
+    }
+
+    // Backs off 2, 4, 8 ... seconds, capped at ten minutes.
+    private static void scheduleRetry(Connection conn, Event event, Exception error) throws SQLException {
+        int delay = (int) Math.min(600, 1L << Math.min(event.attempts + 1, 10));
+        String message = String.valueOf(error.getMessage());
+        PreparedStatement pstmt = conn.prepareStatement(RETRY_SQL);
+        pstmt.setInt(1, MAX_ATTEMPTS);
+        pstmt.setInt(2, delay);
+        pstmt.setString(3, message.length() > 500 ? message.substring(0, 500) : message);
+        pstmt.setLong(4, event.eventId);
+        pstmt.executeUpdate();
+    }
+}
@@ -0,0 +1,360 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Read-only table model that loads rows a page at a time as the table asks for them.
+ * Pages are fetched with keyset (seek) pagination on the sort key and only a bounded
+ * window of pages is kept in memory; the next page is prefetched as the user scrolls.
+ */
+public class PagedTableModel extends AbstractTableModel {
+
+    /** Supplies rows in a stable sort order. */
+    public interface PageSource {
+        int count() throws SQLException;
+
+        /**
+         * Returns up to limit rows that sort after afterKey (from the start when null),
+         * skipping the first offset of them. offset is only non-zero when the user jumps
+         * past pages whose keys are not known yet.
+         */
+        List<Object[]> fetch(Object[] afterKey, int offset, int limit) throws SQLException;
+
+        /** Sort key of a row returned by fetch. */
+        Object[] keyOf(Object[] row);
+    }
+
+    public interface RowMapper {
+        Object[] map(ResultSet rs) throws SQLException;
+    }
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int DEFAULT_MAX_PAGES = 10;
+
+    private final String[] columns;
+    private final int pageSize;
+    private final int maxPages;
+
+    private PageSource source;
+    private int rowCount = 0;
+    private int generation = 0;
+    private final LinkedHashMap<Integer, List<Object[]>> pages;
+    // pageStartKeys.get(p) is the key of the last row before page p; page 0 starts at null.
+    private final Map<Integer, Object[]> pageStartKeys = new HashMap<>();
+    private final Set<Integer> loading = new HashSet<>();
+    private Consumer<Exception> errorHandler = Throwable::printStackTrace;
+    private final String countKey = "paged-table-count-" + System.identityHashCode(this);
+
+    public PagedTableModel(String[] columns) {
+        this(columns, DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES);
+    }
+
+    public PagedTableModel(String[] columns, int pageSize, int maxPages) {
+        this.columns = columns;
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+        this.pages = new LinkedHashMap<Integer, List<Object[]>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<Object[]>> eldest) {
+                return size() > PagedTableModel.this.maxPages;
+            }
+        };
+    }
+
+    public void setErrorHandler(Consumer<Exception> errorHandler) {
+        this.errorHandler = errorHandler;
+    }
+
+    /** Switches to a new source (e.g. after the filters changed) and reloads. Call on the EDT. */
+    public void setSource(PageSource source) {
+        this.source = source;
+        refresh();
+    }
+
+    /** Drops everything cached and reloads the row count. Call on the EDT. */
+    public void refresh() {
+        final int gen = ++generation;
+        pages.clear();
+        pageStartKeys.clear();
+        loading.clear();
+        rowCount = 0;
+        fireTableDataChanged();
+
+        if (source == null) {
+            DataAccessExecutor.cancel(countKey);
+            return;
+        }
+        final PageSource src = source;
+        DataAccessExecutor.submit(countKey, src::count, count -> {
+            if (gen != generation) return;
+            rowCount = count;
+            fireTableDataChanged();
+        }, e -> {
+            if (gen == generation) errorHandler.accept(e);
+        });
+    }
+
+    public void clear() {
+        source = null;
+        refresh();
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int col) {
+        return columns[col];
+    }
+
+    /** False while the row's page is still loading; getValueAt returns null for it until then. */
+    public boolean isRowLoaded(int row) {
+        List<Object[]> rows = pages.get(row / pageSize);
+        return rows != null && row % pageSize < rows.size();
+    }
+
+    /** Returns null while the row's page is still loading. */
+    @Override
+    public Object getValueAt(int row, int col) {
+        int page = row / pageSize;
+        List<Object[]> rows = pages.get(page);
+        if (rows == null) {
+            requestPage(page);
+            return null;
+        }
+
+        if (row % pageSize >= pageSize * 3 / 4 && (page + 1) * pageSize < rowCount) {
+            requestPage(page + 1);
+        }
+
+        int index = row % pageSize;
+        return index < rows.size() ? rows.get(index)[col] : null;
+    }
+
+    private void requestPage(int page) {
+        if (source == null || pages.containsKey(page) || !loading.add(page)) {
+            return;
+        }
+
+        // Seek from the closest page whose start key is known; plain seek when it is this page.
+        int from = page;
+        while (from > 0 && !pageStartKeys.containsKey(from)) {
+            from--;
+        }
+        final Object[] afterKey = pageStartKeys.get(from);
+        final int offset = (page - from) * pageSize;
+        final int gen = generation;
+        final PageSource src = source;
+
+        DataAccessExecutor.submit(() -> src.fetch(afterKey, offset, pageSize), rows -> {
+            if (gen != generation) return;
+            loading.remove(page);
+            pages.put(page, rows);
+            if (!rows.isEmpty()) {
+                pageStartKeys.put(page + 1, src.keyOf(rows.get(rows.size() - 1)));
+            }
+            int first = page * pageSize;
+            int last = Math.min(first + pageSize, rowCount) - 1;
+            if (last >= first) {
+                fireTableRowsUpdated(first, last);
+            }
+        }, e -> {
+            if (gen != generation) return;
+            loading.remove(page);
+            errorHandler.accept(e);
+        });
+    }
+
+    /**
+     * PageSource over a SQL query. The key columns must make the order total (end with a unique id);
+     * keyIndexes are the positions of those key values in the mapped row.
+     * Queries go through DatabaseConnection.getReadConnection(), so they may be served by a replica.
+     */
+    public static class SqlPageSource implements PageSource {
+        private String columns;
+        private String from;
+        private String where = "1 = 1";
+        private String groupBy = null;
+        private List<Object> params = new ArrayList<>();
+        private String[] keyColumns;
+        private int[] keyIndexes;
+        private boolean descending = false;
+        private RowMapper mapper;
+
+        public SqlPageSource select(String columns) { this.columns = columns; return this; }
+        public SqlPageSource from(String from) { this.from = from; return this; }
+        public SqlPageSource where(String where, List<Object> params) { this.where = where; this.params = params; return this; }
+        public SqlPageSource groupBy(String groupBy) { this.groupBy = groupBy; return this; }
+        public SqlPageSource orderBy(String[] keyColumns, int[] keyIndexes, boolean descending) {
+            this.keyColumns = keyColumns;
+            this.keyIndexes = keyIndexes;
+            this.descending = descending;
+            return this;
+        }
+        public SqlPageSource map(RowMapper mapper) { this.mapper = mapper; return this; }
+
+        @Override
+        public int count() throws SQLException {
+            String sql = groupBy == null
+                ? "SELECT COUNT(*) FROM " + from + " WHERE " + where
+                : "SELECT COUNT(*) FROM (SELECT 1 FROM " + from + " WHERE " + where + " GROUP BY " + groupBy + ") t";
+            try (Connection conn = DatabaseConnection.getReadConnection()) {
+                PreparedStatement pstmt = conn.prepareStatement(sql);
+                bind(pstmt, params, 1);
+                ResultSet rs = pstmt.executeQuery();
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+
+        @Override
+        public List<Object[]> fetch(Object[] afterKey, int offset, int limit) throws SQLException {
+            String op = descending ? " < " : " > ";
+            String direction = descending ? " DESC" : "";
+
+            StringBuilder sql = new StringBuilder("SELECT ").append(columns)
+                .append(" FROM ").append(from)
+                .append(" WHERE ").append(where);
+            List<Object> keyParams = new ArrayList<>();
+            if (afterKey != null) {
+                // (k1 > ?) OR (k1 = ? AND k2 > ?) ... expanded so MySQL can use the index
+                sql.append(" AND (");
+                for (int i = 0; i < keyColumns.length; i++) {
+                    if (i > 0) sql.append(" OR ");
+                    sql.append("(");
+                    for (int j = 0; j < i; j++) {
+                        sql.append(keyColumns[j]).append(" = ? AND ");
+                        keyParams.add(afterKey[j]);
+                    }
+                    sql.append(keyColumns[i]).append(op).append("?)");
+                    keyParams.add(afterKey[i]);
+                }
+                sql.append(")");
+            }
+            if (groupBy != null) {
+                sql.append(" GROUP BY ").append(groupBy);
+            }
+            sql.append(" ORDER BY ");
+            for (int i = 0; i < keyColumns.length; i++) {
+                if (i > 0) sql.append(", ");
+                sql.append(keyColumns[i]).append(direction);
+            }
+            sql.append(" LIMIT ? OFFSET ?");
+
+            try (Connection conn = DatabaseConnection.getReadConnection()) {
+                PreparedStatement pstmt = conn.prepareStatement(sql.toString());
+                int index = bind(pstmt, params, 1);
+                index = bind(pstmt, keyParams, index);
+                pstmt.setInt(index++, limit);
+                pstmt.setInt(index, offset);
+                ResultSet rs = pstmt.executeQuery();
+
+                List<Object[]> rows = new ArrayList<>(limit);
+                while (rs.next()) {
+                    rows.add(mapper.map(rs));
+                }
+                return rows;
+            }
+        }
+
+        @Override
+        public Object[] keyOf(Object[] row) {
+            Object[] key = new Object[keyIndexes.length];
+            for (int i = 0; i < keyIndexes.length; i++) {
+                key[i] = row[keyIndexes[i]];
+            }
+            return key;
+        }
+
+        private static int bind(PreparedStatement pstmt, List<Object> values, int index) throws SQLException {
+            for (Object value : values) {
+                pstmt.setObject(index++, value);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Pages through ids that are already filtered and sorted in memory, e.g. search hits.
+     * The row count is the length of the list and each page queries only its own ids by
+     * primary key, so a page never binds more than the page size, however many ids match.
+     * Rows deleted since the list was built are left out. Each row carries its position in
+     * the list as an extra last element, which is its key.
+     */
+    public static class IdListPageSource implements PageSource {
+        private final int[] ids;
+        private final String columns;
+        private final String from;
+        private final String idColumn;
+        private final int idIndex;
+        private final RowMapper mapper;
+
+        public IdListPageSource(int[] ids, String columns, String from, String idColumn, int idIndex, RowMapper mapper) {
+            this.ids = ids;
+            this.columns = columns;
+            this.from = from;
+            this.idColumn = idColumn;
+            this.idIndex = idIndex;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public int count() {
+            return ids.length;
+        }
+
+        @Override
+        public List<Object[]> fetch(Object[] afterKey, int offset, int limit) throws SQLException {
+            int start = (afterKey == null ? 0 : (Integer) afterKey[0] + 1) + offset;
+            int end = Math.min(ids.length, start + limit);
+            if (start >= end) {
+                return new ArrayList<>();
+            }
+
+            String sql = "SELECT " + columns + " FROM " + from +
+                         " WHERE " + idColumn + " IN (" + "?,".repeat(end - start - 1) + "?)";
+            Map<Integer, Object[]> byId = new HashMap<>();
+            try (Connection conn = DatabaseConnection.getReadConnection()) {
+                PreparedStatement pstmt = conn.prepareStatement(sql);
+                for (int i = start; i < end; i++) {
+                    pstmt.setInt(i - start + 1, ids[i]);
+                }
+                ResultSet rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    Object[] row = mapper.map(rs);
+                    byId.put((Integer) row[idIndex], row);
+                }
+            }
+
+            List<Object[]> rows = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++) {
+                Object[] row = byId.get(ids[i]);
+                if (row != null) {
+                    row = Arrays.copyOf(row, row.length + 1);
+                    row[row.length - 1] = i;
+                    rows.add(row);
+                }
+            }
+            return rows;
+        }
+
+        @Override
+        public Object[] keyOf(Object[] row) {
+            return new Object[]{row[row.length - 1]};
+        }
+    }
+}
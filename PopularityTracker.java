@@ -0,0 +1,373 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Approximate top products, categories and sellers over the last hour, day and 30 days.
+ * SalesRollup appends a Sales_Events row whenever an order becomes or stops being a sale; a
+ * background poller tails that log and feeds each sale into rings of time buckets, one ring
+ * per window and dimension, each bucket a SpaceSaving summary of CAPACITY counters. Memory is
+ * therefore fixed whatever the order volume, and buckets that slide out of a window are
+ * reused. Counts are approximate (see SpaceSaving); exactTop() computes the same figures from
+ * the daily rollups (30 days) or the event log (hour, day) when an exact answer is wanted.
+ */
+public class PopularityTracker {
+
+    private static final int CAPACITY = Integer.getInteger("popularity.capacity", 64);
+    private static final long POLL_INTERVAL_MS = Long.getLong("popularity.pollMs", 5000L);
+    private static final int EVENT_BATCH = 500;
+    private static final long PURGE_INTERVAL_MS = 60 * 60 * 1000;
+
+    public enum Dimension { PRODUCT, CATEGORY, SELLER }
+
+    /** A sliding window made of bucketCount buckets of bucketMs each. */
+    public enum Window {
+        HOUR(12, 5 * 60 * 1000L),
+        DAY(24, 60 * 60 * 1000L),
+        MONTH(30, 24 * 60 * 60 * 1000L);
+
+        final int bucketCount;
+        final long bucketMs;
+
+        Window(int bucketCount, long bucketMs) {
+            this.bucketCount = bucketCount;
+            this.bucketMs = bucketMs;
+        }
+    }
+
+    /** One line of a top list. count is orders (products), units (categories) or cents (sellers). */
+    public static class Entry {
+        public final int id;
+        public final String name;
+        public final long count;
+        /** How far the true figure may be from count; 0 for exact results. */
+        public final long error;
+
+        Entry(int id, String name, long count, long error) {
+            this.id = id;
+            this.name = name;
+            this.count = count;
+            this.error = error;
+        }
+    }
+
+    // Sales are only read once they are a few seconds old, so a transaction that took an event id
+    // earlier but committed later is not skipped.
+    private static final String HORIZON_SQL = """
+        SELECT event_id FROM Sales_Events
+        WHERE occurred_at < NOW() - INTERVAL 5 SECOND
+        ORDER BY occurred_at DESC, event_id DESC
+        LIMIT 1
+        """;
+
+    private static final String FIRST_IN_MONTH_SQL = """
+        SELECT event_id FROM Sales_Events
+        WHERE occurred_at >= NOW() - INTERVAL 30 DAY
+        ORDER BY occurred_at, event_id
+        LIMIT 1
+        """;
+
+    private static final String EVENTS_SQL = """
+        SELECT e.event_id, e.sign, UNIX_TIMESTAMP(e.occurred_at) AS occurred_at,
+               COALESCE(o.seller_id, 0) AS seller_id, o.total_amount,
+               oi.product_id, p.category_id, oi.quantity
+        FROM Sales_Events e
+        JOIN Orders o ON e.order_id = o.order_id
+        JOIN Order_Items oi ON oi.order_id = o.order_id
+        JOIN Products p ON oi.product_id = p.product_id
+        WHERE e.event_id > ? AND e.event_id <= ?
+        ORDER BY e.event_id
+        """;
+
+    private static final String PURGE_SQL =
+        "DELETE FROM Sales_Events WHERE occurred_at < NOW() - INTERVAL 31 DAY LIMIT 1000";
+
+    private static final String EXACT_MONTH_PRODUCT_SQL = """
+        SELECT s.product_id AS id, SUM(s.order_count) AS total
+        FROM Sales_Daily_Product s
+        WHERE s.sale_date >= CURDATE() - INTERVAL 29 DAY
+        GROUP BY s.product_id HAVING total > 0 ORDER BY total DESC LIMIT ?
+        """;
+
+    private static final String EXACT_MONTH_CATEGORY_SQL = """
+        SELECT s.category_id AS id, SUM(s.quantity) AS total
+        FROM Sales_Daily_Category s
+        WHERE s.sale_date >= CURDATE() - INTERVAL 29 DAY
+        GROUP BY s.category_id HAVING total > 0 ORDER BY total DESC LIMIT ?
+        """;
+
+    private static final String EXACT_MONTH_SELLER_SQL = """
+        SELECT s.seller_id AS id, SUM(s.revenue) * 100 AS total
+        FROM Sales_Daily_Seller s
+        WHERE s.sale_date >= CURDATE() - INTERVAL 29 DAY
+        GROUP BY s.seller_id HAVING total > 0 ORDER BY total DESC LIMIT ?
+        """;
+
+    // Hour and day windows are finer than the daily rollups, so they are summed from the event log.
+    private static final String EXACT_EVENTS_PRODUCT_SQL = """
+        SELECT oi.product_id AS id, SUM(e.sign) AS total
+        FROM Sales_Events e JOIN Order_Items oi ON oi.order_id = e.order_id
+        WHERE e.occurred_at >= NOW() - INTERVAL ? SECOND
+        GROUP BY oi.product_id HAVING total > 0 ORDER BY total DESC LIMIT ?
+        """;
+
+    private static final String EXACT_EVENTS_CATEGORY_SQL = """
+        SELECT p.category_id AS id, SUM(e.sign * oi.quantity) AS total
+        FROM Sales_Events e
+        JOIN Order_Items oi ON oi.order_id = e.order_id
+        JOIN Products p ON oi.product_id = p.product_id
+        WHERE e.occurred_at >= NOW() - INTERVAL ? SECOND
+        GROUP BY p.category_id HAVING total > 0 ORDER BY total DESC LIMIT ?
+        """;
+
+    private static final String EXACT_EVENTS_SELLER_SQL = """
+        SELECT COALESCE(o.seller_id, 0) AS id, SUM(e.sign * o.total_amount) * 100 AS total
+        FROM Sales_Events e JOIN Orders o ON o.order_id = e.order_id
+        WHERE e.occurred_at >= NOW() - INTERVAL ? SECOND
+        GROUP BY id HAVING total > 0 ORDER BY total DESC LIMIT ?
+        """;
+
+    /** Buckets of one window and dimension; bucket i holds the bucketMs-long time slot number slots[i]. */
+    private static class Ring {
+        final Window window;
+        final SpaceSaving<Integer>[] buckets;
+        final long[] slots;
+
+        @SuppressWarnings("unchecked")
+        Ring(Window window) {
+            this.window = window;
+            this.buckets = (SpaceSaving<Integer>[]) new SpaceSaving<?>[window.bucketCount];
+            this.slots = new long[window.bucketCount];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new SpaceSaving<>(CAPACITY);
+                slots[i] = -1;
+            }
+        }
+
+        // The bucket for a time, recycled if it still holds an older slot; null if the time has left the window.
+        SpaceSaving<Integer> bucketFor(long timeMs, long nowMs) {
+            long slot = timeMs / window.bucketMs;
+            if (slot <= nowMs / window.bucketMs - window.bucketCount) {
+                return null;
+            }
+            int i = (int) Math.floorMod(slot, (long) buckets.length);
+            if (slots[i] != slot) {
+                if (slots[i] > slot) {
+                    return null;
+                }
+                buckets[i].clear();
+                slots[i] = slot;
+            }
+            return buckets[i];
+        }
+
+        // Sums the live buckets. A key missing from a full bucket may still have up to that bucket's
+        // smallest count in it, which is added to the error.
+        List<Entry> top(int n, long nowMs) {
+            long oldest = nowMs / window.bucketMs - window.bucketCount + 1;
+            Map<Integer, long[]> merged = new HashMap<>();
+            List<SpaceSaving<Integer>> live = new ArrayList<>();
+            for (int i = 0; i < buckets.length; i++) {
+                if (slots[i] < oldest) {
+                    continue;
+                }
+                live.add(buckets[i]);
+                for (SpaceSaving.Counter<Integer> c : buckets[i].counters()) {
+                    long[] sum = merged.computeIfAbsent(c.key, k -> new long[2]);
+                    sum[0] += c.count;
+                    sum[1] += c.error;
+                }
+            }
+            for (Map.Entry<Integer, long[]> e : merged.entrySet()) {
+                for (SpaceSaving<Integer> bucket : live) {
+                    if (!bucket.isEmpty() && !bucket.tracks(e.getKey())) {
+                        e.getValue()[1] += bucket.untrackedBound();
+                    }
+                }
+            }
+
+            List<Entry> entries = new ArrayList<>();
+            merged.forEach((id, sum) -> {
+                if (sum[0] > 0) {
+                    entries.add(new Entry(id, null, sum[0], sum[1]));
+                }
+            });
+            entries.sort((a, b) -> Long.compare(b.count, a.count));
+            return entries.size() > n ? new ArrayList<>(entries.subList(0, n)) : entries;
+        }
+    }
+
+    // The rings are guarded by the class lock; the event position is only used by the poller thread.
+    private static final Map<Window, Map<Dimension, Ring>> rings = new EnumMap<>(Window.class);
+    private static long lastEventId = -1;
+    private static long lastPurge = 0;
+    private static ScheduledExecutorService poller;
+
+    static {
+        for (Window window : Window.values()) {
+            Map<Dimension, Ring> byDimension = new EnumMap<>(Dimension.class);
+            for (Dimension dimension : Dimension.values()) {
+                byDimension.put(dimension, new Ring(window));
+            }
+            rings.put(window, byDimension);
+        }
+    }
+
+    public static synchronized void start() {
+        if (poller != null) {
+            return;
+        }
+        poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "popularity-poller");
+            t.setDaemon(true);
+            return t;
+        });
+        poller.scheduleWithFixedDelay(PopularityTracker::pollOnce, 0, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public static synchronized void stop() {
+        if (poller == null) {
+            return;
+        }
+        poller.shutdownNow();
+        poller = null;
+    }
+
+    /** Approximate top n of a dimension over a window, with names filled in. */
+    public static List<Entry> top(Dimension dimension, Window window, int n) throws SQLException {
+        List<Entry> entries;
+        synchronized (PopularityTracker.class) {
+            entries = rings.get(window).get(dimension).top(n, System.currentTimeMillis());
+        }
+        return withNames(dimension, entries);
+    }
+
+    /** Exact top n of a dimension over a window, from the daily rollups or the event log. */
+    public static List<Entry> exactTop(Dimension dimension, Window window, int n) throws SQLException {
+        String sql;
+        if (window == Window.MONTH) {
+            sql = dimension == Dimension.PRODUCT ? EXACT_MONTH_PRODUCT_SQL
+                : dimension == Dimension.CATEGORY ? EXACT_MONTH_CATEGORY_SQL : EXACT_MONTH_SELLER_SQL;
+        } else {
+            sql = dimension == Dimension.PRODUCT ? EXACT_EVENTS_PRODUCT_SQL
+                : dimension == Dimension.CATEGORY ? EXACT_EVENTS_CATEGORY_SQL : EXACT_EVENTS_SELLER_SQL;
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
+            PreparedStatement pstmt = conn.prepareStatement(sql);
+            if (window == Window.MONTH) {
+                pstmt.setInt(1, n);
+            } else {
+                pstmt.setLong(1, window.bucketCount * window.bucketMs / 1000);
+                pstmt.setInt(2, n);
+            }
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                entries.add(new Entry(rs.getInt("id"), null, rs.getLong("total"), 0));
+            }
+        }
+        return withNames(dimension, entries);
+    }
+
+    private static void pollOnce() {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (lastEventId < 0) {
+                ResultSet rs = conn.createStatement().executeQuery(FIRST_IN_MONTH_SQL);
+                lastEventId = rs.next() ? rs.getLong("event_id") - 1 : horizon(conn);
+            }
+
+            long horizon = horizon(conn);
+            PreparedStatement eventsStmt = conn.prepareStatement(EVENTS_SQL);
+            while (lastEventId < horizon) {
+                long upTo = Math.min(horizon, lastEventId + EVENT_BATCH);
+                eventsStmt.setLong(1, lastEventId);
+                eventsStmt.setLong(2, upTo);
+                ResultSet rs = eventsStmt.executeQuery();
+                long now = System.currentTimeMillis();
+                long previousEvent = -1;
+                synchronized (PopularityTracker.class) {
+                    while (rs.next()) {
+                        long eventId = rs.getLong("event_id");
+                        int sign = rs.getInt("sign");
+                        long at = rs.getLong("occurred_at") * 1000;
+                        // Order revenue goes to the seller once per event, not once per line.
+                        if (eventId != previousEvent) {
+                            feed(Dimension.SELLER, rs.getInt("seller_id"), sign * Money.get(rs, "total_amount"), at, now);
+                            previousEvent = eventId;
+                        }
+                        feed(Dimension.PRODUCT, rs.getInt("product_id"), sign, at, now);
+                        feed(Dimension.CATEGORY, rs.getInt("category_id"), sign * rs.getLong("quantity"), at, now);
+                    }
+                }
+                lastEventId = upTo;
+            }
+
+            if (System.currentTimeMillis() - lastPurge > PURGE_INTERVAL_MS) {
+                conn.prepareStatement(PURGE_SQL).executeUpdate();
+                lastPurge = System.currentTimeMillis();
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static long horizon(Connection conn) throws SQLException {
+        ResultSet rs = conn.createStatement().executeQuery(HORIZON_SQL);
+        return rs.next() ? rs.getLong("event_id") : 0;
+    }
+
+    private static void feed(Dimension dimension, int id, long weight, long atMs, long nowMs) {
+        for (Window window : Window.values()) {
+            SpaceSaving<Integer> bucket = rings.get(window).get(dimension).bucketFor(atMs, nowMs);
+            if (bucket == null) {
+                continue;
+            }
+            if (weight >= 0) {
+                bucket.add(id, weight);
+            } else {
+                bucket.subtract(id, -weight);
+            }
+        }
+    }
+
+    private static List<Entry> withNames(Dimension dimension, List<Entry> entries) throws SQLException {
+        if (entries.isEmpty()) {
+            return entries;
+        }
+        Map<Integer, String> names = new HashMap<>();
+        if (dimension == Dimension.CATEGORY) {
+            for (Entry e : entries) {
+                names.put(e.id, ReferenceDataCache.categoryName(e.id));
+            }
+        } else {
+            String placeholders = "?,".repeat(entries.size() - 1) + "?";
+            String sql = dimension == Dimension.PRODUCT
+                ? "SELECT product_id AS id, name FROM Products WHERE product_id IN (" + placeholders + ")"
+                : "SELECT user_id AS id, name FROM Users WHERE user_id IN (" + placeholders + ")";
+            try (Connection conn = DatabaseConnection.getReadConnection()) {
+                PreparedStatement pstmt = conn.prepareStatement(sql);
+                for (int i = 0; i < entries.size(); i++) {
+                    pstmt.setInt(i + 1, entries.get(i).id);
+                }
+                ResultSet rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    names.put(rs.getInt("id"), rs.getString("name"));
+                }
+            }
+        }
+
+        List<Entry> named = new ArrayList<>();
+        for (Entry e : entries) {
+            String name = names.get(e.id);
+            named.add(new Entry(e.id, name != null ? name : "#" + e.id, e.count, e.error));
+        }
+        return named;
+    }
+}
@@ -0,0 +1,180 @@
+import java.sql.*;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the rendered product details dialog, bounded by total weight (characters held)
+ * and evicted least recently used first.
+ * Each entry carries the product's version: Products.updated_at (which every write to the
+ * product row bumps, including restocks, edits and review aggregates) plus the current stock
+ * total, since hot SKU stripes change stock without touching the product row.
+ * An entry is served as is for REVALIDATE_MS after it was loaded or last checked; after that
+ * a hit costs one primary-key version probe, and a changed version reloads the entry.
+ * Writes made by this client call invalidate() so they show up immediately.
+ */
+public class ProductDetailCache {
+
+    private static final long MAX_WEIGHT = Long.getLong("productcache.maxChars", 4_000_000L);
+    private static final long REVALIDATE_MS = Long.getLong("productcache.revalidateMs", 5000L);
+
+    private static final String VERSION_SQL =
+        "SELECT p.updated_at, " + StockStripes.STOCK_EXPR + " AS stock_total FROM Products p WHERE p.product_id = ?";
+
+    /** Loads the details of a product, or returns null if it does not exist. */
+    public interface Loader {
+        Details load(Connection conn, int productId) throws SQLException;
+    }
+
+    /** The cached texts of a product's details dialog. */
+    public static class Details {
+        public final String summary;
+        public final String reviews;
+
+        public Details(String summary, String reviews) {
+            this.summary = summary;
+            this.reviews = reviews;
+        }
+
+        int weight() {
+            return summary.length() + reviews.length();
+        }
+    }
+
+    /** Point-in-time view of the cache counters. */
+    public static class Stats {
+        public final int entries;
+        public final long weight, hits, misses, revalidations, reloads, evictions, invalidations;
+
+        Stats(int entries, long weight) {
+            this.entries = entries;
+            this.weight = weight;
+            this.hits = ProductDetailCache.hits.get();
+            this.misses = ProductDetailCache.misses.get();
+            this.revalidations = ProductDetailCache.revalidations.get();
+            this.reloads = ProductDetailCache.reloads.get();
+            this.evictions = ProductDetailCache.evictions.get();
+            this.invalidations = ProductDetailCache.invalidations.get();
+        }
+
+        public double hitRatio() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+    }
+
+    private static class Entry {
+        final Details details;
+        final Timestamp updatedAt;
+        final int stock;
+        volatile long checkedAt;
+
+        Entry(Details details, Timestamp updatedAt, int stock) {
+            this.details = details;
+            this.updatedAt = updatedAt;
+            this.stock = stock;
+            this.checkedAt = System.currentTimeMillis();
+        }
+    }
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong revalidations = new AtomicLong();
+    private static final AtomicLong reloads = new AtomicLong();
+    private static final AtomicLong evictions = new AtomicLong();
+    private static final AtomicLong invalidations = new AtomicLong();
+
+    // Guarded by the class lock.
+    private static final LinkedHashMap<Integer, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private static long totalWeight = 0;
+
+    /**
+     * Returns the product's details from the cache, loading them with loader on a miss or
+     * when the product changed. Returns null if the product does not exist.
+     */
+    public static Details get(int productId, Loader loader) throws SQLException {
+        Entry entry;
+        synchronized (ProductDetailCache.class) {
+            entry = entries.get(productId);
+        }
+        long now = System.currentTimeMillis();
+        if (entry != null && now - entry.checkedAt < REVALIDATE_MS) {
+            hits.incrementAndGet();
+            return entry.details;
+        }
+
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
+            // The version is read before the details, so a change in between only causes an extra reload later.
+            PreparedStatement versionStmt = conn.prepareStatement(VERSION_SQL);
+            versionStmt.setInt(1, productId);
+            ResultSet rs = versionStmt.executeQuery();
+            if (!rs.next()) {
+                remove(productId);
+                misses.incrementAndGet();
+                return null;
+            }
+            Timestamp updatedAt = rs.getTimestamp("updated_at");
+            int stock = rs.getInt("stock_total");
+
+            if (entry != null) {
+                revalidations.incrementAndGet();
+                if (entry.updatedAt.equals(updatedAt) && entry.stock == stock) {
+                    entry.checkedAt = now;
+                    hits.incrementAndGet();
+                    return entry.details;
+                }
+                reloads.incrementAndGet();
+            }
+            misses.incrementAndGet();
+
+            Details details = loader.load(conn, productId);
+            if (details == null) {
+                remove(productId);
+                return null;
+            }
+            put(productId, new Entry(details, updatedAt, stock));
+            return details;
+        }
+    }
+
+    /** Drops the product's entry; call after changing the product or its reviews. */
+    public static void invalidate(int productId) {
+        if (remove(productId)) {
+            invalidations.incrementAndGet();
+        }
+    }
+
+    public static synchronized Stats getStats() {
+        return new Stats(entries.size(), totalWeight);
+    }
+
+    private static synchronized void put(int productId, Entry entry) {
+        int weight = entry.details.weight();
+        if (weight > MAX_WEIGHT / 8) {
+            remove(productId);  // one huge review list should not flush the whole cache
+            return;
+        }
+        Entry previous = entries.put(productId, entry);
+        if (previous != null) {
+            totalWeight -= previous.details.weight();
+        }
+        totalWeight += weight;
+
+        Iterator<Entry> it = entries.values().iterator();
+        while (totalWeight > MAX_WEIGHT && it.hasNext()) {
+            Entry eldest = it.next();
+            it.remove();
+            totalWeight -= eldest.details.weight();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static synchronized boolean remove(int productId) {
+        Entry removed = entries.remove(productId);
+        if (removed == null) {
+            return false;
+        }
+        totalWeight -= removed.details.weight();
+        return true;
+    }
+}
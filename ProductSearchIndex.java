@@ -0,0 +1,326 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+/**
+ * In-memory inverted index over product name and description.
+ * Answers keyword searches without a LIKE '%x%' scan; the last query word matches as a prefix
+ * so results narrow while the user is still typing. Each entry also keeps the product's
+ * category, price and name, so the search filters and orders its hits itself and the caller
+ * only has to fetch the rows it shows.
+ * Only one thread rebuilds at a time; the others keep searching the current index meanwhile.
+ * Products added or removed during a rebuild are replayed onto the new index before it is
+ * swapped in, so the rebuild cannot undo them.
+ */
+public class ProductSearchIndex {
+
+    // Rebuild from the database after this long so changes made by other clients show up.
+    private static final long REFRESH_INTERVAL_MS = 5 * 60 * 1000;
+
+    private static final ProductSearchIndex INSTANCE = new ProductSearchIndex();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock reloadLock = new ReentrantLock();
+    private TreeMap<String, Postings> terms = new TreeMap<>();
+    private Map<Integer, Doc> docs = new HashMap<>();
+    // Changes made while a rebuild is reading the database; null when no rebuild is running.
+    private List<BiConsumer<TreeMap<String, Postings>, Map<Integer, Doc>>> pending;
+    private volatile long loadedAt = 0;
+    private volatile boolean loaded = false;
+
+    public static ProductSearchIndex getInstance() {
+        return INSTANCE;
+    }
+
+    // Same order as the product list: ORDER BY p.name, p.product_id (case-insensitive collation).
+    private static final Comparator<Doc> DISPLAY_ORDER =
+        Comparator.<Doc, String>comparing(doc -> doc.name, String.CASE_INSENSITIVE_ORDER)
+                  .thenComparingInt(doc -> doc.productId);
+
+    /**
+     * Returns the ids of the products in the catalog that match every word of the query,
+     * are in the category (any when categoryId is -1) and cost between minPrice and maxPrice
+     * cents, ordered by name and then id. Loads the index on first use.
+     */
+    public int[] search(String query, int catalogId, int categoryId, long minPrice, long maxPrice) throws SQLException {
+        ensureLoaded();
+
+        String[] words = tokenize(query);
+        if (words.length == 0) {
+            return new int[0];
+        }
+
+        lock.readLock().lock();
+        try {
+            int[] result = null;
+            for (int i = 0; i < words.length; i++) {
+                boolean isLast = i == words.length - 1;
+                int[] matches = isLast ? prefixMatches(words[i]) : exactMatches(words[i]);
+                result = result == null ? matches : intersect(result, matches);
+                if (result.length == 0) {
+                    return result;
+                }
+            }
+
+            List<Doc> hits = new ArrayList<>();
+            for (int id : result) {
+                Doc doc = docs.get(id);
+                if (doc != null && doc.catalogId == catalogId
+                        && (categoryId == -1 || doc.categoryId == categoryId)
+                        && doc.price >= minPrice && doc.price <= maxPrice) {
+                    hits.add(doc);
+                }
+            }
+            hits.sort(DISPLAY_ORDER);
+
+            int[] ordered = new int[hits.size()];
+            for (int i = 0; i < ordered.length; i++) {
+                ordered[i] = hits.get(i).productId;
+            }
+            return ordered;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Adds a product or replaces its previous entry. */
+    public void indexProduct(int productId, int catalogId, int categoryId, long price,
+                             String name, String description) {
+        apply((t, d) -> {
+            removeLocked(t, d, productId);
+            addLocked(t, d, new Doc(productId, catalogId, categoryId, price, name), description);
+        });
+    }
+
+    public void removeProduct(int productId) {
+        apply((t, d) -> removeLocked(t, d, productId));
+    }
+
+    // Applies a change to the live index and remembers it for a rebuild in progress.
+    private void apply(BiConsumer<TreeMap<String, Postings>, Map<Integer, Doc>> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(terms, docs);
+            if (pending != null) {
+                pending.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void invalidate() {
+        loadedAt = 0;
+    }
+
+    private void ensureLoaded() throws SQLException {
+        if (System.currentTimeMillis() - loadedAt < REFRESH_INTERVAL_MS) {
+            return;
+        }
+        if (!reloadLock.tryLock()) {
+            if (loaded) {
+                return;  // another thread is rebuilding; search the current index meanwhile
+            }
+            reloadLock.lock();
+        }
+        try {
+            if (System.currentTimeMillis() - loadedAt < REFRESH_INTERVAL_MS) {
+                return;
+            }
+            rebuild();
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private void rebuild() throws SQLException {
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        // Build off to the side, then swap, so searches keep working during a rebuild.
+        TreeMap<String, Postings> newTerms = new TreeMap<>();
+        Map<Integer, Doc> newDocs = new HashMap<>();
+        try {
+            try (Connection conn = DatabaseConnection.getReadConnection()) {
+                String sql = "SELECT product_id, catalog_id, category_id, price, name, description FROM Products";
+                Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery(sql);
+                while (rs.next()) {
+                    Doc doc = new Doc(rs.getInt("product_id"), rs.getInt("catalog_id"), rs.getInt("category_id"),
+                                      Money.get(rs, "price"), rs.getString("name"));
+                    addLocked(newTerms, newDocs, doc, rs.getString("description"));
+                }
+            }
+
+            lock.writeLock().lock();
+            try {
+                for (BiConsumer<TreeMap<String, Postings>, Map<Integer, Doc>> change : pending) {
+                    change.accept(newTerms, newDocs);
+                }
+                terms = newTerms;
+                docs = newDocs;
+                loadedAt = System.currentTimeMillis();
+                loaded = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private int[] exactMatches(String word) {
+        Postings postings = terms.get(word);
+        return postings == null ? new int[0] : postings.toArray();
+    }
+
+    private int[] prefixMatches(String prefix) {
+        SortedMap<String, Postings> range = terms.subMap(prefix, prefix + Character.MAX_VALUE);
+        if (range.size() == 1) {
+            return range.values().iterator().next().toArray();
+        }
+        int[] result = new int[0];
+        for (Postings postings : range.values()) {
+            result = union(result, postings.toArray());
+        }
+        return result;
+    }
+
+    private static void addLocked(TreeMap<String, Postings> terms, Map<Integer, Doc> docs,
+                                  Doc doc, String description) {
+        Set<String> words = new LinkedHashSet<>();
+        words.addAll(Arrays.asList(tokenize(doc.name)));
+        words.addAll(Arrays.asList(tokenize(description)));
+
+        doc.terms = words.toArray(new String[0]);
+        for (String term : doc.terms) {
+            terms.computeIfAbsent(term, t -> new Postings()).add(doc.productId);
+        }
+        docs.put(doc.productId, doc);
+    }
+
+    private static void removeLocked(TreeMap<String, Postings> terms, Map<Integer, Doc> docs, int productId) {
+        Doc old = docs.remove(productId);
+        if (old == null) return;
+        for (String term : old.terms) {
+            Postings postings = terms.get(term);
+            if (postings != null) {
+                postings.remove(productId);
+                if (postings.size == 0) {
+                    terms.remove(term);
+                }
+            }
+        }
+    }
+
+    static String[] tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return new String[0];
+        }
+        List<String> tokens = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        String lower = text.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < lower.length(); i++) {
+            char ch = lower.charAt(i);
+            if (Character.isLetterOrDigit(ch)) {
+                current.append(ch);
+            } else if (current.length() > 0) {
+                tokens.add(current.toString());
+                current.setLength(0);
+            }
+        }
+        if (current.length() > 0) {
+            tokens.add(current.toString());
+        }
+        return tokens.toArray(new String[0]);
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else { out[n++] = a[i]; i++; j++; }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        int[] out = new int[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length || j < b.length) {
+            if (j == b.length || (i < a.length && a[i] < b[j])) out[n++] = a[i++];
+            else if (i == a.length || b[j] < a[i]) out[n++] = b[j++];
+            else { out[n++] = a[i]; i++; j++; }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static class Doc {
+        final int productId;
+        final int catalogId;
+        final int categoryId;
+        final long price;  // cents
+        final String name;
+        String[] terms;
+
+        Doc(int productId, int catalogId, int categoryId, long price, String name) {
+            this.productId = productId;
+            this.catalogId = catalogId;
+            this.categoryId = categoryId;
+            this.price = price;
+            this.name = name;
+        }
+    }
+
+    /** Sorted, duplicate-free list of product ids backed by a primitive array. */
+    private static class Postings {
+        int[] ids = new int[4];
+        int size = 0;
+
+        void add(int id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0) return;
+            pos = -pos - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            ids[pos] = id;
+            size++;
+        }
+
+        void remove(int id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos < 0) return;
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            size--;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Properties;
+
+/**
+ * Properties stored as text in a database column (outbox payloads, customer stats).
+ */
+public class PropertiesText {
+
+    public static String toText(Properties properties) {
+        StringWriter writer = new StringWriter();
+        try {
+            properties.store(writer, null);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);  // StringWriter does not throw
+        }
+        return writer.toString();
+    }
+
+    /** Parses text written by toText; null reads as empty. */
+    public static Properties fromText(String text) {
+        Properties properties = new Properties();
+        try {
+            properties.load(new StringReader(text == null ? "" : text));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);  // StringReader does not throw
+        }
+        return properties;
+    }
+}
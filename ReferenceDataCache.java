@@ -0,0 +1,181 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-process cache of small, rarely changing reference data: categories and the catalog list.
+ * Everything is loaded together into an immutable snapshot, so lookups are plain map reads.
+ * The snapshot expires after TTL_SECONDS; code that changes categories, catalogs or which
+ * categories have products calls invalidate() so this client sees the change at once.
+ * Other clients pick it up when their snapshot expires.
+ */
+public class ReferenceDataCache {
+
+    private static final long TTL_MS = Long.getLong("refdata.ttlSeconds", 300L) * 1000;
+
+    private static final String CATEGORIES_SQL = """
+        SELECT c.category_id, c.name,
+               EXISTS (SELECT 1 FROM Products p WHERE p.category_id = c.category_id) AS has_products
+        FROM Categories c
+        ORDER BY c.name
+        """;
+
+    private static final String CATALOGS_SQL = """
+        SELECT c.catalog_id, u.name
+        FROM Catalogs c
+        JOIN Users u ON c.seller_id = u.user_id
+        ORDER BY u.name
+        """;
+
+    /** A seller's catalog as shown in the catalog picker. */
+    public static class Catalog {
+        public final int catalogId;
+        public final String sellerName;
+
+        Catalog(int catalogId, String sellerName) {
+            this.catalogId = catalogId;
+            this.sellerName = sellerName;
+        }
+    }
+
+    private static class Snapshot {
+        final List<String> categoryNames;
+        final List<String> categoriesInUse;
+        final Map<String, Integer> categoryIds;
+        final Map<Integer, String> categoryNamesById;
+        final List<Catalog> catalogs;
+        final long loadedAt = System.currentTimeMillis();
+        // Set on a snapshot loaded because a lookup missed; its misses are final until it expires.
+        volatile boolean reloadedOnMiss = false;
+
+        Snapshot(List<String> categoryNames, List<String> categoriesInUse,
+                 Map<String, Integer> categoryIds, List<Catalog> catalogs) {
+            this.categoryNames = Collections.unmodifiableList(categoryNames);
+            this.categoriesInUse = Collections.unmodifiableList(categoriesInUse);
+            this.categoryIds = Collections.unmodifiableMap(categoryIds);
+            Map<Integer, String> byId = new HashMap<>();
+            categoryIds.forEach((name, id) -> byId.put(id, name));
+            this.categoryNamesById = Collections.unmodifiableMap(byId);
+            this.catalogs = Collections.unmodifiableList(catalogs);
+        }
+    }
+
+    private static volatile Snapshot snapshot;
+    // Bumped by invalidate(); a load that started before the bump is not installed.
+    private static long generation = 0;
+
+    /** All category names, sorted. */
+    public static List<String> categoryNames() throws SQLException {
+        return current().categoryNames;
+    }
+
+    /** Names of the categories that have at least one product, sorted. */
+    public static List<String> categoriesInUse() throws SQLException {
+        return current().categoriesInUse;
+    }
+
+    /** Category id for a name, or -1 if there is no such category. */
+    public static int categoryId(String name) throws SQLException {
+        Snapshot s = current();
+        Integer id = s.categoryIds.get(name);
+        if (id == null && (s = reloadOnMiss(s)) != null) {
+            id = s.categoryIds.get(name);
+        }
+        return id != null ? id : -1;
+    }
+
+    /** Category name for an id, or null if there is no such category. */
+    public static String categoryName(int id) throws SQLException {
+        Snapshot s = current();
+        String name = s.categoryNamesById.get(id);
+        if (name == null && (s = reloadOnMiss(s)) != null) {
+            name = s.categoryNamesById.get(id);
+        }
+        return name;
+    }
+
+    public static List<Catalog> catalogs() throws SQLException {
+        return current().catalogs;
+    }
+
+    /** Drops the snapshot; the next lookup reloads it. */
+    public static synchronized void invalidate() {
+        generation++;
+        snapshot = null;
+    }
+
+    /**
+     * A lookup missed in the given snapshot, possibly because another client added the entry since
+     * it was loaded. Reloads once and marks the new snapshot, so later misses are answered from it
+     * until it expires or invalidate() is called. Returns null if the snapshot was already such a reload.
+     */
+    private static Snapshot reloadOnMiss(Snapshot missed) throws SQLException {
+        if (missed.reloadedOnMiss) {
+            return null;
+        }
+        synchronized (ReferenceDataCache.class) {
+            // Only drop the snapshot that missed; one installed since then is already newer.
+            if (snapshot == missed) {
+                generation++;
+                snapshot = null;
+            }
+        }
+        Snapshot reloaded = current();
+        reloaded.reloadedOnMiss = true;
+        return reloaded;
+    }
+
+    private static Snapshot current() throws SQLException {
+        Snapshot s = snapshot;
+        if (s != null && System.currentTimeMillis() - s.loadedAt < TTL_MS) {
+            return s;
+        }
+
+        long startedAt;
+        synchronized (ReferenceDataCache.class) {
+            s = snapshot;
+            if (s != null && System.currentTimeMillis() - s.loadedAt < TTL_MS) {
+                return s;
+            }
+            startedAt = generation;
+        }
+
+        // Loaded outside the lock so a slow query does not block lookups that still have a snapshot.
+        Snapshot loaded = load();
+        synchronized (ReferenceDataCache.class) {
+            if (generation == startedAt) {
+                snapshot = loaded;
+            }
+        }
+        return loaded;
+    }
+
+    private static Snapshot load() throws SQLException {
+        List<String> names = new ArrayList<>();
+        List<String> inUse = new ArrayList<>();
+        Map<String, Integer> ids = new HashMap<>();
+        List<Catalog> catalogs = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
+            Statement stmt = conn.createStatement();
+            ResultSet rs = stmt.executeQuery(CATEGORIES_SQL);
+            while (rs.next()) {
+                String name = rs.getString("name");
+                names.add(name);
+                ids.put(name, rs.getInt("category_id"));
+                if (rs.getBoolean("has_products")) {
+                    inUse.add(name);
+                }
+            }
+
+            rs = stmt.executeQuery(CATALOGS_SQL);
+            while (rs.next()) {
+                catalogs.add(new Catalog(rs.getInt("catalog_id"), rs.getString("name")));
+            }
+        }
+        return new Snapshot(names, inUse, ids, catalogs);
+    }
+}
@@ -102,6 +102,33 @@ public class RegisterFrame extends JFrame {
             return;
         }
         
+        btnRegister.setEnabled(false);
+        DataAccessExecutor.run(() -> insertUser(name, email, password), () -> {
+            ReferenceDataCache.invalidate();  // a new seller brings a new catalog
+            JOptionPane.showMessageDialog(this, 
+                "Registration successful! Please login.", 
+                "Success", 
+                JOptionPane.INFORMATION_MESSAGE);
+            dispose();
+        }, ex -> {
+            btnRegister.setEnabled(true);
+            if (ex instanceof BusinessException || ex instanceof SQLIntegrityConstraintViolationException) {
+                JOptionPane.showMessageDialog(this, 
+                    "Email already exists! Please use a different email.", 
+                    "Registration Error", 
+                    JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            ex.printStackTrace();
+            JOptionPane.showMessageDialog(this, 
+                "Database error: " + ex.getMessage(), 
+                "Error", 
+                JOptionPane.ERROR_MESSAGE);
+        });
+    }
+    
+    // Runs on a background thread
+    private void insertUser(String name, String email, String password) throws SQLException, BusinessException {
         Connection conn = null;
         try {
             conn = DatabaseConnection.getConnection();
@@ -114,12 +141,7 @@ public class RegisterFrame extends JFrame {
             ResultSet rs = checkStmt.executeQuery();
             
             if (rs.next()) {
-                conn.rollback();
-                JOptionPane.showMessageDialog(this, 
-                    "Email already exists! Please use a different email.", 
-                    "Registration Error", 
-                    JOptionPane.ERROR_MESSAGE);
-                return;
+                throw new BusinessException("Email already exists!");
             }
             
             // Hash password before storing
@@ -152,39 +174,21 @@ public class RegisterFrame extends JFrame {
                 }
                 
                 conn.commit();  // Commit transaction
-                JOptionPane.showMessageDialog(this, 
-                    "Registration successful! Please login.", 
-                    "Success", 
-                    JOptionPane.INFORMATION_MESSAGE);
-                dispose();
             } else {
-                conn.rollback();
+                throw new SQLException("Failed to create user");
             }
             
-        } catch (SQLIntegrityConstraintViolationException e) {
+        } catch (SQLException | BusinessException e) {
             try {
                 if (conn != null) conn.rollback();
             } catch (SQLException rollbackEx) {
                 rollbackEx.printStackTrace();
             }
-            JOptionPane.showMessageDialog(this, 
-                "Email already exists! Please use a different email.", 
-                "Registration Error", 
-                JOptionPane.ERROR_MESSAGE);
-        } catch (SQLException ex) {
-            try {
-                if (conn != null) conn.rollback();
-            } catch (SQLException rollbackEx) {
-                rollbackEx.printStackTrace();
-            }
-            ex.printStackTrace();
-            JOptionPane.showMessageDialog(this, 
-                "Database error: " + ex.getMessage(), 
-                "Error", 
-                JOptionPane.ERROR_MESSAGE);
+            throw e;
         } finally {
             try {
                 if (conn != null) conn.setAutoCommit(true);
+                if (conn != null) conn.close();
             } catch (SQLException e) {
                 e.printStackTrace();
             }
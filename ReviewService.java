@@ -0,0 +1,112 @@
+import java.sql.*;
+
+/**
+ * Review writes. Every review also updates the product's rating aggregates
+ * (sum, count and a per-star histogram) in the same transaction, so product
+ * lists read precomputed values instead of aggregating the Reviews table.
+ */
+public class ReviewService {
+
+    private static final String FIND_ITEM_SQL =
+        "SELECT oi.order_item_id, oi.product_id FROM Order_Items oi WHERE oi.order_id = ? LIMIT 1";
+
+    private static final String CHECK_REVIEW_SQL = "SELECT review_id FROM Reviews WHERE order_item_id = ?";
+
+    private static final String INSERT_REVIEW_SQL = """
+        INSERT INTO Reviews (order_item_id, customer_id, rating, comment)
+        VALUES (?, ?, ?, ?)
+        """;
+
+    // One statement text for every star value; (? = n) is 1 for the matching bucket and 0 otherwise.
+    private static final String ADD_RATING_SQL = """
+        UPDATE Products SET
+            rating_sum = rating_sum + ?,
+            rating_count = rating_count + 1,
+            rating_1 = rating_1 + (? = 1),
+            rating_2 = rating_2 + (? = 2),
+            rating_3 = rating_3 + (? = 3),
+            rating_4 = rating_4 + (? = 4),
+            rating_5 = rating_5 + (? = 5)
+        WHERE product_id = ?
+        """;
+
+    /**
+     * Records the customer's review of the order's item and folds the rating into the product's aggregates.
+     * Returns false when the order has no items.
+     */
+    public static boolean submitReview(int customerId, int orderId, int rating, String comment)
+            throws SQLException, BusinessException {
+        if (rating < 1 || rating > 5) {
+            throw new BusinessException("Rating must be between 1 and 5!");
+        }
+
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            PreparedStatement findStmt = conn.prepareStatement(FIND_ITEM_SQL);
+            findStmt.setInt(1, orderId);
+            ResultSet findRs = findStmt.executeQuery();
+            if (!findRs.next()) {
+                conn.rollback();
+                return false;
+            }
+            int orderItemId = findRs.getInt("order_item_id");
+            int productId = findRs.getInt("product_id");
+
+            PreparedStatement checkStmt = conn.prepareStatement(CHECK_REVIEW_SQL);
+            checkStmt.setInt(1, orderItemId);
+            if (checkStmt.executeQuery().next()) {
+                throw new BusinessException("You have already reviewed this item!");
+            }
+
+            PreparedStatement insertStmt = conn.prepareStatement(INSERT_REVIEW_SQL);
+            insertStmt.setInt(1, orderItemId);
+            insertStmt.setInt(2, customerId);
+            insertStmt.setInt(3, rating);
+            insertStmt.setString(4, comment);
+            try {
+                insertStmt.executeUpdate();
+            } catch (SQLIntegrityConstraintViolationException e) {
+                // Lost a race with another submit of the same item (uq_one_review_per_item).
+                throw new BusinessException("You have already reviewed this item!");
+            }
+
+            PreparedStatement ratingStmt = conn.prepareStatement(ADD_RATING_SQL);
+            for (int i = 1; i <= 6; i++) {
+                ratingStmt.setInt(i, rating);
+            }
+            ratingStmt.setInt(7, productId);
+            ratingStmt.executeUpdate();
+
+            conn.commit();
+            ProductDetailCache.invalidate(productId);
+            return true;
+
+        } catch (SQLException | BusinessException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackEx) {
+                    rollbackEx.printStackTrace();
+                }
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /** Average rating from the stored aggregates, 0 when the product has no reviews. */
+    public static double averageRating(int ratingSum, int ratingCount) {
+        return ratingCount == 0 ? 0.0 : (double) ratingSum / ratingCount;
+    }
+}
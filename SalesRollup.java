@@ -0,0 +1,116 @@
+import java.sql.*;
+import java.util.Locale;
+
+/**
+ * Daily sales rollups per seller, category and product.
+ * An order counts as a sale while it is PAID, SHIPPED or DELIVERED; the rollups are adjusted
+ * whenever an order moves into or out of that set, in the same transaction as the status change,
+ * so the statistics tabs read O(days) rows instead of scanning every order line.
+ * Rows are bucketed by the order's order_date so a later reversal hits the same day.
+ * Revenue is net of coupon discounts everywhere: seller rows use the order total, and category
+ * and product rows give each line its share of the discount (LINE_REVENUE_EXPR), so they agree
+ * with the seller figures up to a cent of rounding per line.
+ */
+public class SalesRollup {
+
+    /** A line's subtotal less its proportional share of the order's coupon discount; needs o and oi. */
+    public static final String LINE_REVENUE_EXPR =
+        "COALESCE(ROUND(oi.subtotal * o.total_amount / NULLIF(o.total_amount + o.discount_amount, 0), 2), 0)";
+
+    // Orders whose seller was deleted (seller_id set to NULL) are kept under seller 0
+    // so they still count towards total sales.
+    private static final String SELLER_SQL = """
+        INSERT INTO Sales_Daily_Seller (sale_date, seller_id, order_count, revenue)
+        SELECT DATE(o.order_date), COALESCE(o.seller_id, 0), ?, ? * o.total_amount
+        FROM Orders o
+        WHERE o.order_id = ?
+        ON DUPLICATE KEY UPDATE
+            order_count = order_count + VALUES(order_count),
+            revenue = revenue + VALUES(revenue)
+        """;
+
+    private static final String CATEGORY_SQL = """
+        INSERT INTO Sales_Daily_Category (sale_date, category_id, quantity, revenue)
+        SELECT DATE(o.order_date), p.category_id, ? * SUM(oi.quantity), ? * SUM(%s)
+        FROM Orders o
+        JOIN Order_Items oi ON oi.order_id = o.order_id
+        JOIN Products p ON oi.product_id = p.product_id
+        WHERE o.order_id = ?
+        GROUP BY DATE(o.order_date), p.category_id
+        ON DUPLICATE KEY UPDATE
+            quantity = quantity + VALUES(quantity),
+            revenue = revenue + VALUES(revenue)
+        """.formatted(LINE_REVENUE_EXPR);
+
+    // uq_order_product makes each product appear once per order, so order_count is distinct orders.
+    private static final String PRODUCT_SQL = """
+        INSERT INTO Sales_Daily_Product (sale_date, product_id, seller_id, order_count, quantity, revenue)
+        SELECT DATE(o.order_date), oi.product_id, COALESCE(o.seller_id, 0), ?, ? * oi.quantity, ? * %s
+        FROM Orders o
+        JOIN Order_Items oi ON oi.order_id = o.order_id
+        WHERE o.order_id = ?
+        ON DUPLICATE KEY UPDATE
+            order_count = order_count + VALUES(order_count),
+            quantity = quantity + VALUES(quantity),
+            revenue = revenue + VALUES(revenue)
+        """.formatted(LINE_REVENUE_EXPR);
+
+    // Tailed by PopularityTracker; sign is +1 when the order becomes a sale and -1 when it stops being one.
+    private static final String EVENT_SQL = "INSERT INTO Sales_Events (order_id, sign) VALUES (?, ?)";
+
+    /** True for the statuses that count as a completed sale. Case-insensitive, like the ENUM column. */
+    public static boolean isSale(String status) {
+        if (status == null) {
+            return false;
+        }
+        switch (status.toUpperCase(Locale.ROOT)) {
+            case "PAID":
+            case "SHIPPED":
+            case "DELIVERED":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Adds the order to the rollups when it becomes a sale and subtracts it when it stops being one.
+     * Must be called inside the transaction that changes the status; a move between two sale
+     * statuses (e.g. PAID to SHIPPED) leaves the rollups untouched.
+     */
+    public static void applyTransition(Connection conn, int orderId, String oldStatus, String newStatus)
+            throws SQLException {
+        boolean wasSale = isSale(oldStatus);
+        boolean isSale = isSale(newStatus);
+        if (wasSale == isSale) {
+            return;
+        }
+        int sign = isSale ? 1 : -1;
+
+        PreparedStatement sellerStmt = conn.prepareStatement(SELLER_SQL);
+        sellerStmt.setInt(1, sign);
+        sellerStmt.setInt(2, sign);
+        sellerStmt.setInt(3, orderId);
+        sellerStmt.executeUpdate();
+
+        PreparedStatement categoryStmt = conn.prepareStatement(CATEGORY_SQL);
+        categoryStmt.setInt(1, sign);
+        categoryStmt.setInt(2, sign);
+        categoryStmt.setInt(3, orderId);
+        categoryStmt.executeUpdate();
+
+        PreparedStatement productStmt = conn.prepareStatement(PRODUCT_SQL);
+        productStmt.setInt(1, sign);
+        productStmt.setInt(2, sign);
+        productStmt.setInt(3, sign);
+        productStmt.setInt(4, orderId);
+        productStmt.executeUpdate();
+
+        PreparedStatement eventStmt = conn.prepareStatement(EVENT_SQL);
+        eventStmt.setInt(1, orderId);
+        eventStmt.setInt(2, sign);
+        eventStmt.executeUpdate();
+
+        SalesSketches.applyTransition(conn, orderId, sign);
+    }
+}
@@ -0,0 +1,317 @@
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Daily sketches behind the "unique buyers" and order value percentile figures, kept in
+ * Sales_Sketches next to the SalesRollup tables. A (day, seller) bucket holds a HyperLogLog of
+ * the customers who bought and a KLL sketch of order totals in cents; a (day, category) bucket
+ * holds the buyers only. Both kinds merge, so a report over any date range reads and combines
+ * one small row per bucket instead of running COUNT(DISTINCT) or sorting order totals.
+ * SalesRollup adds an order to its buckets when it becomes a sale. Sketches cannot forget a
+ * value, so when an order stops being a sale its buckets are rebuilt from that day's orders.
+ * Buckets missing for sales from before the table existed are built on first read.
+ */
+public class SalesSketches {
+
+    public enum Dimension { SELLER, CATEGORY }
+
+    private static final String ORDER_SQL = """
+        SELECT DATE(order_date) AS sale_date, COALESCE(seller_id, 0) AS seller_id, customer_id, total_amount
+        FROM Orders WHERE order_id = ?
+        """;
+
+    private static final String ORDER_CATEGORIES_SQL = """
+        SELECT DISTINCT p.category_id
+        FROM Order_Items oi
+        JOIN Products p ON oi.product_id = p.product_id
+        WHERE oi.order_id = ?
+        ORDER BY p.category_id
+        """;
+
+    private static final String LOCK_SQL =
+        "SELECT buyers, order_values FROM Sales_Sketches WHERE sale_date = ? AND dimension = ? AND dimension_id = ? FOR UPDATE";
+
+    private static final String SAVE_SQL = """
+        INSERT INTO Sales_Sketches (sale_date, dimension, dimension_id, buyers, order_values) VALUES (?, ?, ?, ?, ?)
+        ON DUPLICATE KEY UPDATE buyers = VALUES(buyers), order_values = VALUES(order_values)
+        """;
+
+    // seller_id <=> NULL picks the orders of deleted sellers (bucket 0); both use ix_orders_seller.
+    // The rebuild queries are locking reads so they see the latest committed orders, not the
+    // snapshot taken by the plain reads earlier in the transaction (see rebuild()).
+    private static final String SELLER_ORDERS_SQL = """
+        SELECT customer_id, total_amount FROM Orders
+        WHERE seller_id <=> ? AND order_date >= ? AND order_date < ?
+          AND status IN ('PAID', 'SHIPPED', 'DELIVERED')
+        FOR SHARE
+        """;
+
+    private static final String CATEGORY_BUYERS_SQL = """
+        SELECT DISTINCT o.customer_id
+        FROM Orders o
+        JOIN Order_Items oi ON oi.order_id = o.order_id
+        JOIN Products p ON oi.product_id = p.product_id
+        WHERE p.category_id = ? AND o.order_date >= ? AND o.order_date < ?
+          AND o.status IN ('PAID', 'SHIPPED', 'DELIVERED')
+        FOR SHARE OF o
+        """;
+
+    private static final String RANGE_SQL =
+        "SELECT dimension_id, buyers, order_values FROM Sales_Sketches WHERE dimension = ? AND sale_date BETWEEN ? AND ?";
+
+    private static final String SELLER_RANGE_SQL =
+        "SELECT buyers, order_values FROM Sales_Sketches " +
+        "WHERE dimension = 'SELLER' AND dimension_id = ? AND sale_date BETWEEN ? AND ?";
+
+    // Rollup buckets with sales but no sketch yet.
+    private static final String MISSING_SELLER_SQL = """
+        SELECT s.sale_date, s.seller_id AS id
+        FROM Sales_Daily_Seller s
+        LEFT JOIN Sales_Sketches k
+          ON k.sale_date = s.sale_date AND k.dimension = 'SELLER' AND k.dimension_id = s.seller_id
+        WHERE s.sale_date BETWEEN ? AND ? AND s.order_count > 0 AND k.sale_date IS NULL
+        """;
+
+    private static final String MISSING_ONE_SELLER_SQL = """
+        SELECT s.sale_date, s.seller_id AS id
+        FROM Sales_Daily_Seller s
+        LEFT JOIN Sales_Sketches k
+          ON k.sale_date = s.sale_date AND k.dimension = 'SELLER' AND k.dimension_id = s.seller_id
+        WHERE s.sale_date BETWEEN ? AND ? AND s.order_count > 0 AND k.sale_date IS NULL
+          AND s.seller_id = ?
+        """;
+
+    private static final String MISSING_CATEGORY_SQL = """
+        SELECT s.sale_date, s.category_id AS id
+        FROM Sales_Daily_Category s
+        LEFT JOIN Sales_Sketches k
+          ON k.sale_date = s.sale_date AND k.dimension = 'CATEGORY' AND k.dimension_id = s.category_id
+        WHERE s.sale_date BETWEEN ? AND ? AND s.quantity > 0 AND k.sale_date IS NULL
+        """;
+
+    /** Merged sketches of a date range. */
+    public static class Summary {
+        final HyperLogLog buyers;
+        final KllSketch orderValues;
+
+        Summary(HyperLogLog buyers, KllSketch orderValues) {
+            this.buyers = buyers;
+            this.orderValues = orderValues;
+        }
+
+        Summary() {
+            this(new HyperLogLog(), new KllSketch());
+        }
+
+        /** Estimated number of distinct customers. */
+        public long uniqueBuyers() {
+            return buyers.estimate();
+        }
+
+        /** Number of orders, exact. */
+        public long orders() {
+            return orderValues.count();
+        }
+
+        /** Approximate order total in cents at quantile q (0.5 for the median), or -1 if there were no orders. */
+        public long orderValue(double q) {
+            return orderValues.quantile(q);
+        }
+
+        void merge(Summary other) {
+            buyers.merge(other.buyers);
+            orderValues.merge(other.orderValues);
+        }
+    }
+
+    /**
+     * Adds the order to its seller and category buckets (sign 1) or rebuilds those buckets
+     * without it (sign -1). Must be called inside the transaction that changes the status,
+     * after the change.
+     */
+    public static void applyTransition(Connection conn, int orderId, int sign) throws SQLException {
+        PreparedStatement orderStmt = conn.prepareStatement(ORDER_SQL);
+        orderStmt.setInt(1, orderId);
+        ResultSet rs = orderStmt.executeQuery();
+        if (!rs.next()) {
+            return;
+        }
+        LocalDate day = rs.getDate("sale_date").toLocalDate();
+        int sellerId = rs.getInt("seller_id");
+        int customerId = rs.getInt("customer_id");
+        long total = Money.get(rs, "total_amount");
+
+        List<Integer> categories = new ArrayList<>();
+        PreparedStatement categoryStmt = conn.prepareStatement(ORDER_CATEGORIES_SQL);
+        categoryStmt.setInt(1, orderId);
+        rs = categoryStmt.executeQuery();
+        while (rs.next()) {
+            categories.add(rs.getInt("category_id"));
+        }
+
+        // A missing bucket may stand for sales from before the table existed, so it is rebuilt too.
+        Summary seller = lock(conn, day, Dimension.SELLER, sellerId);
+        if (sign > 0 && seller != null) {
+            seller.buyers.add(customerId);
+            seller.orderValues.add(total);
+            save(conn, day, Dimension.SELLER, sellerId, seller);
+        } else {
+            rebuild(conn, day, Dimension.SELLER, sellerId);
+        }
+        for (int categoryId : categories) {
+            Summary category = lock(conn, day, Dimension.CATEGORY, categoryId);
+            if (sign > 0 && category != null) {
+                category.buyers.add(customerId);
+                save(conn, day, Dimension.CATEGORY, categoryId, category);
+            } else {
+                rebuild(conn, day, Dimension.CATEGORY, categoryId);
+            }
+        }
+    }
+
+    /** One seller's buyers and order values between from and to, both inclusive. */
+    public static Summary seller(int sellerId, LocalDate from, LocalDate to) throws SQLException, BusinessException {
+        buildMissing(MISSING_ONE_SELLER_SQL, sellerId, Dimension.SELLER, from, to);
+        Summary summary = new Summary();
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
+            PreparedStatement pstmt = conn.prepareStatement(SELLER_RANGE_SQL);
+            pstmt.setInt(1, sellerId);
+            pstmt.setDate(2, Date.valueOf(from));
+            pstmt.setDate(3, Date.valueOf(to));
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                summary.merge(read(rs));
+            }
+        }
+        return summary;
+    }
+
+    /** Buyers and order values of the whole shop between from and to, merged over all sellers. */
+    public static Summary total(LocalDate from, LocalDate to) throws SQLException, BusinessException {
+        buildMissing(MISSING_SELLER_SQL, -1, Dimension.SELLER, from, to);
+        Summary summary = new Summary();
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
+            ResultSet rs = readRange(conn, Dimension.SELLER, from, to);
+            while (rs.next()) {
+                summary.merge(read(rs));
+            }
+        }
+        return summary;
+    }
+
+    /** Estimated distinct buyers per category id between from and to. */
+    public static Map<Integer, Long> buyersByCategory(LocalDate from, LocalDate to)
+            throws SQLException, BusinessException {
+        buildMissing(MISSING_CATEGORY_SQL, -1, Dimension.CATEGORY, from, to);
+        Map<Integer, HyperLogLog> merged = new HashMap<>();
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
+            ResultSet rs = readRange(conn, Dimension.CATEGORY, from, to);
+            while (rs.next()) {
+                merged.computeIfAbsent(rs.getInt("dimension_id"), id -> new HyperLogLog())
+                      .merge(HyperLogLog.fromBytes(rs.getBytes("buyers")));
+            }
+        }
+        Map<Integer, Long> buyers = new HashMap<>();
+        merged.forEach((id, hll) -> buyers.put(id, hll.estimate()));
+        return buyers;
+    }
+
+    private static ResultSet readRange(Connection conn, Dimension dimension, LocalDate from, LocalDate to)
+            throws SQLException {
+        PreparedStatement pstmt = conn.prepareStatement(RANGE_SQL);
+        pstmt.setString(1, dimension.name());
+        pstmt.setDate(2, Date.valueOf(from));
+        pstmt.setDate(3, Date.valueOf(to));
+        return pstmt.executeQuery();
+    }
+
+    // Builds the buckets that missingSql lists, one short transaction each. sellerId binds the
+    // third parameter of MISSING_ONE_SELLER_SQL and is -1 for the other queries.
+    private static void buildMissing(String missingSql, int sellerId, Dimension dimension, LocalDate from, LocalDate to)
+            throws SQLException, BusinessException {
+        List<Object[]> missing = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
+            PreparedStatement pstmt = conn.prepareStatement(missingSql);
+            pstmt.setDate(1, Date.valueOf(from));
+            pstmt.setDate(2, Date.valueOf(to));
+            if (sellerId >= 0) {
+                pstmt.setInt(3, sellerId);
+            }
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                missing.add(new Object[]{rs.getDate("sale_date").toLocalDate(), rs.getInt("id")});
+            }
+        }
+        for (Object[] bucket : missing) {
+            LocalDate day = (LocalDate) bucket[0];
+            int id = (Integer) bucket[1];
+            TransactionTemplate.execute("buildSalesSketch", conn -> {
+                if (lock(conn, day, dimension, id) == null) {
+                    rebuild(conn, day, dimension, id);
+                }
+                return null;
+            });
+        }
+    }
+
+    private static Summary lock(Connection conn, LocalDate day, Dimension dimension, int id) throws SQLException {
+        PreparedStatement pstmt = conn.prepareStatement(LOCK_SQL);
+        pstmt.setDate(1, Date.valueOf(day));
+        pstmt.setString(2, dimension.name());
+        pstmt.setInt(3, id);
+        ResultSet rs = pstmt.executeQuery();
+        return rs.next() ? read(rs) : null;
+    }
+
+    private static Summary read(ResultSet rs) throws SQLException {
+        return new Summary(HyperLogLog.fromBytes(rs.getBytes("buyers")), KllSketch.fromBytes(rs.getBytes("order_values")));
+    }
+
+    // Recomputes a bucket from the day's sale orders. Called with the bucket row locked; under
+    // REPEATABLE READ a plain read here would use the snapshot from the transaction's first plain
+    // read (ORDER_SQL), which can predate orders committed before the bucket lock was granted.
+    private static void rebuild(Connection conn, LocalDate day, Dimension dimension, int id) throws SQLException {
+        Summary summary = new Summary();
+        PreparedStatement pstmt;
+        if (dimension == Dimension.SELLER) {
+            pstmt = conn.prepareStatement(SELLER_ORDERS_SQL);
+            if (id == 0) {
+                pstmt.setNull(1, Types.BIGINT);
+            } else {
+                pstmt.setInt(1, id);
+            }
+        } else {
+            pstmt = conn.prepareStatement(CATEGORY_BUYERS_SQL);
+            pstmt.setInt(1, id);
+        }
+        pstmt.setDate(2, Date.valueOf(day));
+        pstmt.setDate(3, Date.valueOf(day.plusDays(1)));
+        ResultSet rs = pstmt.executeQuery();
+        while (rs.next()) {
+            summary.buyers.add(rs.getInt("customer_id"));
+            if (dimension == Dimension.SELLER) {
+                summary.orderValues.add(Money.get(rs, "total_amount"));
+            }
+        }
+        save(conn, day, dimension, id, summary);
+    }
+
+    private static void save(Connection conn, LocalDate day, Dimension dimension, int id, Summary summary)
+            throws SQLException {
+        PreparedStatement pstmt = conn.prepareStatement(SAVE_SQL);
+        pstmt.setDate(1, Date.valueOf(day));
+        pstmt.setString(2, dimension.name());
+        pstmt.setInt(3, id);
+        pstmt.setBytes(4, summary.buyers.toBytes());
+        if (dimension == Dimension.SELLER) {
+            pstmt.setBytes(5, summary.orderValues.toBytes());
+        } else {
+            pstmt.setNull(5, Types.BLOB);
+        }
+        pstmt.executeUpdate();
+    }
+}
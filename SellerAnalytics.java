@@ -0,0 +1,178 @@
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Figures for the seller statistics and catalog overview tabs.
+ * Revenue, order counts and best sellers are read from the daily rollups that SalesRollup keeps
+ * in step with every order status change, so a report costs one row per day (or per product
+ * and day) in the requested range, however many orders the seller has.
+ * The catalog overview (product count and inventory value) depends on current stock rather than
+ * on history; it is cached per catalog for OVERVIEW_TTL_MS and dropped by the seller's own
+ * product and stock changes through invalidateCatalog().
+ */
+public class SellerAnalytics {
+
+    /** Range bounds meaning "no limit". */
+    public static final LocalDate FIRST_DAY = LocalDate.of(1970, 1, 1);
+    public static final LocalDate LAST_DAY = LocalDate.of(9999, 12, 31);
+
+    private static final long OVERVIEW_TTL_MS = Long.getLong("analytics.overviewTtlSeconds", 60L) * 1000;
+    private static final int TOP_N = 5;
+
+    private static final String MONTHLY_SQL = """
+        SELECT DATE_FORMAT(sale_date, '%Y-%m') AS month, SUM(order_count) AS orders, SUM(revenue) AS revenue
+        FROM Sales_Daily_Seller
+        WHERE seller_id = ? AND sale_date BETWEEN ? AND ?
+        GROUP BY month
+        """;
+
+    private static final String BEST_SELLERS_SQL = """
+        SELECT s.product_id, p.name, SUM(s.quantity) AS total_sold, SUM(s.revenue) AS total_revenue
+        FROM Sales_Daily_Product s
+        JOIN Products p ON s.product_id = p.product_id
+        WHERE s.seller_id = ? AND s.sale_date BETWEEN ? AND ?
+        GROUP BY s.product_id, p.name
+        HAVING total_sold > 0
+        ORDER BY total_sold DESC
+        LIMIT ?
+        """;
+
+    // rating_count is kept by ReviewService; ix_products_catalog_rating makes this a short index scan.
+    private static final String MOST_RATED_SQL = """
+        SELECT name, rating_count
+        FROM Products
+        WHERE catalog_id = ? AND rating_count > 0
+        ORDER BY rating_count DESC
+        LIMIT ?
+        """;
+
+    private static final String OVERVIEW_SQL =
+        "SELECT COUNT(*) AS product_count, SUM(p.price * " + StockStripes.STOCK_EXPR + ") AS total_value " +
+        "FROM Products p WHERE p.catalog_id = ?";
+
+    /** A product's line in a top list. */
+    public static class ProductFigure {
+        public final String name;
+        public final int quantity;
+        public final long revenue;
+
+        ProductFigure(String name, int quantity, long revenue) {
+            this.name = name;
+            this.quantity = quantity;
+            this.revenue = revenue;
+        }
+    }
+
+    /** A seller's sales over a date range. Amounts are in cents. */
+    public static class Report {
+        /** Revenue by "yyyy-MM", newest month first. */
+        public final Map<String, Long> monthlyRevenue;
+        public final List<ProductFigure> bestSellers;
+        /** Products with the most reviews; quantity is the review count and revenue is unused. */
+        public final List<ProductFigure> mostRated;
+        public final int orderCount;
+        public final long revenue;
+
+        Report(Map<String, Long> monthlyRevenue, List<ProductFigure> bestSellers, List<ProductFigure> mostRated,
+               int orderCount, long revenue) {
+            this.monthlyRevenue = Collections.unmodifiableMap(monthlyRevenue);
+            this.bestSellers = Collections.unmodifiableList(bestSellers);
+            this.mostRated = Collections.unmodifiableList(mostRated);
+            this.orderCount = orderCount;
+            this.revenue = revenue;
+        }
+
+        /** Average order value in cents, or -1 if there were no orders. */
+        public long averageOrderValue() {
+            return orderCount == 0 ? -1 : Math.round((double) revenue / orderCount);
+        }
+    }
+
+    /** Product count and inventory value (cents) of a catalog. */
+    public static class CatalogOverview {
+        public final int productCount;
+        public final long inventoryValue;
+        final long loadedAt = System.currentTimeMillis();
+
+        CatalogOverview(int productCount, long inventoryValue) {
+            this.productCount = productCount;
+            this.inventoryValue = inventoryValue;
+        }
+    }
+
+    private static final Map<Integer, CatalogOverview> overviews = new ConcurrentHashMap<>();
+
+    /** The seller's sales between from and to, both inclusive. */
+    public static Report report(int sellerId, int catalogId, LocalDate from, LocalDate to) throws SQLException {
+        Map<String, Long> monthly = new TreeMap<>(Collections.reverseOrder());
+        List<ProductFigure> bestSellers = new ArrayList<>();
+        List<ProductFigure> mostRated = new ArrayList<>();
+        int orderCount = 0;
+        long revenue = 0;
+
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
+            PreparedStatement monthlyStmt = conn.prepareStatement(MONTHLY_SQL);
+            monthlyStmt.setInt(1, sellerId);
+            monthlyStmt.setDate(2, Date.valueOf(from));
+            monthlyStmt.setDate(3, Date.valueOf(to));
+            ResultSet rs = monthlyStmt.executeQuery();
+            while (rs.next()) {
+                int orders = rs.getInt("orders");
+                long monthRevenue = Money.get(rs, "revenue");
+                if (orders > 0) {
+                    monthly.put(rs.getString("month"), monthRevenue);
+                }
+                orderCount += orders;
+                revenue += monthRevenue;
+            }
+
+            PreparedStatement bestStmt = conn.prepareStatement(BEST_SELLERS_SQL);
+            bestStmt.setInt(1, sellerId);
+            bestStmt.setDate(2, Date.valueOf(from));
+            bestStmt.setDate(3, Date.valueOf(to));
+            bestStmt.setInt(4, TOP_N);
+            rs = bestStmt.executeQuery();
+            while (rs.next()) {
+                bestSellers.add(new ProductFigure(rs.getString("name"), rs.getInt("total_sold"),
+                                                  Money.get(rs, "total_revenue")));
+            }
+
+            PreparedStatement ratedStmt = conn.prepareStatement(MOST_RATED_SQL);
+            ratedStmt.setInt(1, catalogId);
+            ratedStmt.setInt(2, TOP_N);
+            rs = ratedStmt.executeQuery();
+            while (rs.next()) {
+                mostRated.add(new ProductFigure(rs.getString("name"), rs.getInt("rating_count"), 0));
+            }
+        }
+        return new Report(monthly, bestSellers, mostRated, orderCount, revenue);
+    }
+
+    public static CatalogOverview catalogOverview(int catalogId) throws SQLException {
+        CatalogOverview cached = overviews.get(catalogId);
+        if (cached != null && System.currentTimeMillis() - cached.loadedAt < OVERVIEW_TTL_MS) {
+            return cached;
+        }
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
+            PreparedStatement pstmt = conn.prepareStatement(OVERVIEW_SQL);
+            pstmt.setInt(1, catalogId);
+            ResultSet rs = pstmt.executeQuery();
+            CatalogOverview overview = rs.next()
+                ? new CatalogOverview(rs.getInt("product_count"), Money.get(rs, "total_value"))
+                : new CatalogOverview(0, 0);
+            overviews.put(catalogId, overview);
+            return overview;
+        }
+    }
+
+    /** Drops the catalog's cached overview; call after adding, editing, deleting or restocking its products. */
+    public static void invalidateCatalog(int catalogId) {
+        overviews.remove(catalogId);
+    }
+}
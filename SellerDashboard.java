@@ -1,16 +1,28 @@
 import java.awt.*;
 import java.sql.*;
-import java.text.DecimalFormat;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 
 public class SellerDashboard extends JFrame {
     private User currentUser;
     private JTabbedPane tabbedPane;
-    private DefaultTableModel modelProducts, modelOrders, modelReviews;
+    private PagedTableModel modelProducts, modelOrders;
+    private DefaultTableModel modelReviews, modelInventory;
     private JTable tableProducts, tableOrders, tableReviews;
+    private JPanel catalogOverviewPanel, statsLinesPanel;
+    private JComboBox<String> cmbStatsRange;
     private int catalogId = -1;
 
+    // Keys for loads where a newer request should replace one still in flight.
+    private static final String OVERVIEW_REQUEST = "seller.overview";
+    private static final String INVENTORY_REQUEST = "seller.inventory";
+    private static final String REVIEWS_REQUEST = "seller.reviews";
+    private static final String STATS_REQUEST = "seller.stats";
+
     public SellerDashboard(User user) {
         this.currentUser = user;
         setTitle("Seller Dashboard - " + user.getName());
@@ -18,18 +30,6 @@ public class SellerDashboard extends JFrame {
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLocationRelativeTo(null);
 
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "SELECT catalog_id FROM Catalogs WHERE seller_id = ?";
-            PreparedStatement pstmt = conn.prepareStatement(sql);
-            pstmt.setInt(1, currentUser.getUserId());
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                catalogId = rs.getInt("catalog_id");
-            }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-        }
-
         tabbedPane = new JTabbedPane();
         tabbedPane.addTab("My Catalog", createCatalogOverviewPanel());
         tabbedPane.addTab("Product Management", createProductPanel());
@@ -65,61 +65,64 @@ add(bottomPanel, BorderLayout.SOUTH);
             else if (index == 4) loadReviews();
             else if (index == 5) updateStats();
         });
-    }
 
-    private JPanel createCatalogOverviewPanel() {
-        JPanel panel = new JPanel();
-        panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
-        panel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
-
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String countSql = "SELECT COUNT(*) as product_count FROM Products WHERE catalog_id = ?";
-            PreparedStatement countStmt = conn.prepareStatement(countSql);
-            countStmt.setInt(1, catalogId);
-            ResultSet countRs = countStmt.executeQuery();
-            int productCount = 0;
-            if (countRs.next()) {
-                productCount = countRs.getInt("product_count");
+        // The catalog id is needed by every tab, so the first tabs fill in once it arrives.
+        DataAccessExecutor.submit(() -> {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                String sql = "SELECT catalog_id FROM Catalogs WHERE seller_id = ?";
+                PreparedStatement pstmt = conn.prepareStatement(sql);
+                pstmt.setInt(1, currentUser.getUserId());
+                ResultSet rs = pstmt.executeQuery();
+                return rs.next() ? rs.getInt("catalog_id") : -1;
             }
+        }, id -> {
+            catalogId = id;
+            loadCatalogOverview();
+            loadInventory();
+        }, Exception::printStackTrace);
+    }
 
-            String valueSql = "SELECT SUM(price * stock_quantity) as total_value FROM Products WHERE catalog_id = ?";
-            PreparedStatement valueStmt = conn.prepareStatement(valueSql);
-            valueStmt.setInt(1, catalogId);
-            ResultSet valueRs = valueStmt.executeQuery();
-            double totalValue = 0.0;
-            if (valueRs.next()) {
-                totalValue = valueRs.getDouble("total_value");
-            }
+    private JPanel createCatalogOverviewPanel() {
+        catalogOverviewPanel = new JPanel();
+        catalogOverviewPanel.setLayout(new BoxLayout(catalogOverviewPanel, BoxLayout.Y_AXIS));
+        catalogOverviewPanel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
+        return catalogOverviewPanel;
+    }
 
-            DecimalFormat df = new DecimalFormat("#0.00");
+    private void loadCatalogOverview() {
+        final int catalog = catalogId;
+        DataAccessExecutor.submit(OVERVIEW_REQUEST, () -> SellerAnalytics.catalogOverview(catalog), overview -> {
+            JPanel panel = catalogOverviewPanel;
+            panel.removeAll();
             panel.add(new JLabel("=== My Catalog Overview ==="));
             panel.add(Box.createVerticalStrut(20));
-            panel.add(new JLabel("Catalog ID: " + catalogId));
-            panel.add(new JLabel("Total Products: " + productCount));
-            panel.add(new JLabel("Total Inventory Value: $" + df.format(totalValue)));
-
-        } catch (SQLException ex) {
+            panel.add(new JLabel("Catalog ID: " + catalog));
+            panel.add(new JLabel("Total Products: " + overview.productCount));
+            panel.add(new JLabel("Total Inventory Value: " + Money.format(overview.inventoryValue)));
+            panel.revalidate();
+            panel.repaint();
+        }, ex -> {
             ex.printStackTrace();
-            panel.add(new JLabel("Error loading catalog overview: " + ex.getMessage()));
-        }
-
-        return panel;
+            catalogOverviewPanel.removeAll();
+            catalogOverviewPanel.add(new JLabel("Error loading catalog overview: " + ex.getMessage()));
+            catalogOverviewPanel.revalidate();
+        });
     }
 
     private JPanel createProductPanel() {
         JPanel panel = new JPanel(new BorderLayout());
 
         String[] columns = {"Product ID", "Name", "Category", "Price", "Stock", "Description"};
-        modelProducts = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int col) {
-                return false;
-            }
-        };
+        modelProducts = new PagedTableModel(columns);
+        modelProducts.setErrorHandler(ex -> {
+            ex.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Error loading products: " + ex.getMessage());
+        });
         tableProducts = new JTable(modelProducts);
         tableProducts.getColumnModel().getColumn(0).setMinWidth(0);
         tableProducts.getColumnModel().getColumn(0).setMaxWidth(0);
         tableProducts.getColumnModel().getColumn(0).setWidth(0);
+        tableProducts.getColumnModel().getColumn(3).setCellRenderer(new Money.Renderer());
         panel.add(new JScrollPane(tableProducts), BorderLayout.CENTER);
 
         JPanel btnPanel = new JPanel(new FlowLayout());
@@ -142,48 +145,47 @@ add(bottomPanel, BorderLayout.SOUTH);
     }
 
     private void loadProducts() {
-        modelProducts.setRowCount(0);
-        if (catalogId == -1) return;
-
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "SELECT p.product_id, p.name, c.name as category_name, p.price, p.stock_quantity, p.description " +
-                        "FROM Products p " +
-                        "JOIN Categories c ON p.category_id = c.category_id " +
-                        "WHERE p.catalog_id = ? " +
-                        "ORDER BY p.name";
-            PreparedStatement pstmt = conn.prepareStatement(sql);
-            pstmt.setInt(1, catalogId);
-            ResultSet rs = pstmt.executeQuery();
-
-            DecimalFormat df = new DecimalFormat("#0.00");
-            while (rs.next()) {
+        if (catalogId == -1) {
+            modelProducts.clear();
+            return;
+        }
+
+        List<Object> params = new ArrayList<>();
+        params.add(catalogId);
+        modelProducts.setSource(new PagedTableModel.SqlPageSource()
+            .select("p.product_id, p.name, c.name as category_name, p.price, " +
+                    StockStripes.STOCK_EXPR + " as stock_quantity, p.description")
+            .from("Products p JOIN Categories c ON p.category_id = c.category_id")
+            .where("p.catalog_id = ?", params)
+            .orderBy(new String[]{"p.name", "p.product_id"}, new int[]{1, 0}, false)
+            .map(rs -> {
                 String description = rs.getString("description");
                 if (description != null && description.length() > 50) {
                     description = description.substring(0, 50) + "...";
                 }
-                modelProducts.addRow(new Object[]{
+                return new Object[]{
                     rs.getInt("product_id"),
                     rs.getString("name"),
                     rs.getString("category_name"),
-                    "$" + df.format(rs.getDouble("price")),
+                    Money.get(rs, "price"),
                     rs.getInt("stock_quantity"),
                     description != null ? description : ""
-                });
-            }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error loading products: " + ex.getMessage());
-        }
+                };
+            }));
     }
 
     private void addProduct() {
+        DataAccessExecutor.submit(this::fetchCategories, this::showAddProductDialog,
+                                  DataAccessExecutor.showError(this, "Error loading categories"));
+    }
+
+    private void showAddProductDialog(List<String> categories) {
         JTextField txtName = new JTextField(20);
         JTextArea txtDescription = new JTextArea(5, 20);
         txtDescription.setLineWrap(true);
         JTextField txtPrice = new JTextField(10);
         JTextField txtStock = new JTextField(10);
-        JComboBox<String> cmbCategory = new JComboBox<>();
-        loadCategories(cmbCategory);
+        JComboBox<String> cmbCategory = new JComboBox<>(categories.toArray(new String[0]));
 
         Object[] message = {
             "Product Name:", txtName,
@@ -203,7 +205,7 @@ add(bottomPanel, BorderLayout.SOUTH);
             }
 
             try {
-                double price = Double.parseDouble(txtPrice.getText().trim());
+                long price = Money.parse(txtPrice.getText());
                 int stock = Integer.parseInt(txtStock.getText().trim());
 
                 if (price < 0 || stock < 0) {
@@ -217,32 +219,47 @@ add(bottomPanel, BorderLayout.SOUTH);
                     return;
                 }
 
-                int categoryId = getCategoryId(selectedCategory);
-                if (categoryId == -1) {
-                    JOptionPane.showMessageDialog(this, "Invalid category!");
-                    return;
-                }
-
-                try (Connection conn = DatabaseConnection.getConnection()) {
-                    String sql = "INSERT INTO Products (catalog_id, category_id, name, description, price, stock_quantity) " +
-                                "VALUES (?, ?, ?, ?, ?, ?)";
-                    PreparedStatement pstmt = conn.prepareStatement(sql);
-                    pstmt.setInt(1, catalogId);
-                    pstmt.setInt(2, categoryId);
-                    pstmt.setString(3, txtName.getText().trim());
-                    pstmt.setString(4, txtDescription.getText().trim());
-                    pstmt.setDouble(5, price);
-                    pstmt.setInt(6, stock);
-                    pstmt.executeUpdate();
+                String name = txtName.getText().trim();
+                String description = txtDescription.getText().trim();
+                DataAccessExecutor.run(() -> {
+                    try (Connection conn = DatabaseConnection.getConnection()) {
+                        int categoryId = getCategoryId(selectedCategory);
+                        if (categoryId == -1) {
+                            throw new BusinessException("Invalid category!");
+                        }
+
+                        String sql = "INSERT INTO Products (catalog_id, category_id, name, description, price, stock_quantity) " +
+                                    "VALUES (?, ?, ?, ?, ?, ?)";
+                        PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+                        pstmt.setInt(1, catalogId);
+                        pstmt.setInt(2, categoryId);
+                        pstmt.setString(3, name);
+                        pstmt.setString(4, description);
+                        Money.set(pstmt, 5, price);
+                        pstmt.setInt(6, stock);
+                        pstmt.executeUpdate();
 
+                        ResultSet keys = pstmt.getGeneratedKeys();
+                        if (keys.next()) {
+                            ProductSearchIndex.getInstance().indexProduct(keys.getInt(1), catalogId, categoryId, price, name, description);
+                        }
+                    }
+                }, () -> {
+                    // The customer category filter lists only categories with products.
+                    ReferenceDataCache.invalidate();
+                    SellerAnalytics.invalidateCatalog(catalogId);
                     JOptionPane.showMessageDialog(this, "Product added successfully!");
                     loadProducts();
-                }
+                }, ex -> {
+                    if (ex instanceof BusinessException) {
+                        JOptionPane.showMessageDialog(this, ex.getMessage());
+                    } else {
+                        ex.printStackTrace();
+                        JOptionPane.showMessageDialog(this, "Error adding product: " + ex.getMessage());
+                    }
+                });
             } catch (NumberFormatException e) {
                 JOptionPane.showMessageDialog(this, "Invalid number format!");
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-                JOptionPane.showMessageDialog(this, "Error adding product: " + ex.getMessage());
             }
         }
     }
@@ -253,33 +270,44 @@ add(bottomPanel, BorderLayout.SOUTH);
             JOptionPane.showMessageDialog(this, "Please select a product to edit!");
             return;
         }
+        if (!modelProducts.isRowLoaded(row)) {
+            JOptionPane.showMessageDialog(this, "This row is still loading, please try again.");
+            return;
+        }
 
         int productId = (Integer) modelProducts.getValueAt(row, 0);
         String currentName = (String) modelProducts.getValueAt(row, 1);
         String currentCategory = (String) modelProducts.getValueAt(row, 2);
-        String currentPrice = ((String) modelProducts.getValueAt(row, 3)).substring(1); // Remove $
-        String currentStock = modelProducts.getValueAt(row, 4).toString();
-
-        // Get full description
-        String currentDescription = "";
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "SELECT description FROM Products WHERE product_id = ?";
-            PreparedStatement pstmt = conn.prepareStatement(sql);
-            pstmt.setInt(1, productId);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                currentDescription = rs.getString("description") != null ? rs.getString("description") : "";
+        String currentPrice = Money.plain((Long) modelProducts.getValueAt(row, 3));
+
+        // Get full description and the category list before opening the dialog
+        DataAccessExecutor.submit(() -> {
+            String description = "";
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                String sql = "SELECT description FROM Products WHERE product_id = ?";
+                PreparedStatement pstmt = conn.prepareStatement(sql);
+                pstmt.setInt(1, productId);
+                ResultSet rs = pstmt.executeQuery();
+                if (rs.next()) {
+                    description = rs.getString("description") != null ? rs.getString("description") : "";
+                }
             }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-        }
+            return new Object[]{description, fetchCategories()};
+        }, loaded -> {
+            @SuppressWarnings("unchecked")
+            List<String> categories = (List<String>) loaded[1];
+            showEditProductDialog(productId, currentName, currentCategory, currentPrice,
+                                  (String) loaded[0], categories);
+        }, DataAccessExecutor.showError(this, "Error loading product"));
+    }
 
+    private void showEditProductDialog(int productId, String currentName, String currentCategory,
+                                       String currentPrice, String currentDescription, List<String> categories) {
         JTextField txtName = new JTextField(currentName, 20);
         JTextArea txtDescription = new JTextArea(currentDescription, 5, 20);
         txtDescription.setLineWrap(true);
         JTextField txtPrice = new JTextField(currentPrice, 10);
-        JComboBox<String> cmbCategory = new JComboBox<>();
-        loadCategories(cmbCategory);
+        JComboBox<String> cmbCategory = new JComboBox<>(categories.toArray(new String[0]));
         cmbCategory.setSelectedItem(currentCategory);
 
         Object[] message = {
@@ -292,35 +320,42 @@ add(bottomPanel, BorderLayout.SOUTH);
         int option = JOptionPane.showConfirmDialog(this, message, "Edit Product", JOptionPane.OK_CANCEL_OPTION);
         if (option == JOptionPane.OK_OPTION) {
             try {
-                double price = Double.parseDouble(txtPrice.getText().trim());
+                long price = Money.parse(txtPrice.getText());
                 if (price < 0) {
                     JOptionPane.showMessageDialog(this, "Price must be >= 0!");
                     return;
                 }
 
                 String selectedCategory = (String) cmbCategory.getSelectedItem();
-                int categoryId = getCategoryId(selectedCategory);
+                String name = txtName.getText().trim();
+                String description = txtDescription.getText().trim();
 
-                try (Connection conn = DatabaseConnection.getConnection()) {
-                    String sql = "UPDATE Products SET name = ?, category_id = ?, description = ?, price = ? " +
-                                "WHERE product_id = ? AND catalog_id = ?";
-                    PreparedStatement pstmt = conn.prepareStatement(sql);
-                    pstmt.setString(1, txtName.getText().trim());
-                    pstmt.setInt(2, categoryId);
-                    pstmt.setString(3, txtDescription.getText().trim());
-                    pstmt.setDouble(4, price);
-                    pstmt.setInt(5, productId);
-                    pstmt.setInt(6, catalogId);
-                    pstmt.executeUpdate();
+                DataAccessExecutor.run(() -> {
+                    try (Connection conn = DatabaseConnection.getConnection()) {
+                        int categoryId = getCategoryId(selectedCategory);
+
+                        String sql = "UPDATE Products SET name = ?, category_id = ?, description = ?, price = ? " +
+                                    "WHERE product_id = ? AND catalog_id = ?";
+                        PreparedStatement pstmt = conn.prepareStatement(sql);
+                        pstmt.setString(1, name);
+                        pstmt.setInt(2, categoryId);
+                        pstmt.setString(3, description);
+                        Money.set(pstmt, 4, price);
+                        pstmt.setInt(5, productId);
+                        pstmt.setInt(6, catalogId);
+                        pstmt.executeUpdate();
 
+                        ProductSearchIndex.getInstance().indexProduct(productId, catalogId, categoryId, price, name, description);
+                    }
+                }, () -> {
+                    ReferenceDataCache.invalidate();
+                    ProductDetailCache.invalidate(productId);
+                    SellerAnalytics.invalidateCatalog(catalogId);
                     JOptionPane.showMessageDialog(this, "Product updated successfully!");
                     loadProducts();
-                }
+                }, DataAccessExecutor.showError(this, "Error updating product"));
             } catch (NumberFormatException e) {
                 JOptionPane.showMessageDialog(this, "Invalid number format!");
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-                JOptionPane.showMessageDialog(this, "Error updating product: " + ex.getMessage());
             }
         }
     }
@@ -331,6 +366,10 @@ add(bottomPanel, BorderLayout.SOUTH);
             JOptionPane.showMessageDialog(this, "Please select a product to delete!");
             return;
         }
+        if (!modelProducts.isRowLoaded(row)) {
+            JOptionPane.showMessageDialog(this, "This row is still loading, please try again.");
+            return;
+        }
 
         int productId = (Integer) modelProducts.getValueAt(row, 0);
         String productName = (String) modelProducts.getValueAt(row, 1);
@@ -342,31 +381,38 @@ add(bottomPanel, BorderLayout.SOUTH);
             JOptionPane.YES_NO_OPTION);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            try (Connection conn = DatabaseConnection.getConnection()) {
-                // Check if product is in any orders
-                String checkSql = "SELECT COUNT(*) as count FROM Order_Items WHERE product_id = ?";
-                PreparedStatement checkStmt = conn.prepareStatement(checkSql);
-                checkStmt.setInt(1, productId);
-                ResultSet checkRs = checkStmt.executeQuery();
-                
-                if (checkRs.next() && checkRs.getInt("count") > 0) {
-                    JOptionPane.showMessageDialog(this, 
-                        "Cannot delete product! It appears in existing orders.\n" +
-                        "The database constraint prevents deletion.", 
-                        "Delete Error", 
-                        JOptionPane.ERROR_MESSAGE);
-                    return;
-                }
+            DataAccessExecutor.run(() -> {
+                try (Connection conn = DatabaseConnection.getConnection()) {
+                    // Check if product is in any orders
+                    String checkSql = "SELECT COUNT(*) as count FROM Order_Items WHERE product_id = ?";
+                    PreparedStatement checkStmt = conn.prepareStatement(checkSql);
+                    checkStmt.setInt(1, productId);
+                    ResultSet checkRs = checkStmt.executeQuery();
+                    
+                    if (checkRs.next() && checkRs.getInt("count") > 0) {
+                        throw new BusinessException("Cannot delete product! It appears in existing orders.\n" +
+                                                    "The database constraint prevents deletion.");
+                    }
 
-                String sql = "DELETE FROM Products WHERE product_id = ? AND catalog_id = ?";
-                PreparedStatement pstmt = conn.prepareStatement(sql);
-                pstmt.setInt(1, productId);
-                pstmt.setInt(2, catalogId);
-                pstmt.executeUpdate();
+                    String sql = "DELETE FROM Products WHERE product_id = ? AND catalog_id = ?";
+                    PreparedStatement pstmt = conn.prepareStatement(sql);
+                    pstmt.setInt(1, productId);
+                    pstmt.setInt(2, catalogId);
+                    pstmt.executeUpdate();
 
+                    ProductSearchIndex.getInstance().removeProduct(productId);
+                }
+            }, () -> {
+                ReferenceDataCache.invalidate();
+                ProductDetailCache.invalidate(productId);
+                SellerAnalytics.invalidateCatalog(catalogId);
                 JOptionPane.showMessageDialog(this, "Product deleted successfully!");
                 loadProducts();
-            } catch (SQLException ex) {
+            }, ex -> {
+                if (ex instanceof BusinessException) {
+                    JOptionPane.showMessageDialog(this, ex.getMessage(), "Delete Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
                 ex.printStackTrace();
                 if (ex.getMessage().contains("foreign key") || ex.getMessage().contains("RESTRICT")) {
                     JOptionPane.showMessageDialog(this, 
@@ -376,7 +422,7 @@ add(bottomPanel, BorderLayout.SOUTH);
                 } else {
                     JOptionPane.showMessageDialog(this, "Error deleting product: " + ex.getMessage());
                 }
-            }
+            });
         }
     }
 
@@ -384,14 +430,14 @@ add(bottomPanel, BorderLayout.SOUTH);
     private JPanel createInventoryPanel() {
         JPanel panel = new JPanel(new BorderLayout());
 
-        String[] columns = {"Product ID", "Name", "Current Stock"};
-        DefaultTableModel model = new DefaultTableModel(columns, 0) {
+        String[] columns = {"Product ID", "Name", "Current Stock", "Hot SKU Mode"};
+        modelInventory = new DefaultTableModel(columns, 0) {
             @Override
             public boolean isCellEditable(int row, int col) {
                 return false;
             }
         };
-        JTable table = new JTable(model);
+        JTable table = new JTable(modelInventory);
         table.getColumnModel().getColumn(0).setMinWidth(0);
         table.getColumnModel().getColumn(0).setMaxWidth(0);
         table.getColumnModel().getColumn(0).setWidth(0);
@@ -399,7 +445,48 @@ add(bottomPanel, BorderLayout.SOUTH);
 
         JPanel btnPanel = new JPanel(new FlowLayout());
         JButton btnRestock = new JButton("Restock Product");
+        JButton btnHotSku = new JButton("Hot SKU Mode");
         btnPanel.add(btnRestock);
+        btnPanel.add(btnHotSku);
+
+        // Spreads a flash-sale product's stock over several rows so concurrent checkouts don't queue on one.
+        btnHotSku.addActionListener(e -> {
+            int row = table.getSelectedRow();
+            if (row == -1) {
+                JOptionPane.showMessageDialog(this, "Please select a product first!");
+                return;
+            }
+
+            int productId = (Integer) modelInventory.getValueAt(row, 0);
+            String productName = (String) modelInventory.getValueAt(row, 1);
+
+            String stripesStr = JOptionPane.showInputDialog(this, 
+                "Number of stock stripes (0 turns hot SKU mode off, max 64):", 
+                "Hot SKU Mode - " + productName, 
+                JOptionPane.QUESTION_MESSAGE);
+            if (stripesStr == null || stripesStr.trim().isEmpty()) {
+                return;
+            }
+
+            int stripes;
+            try {
+                stripes = Integer.parseInt(stripesStr.trim());
+            } catch (NumberFormatException ex) {
+                JOptionPane.showMessageDialog(this, "Invalid number!");
+                return;
+            }
+            if (stripes < 0 || stripes > 64) {
+                JOptionPane.showMessageDialog(this, "Stripes must be between 0 and 64!");
+                return;
+            }
+
+            DataAccessExecutor.run(() -> StockStripes.setStripes(productId, stripes), () -> {
+                JOptionPane.showMessageDialog(this, stripes == 0
+                    ? "Hot SKU mode turned off for " + productName
+                    : "Stock of " + productName + " spread over " + stripes + " stripes");
+                loadInventory();
+            }, DataAccessExecutor.showError(this, "Error changing hot SKU mode"));
+        });
 
         btnRestock.addActionListener(e -> {
             int row = table.getSelectedRow();
@@ -408,9 +495,9 @@ add(bottomPanel, BorderLayout.SOUTH);
                 return;
             }
 
-            int productId = (Integer) model.getValueAt(row, 0);
-            int currentStock = (Integer) model.getValueAt(row, 2);
-            String productName = (String) model.getValueAt(row, 1);
+            int productId = (Integer) modelInventory.getValueAt(row, 0);
+            int currentStock = (Integer) modelInventory.getValueAt(row, 2);
+            String productName = (String) modelInventory.getValueAt(row, 1);
 
             String qtyStr = JOptionPane.showInputDialog(this, 
                 "Current stock: " + currentStock + "\nEnter quantity to add:", 
@@ -424,14 +511,18 @@ add(bottomPanel, BorderLayout.SOUTH);
                         return;
                     }
 
-                    try (Connection conn = DatabaseConnection.getConnection()) {
-                        String sql = "UPDATE Products SET stock_quantity = stock_quantity + ? WHERE product_id = ? AND catalog_id = ?";
-                        PreparedStatement pstmt = conn.prepareStatement(sql);
-                        pstmt.setInt(1, addQty);
-                        pstmt.setInt(2, productId);
-                        pstmt.setInt(3, catalogId);
-                        pstmt.executeUpdate();
-
+                    DataAccessExecutor.run(() -> {
+                        try (Connection conn = DatabaseConnection.getConnection()) {
+                            String sql = "UPDATE Products SET stock_quantity = stock_quantity + ? WHERE product_id = ? AND catalog_id = ?";
+                            PreparedStatement pstmt = conn.prepareStatement(sql);
+                            pstmt.setInt(1, addQty);
+                            pstmt.setInt(2, productId);
+                            pstmt.setInt(3, catalogId);
+                            pstmt.executeUpdate();
+                        }
+                    }, () -> {
+                        ProductDetailCache.invalidate(productId);
+                        SellerAnalytics.invalidateCatalog(catalogId);
                         JOptionPane.showMessageDialog(this, 
                             "Stock updated! Added " + addQty + " units.\n" +
                             "New stock: " + (currentStock + addQty), 
@@ -439,49 +530,53 @@ add(bottomPanel, BorderLayout.SOUTH);
                             JOptionPane.INFORMATION_MESSAGE);
 
                         loadProducts();
-                    }
+                        loadInventory();
+                    }, DataAccessExecutor.showError(this, "Error updating stock"));
                 } catch (NumberFormatException ex) {
                     JOptionPane.showMessageDialog(this, "Invalid quantity!");
-                } catch (SQLException ex) {
-                    ex.printStackTrace();
-                    JOptionPane.showMessageDialog(this, "Error updating stock: " + ex.getMessage());
                 }
             }
         });
 
-        // Load products for inventory view
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "SELECT product_id, name, stock_quantity FROM Products WHERE catalog_id = ? ORDER BY name";
-            PreparedStatement pstmt = conn.prepareStatement(sql);
-            pstmt.setInt(1, catalogId);
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                model.addRow(new Object[]{
-                    rs.getInt("product_id"),
-                    rs.getString("name"),
-                    rs.getInt("stock_quantity")
-                });
-            }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-        }
-
         panel.add(btnPanel, BorderLayout.SOUTH);
         return panel;
     }
 
+    // Load products for inventory view
+    private void loadInventory() {
+        final int catalog = catalogId;
+        DataAccessExecutor.submit(INVENTORY_REQUEST, () -> {
+            List<Object[]> rows = new ArrayList<>();
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                String sql = "SELECT p.product_id, p.name, " + StockStripes.STOCK_EXPR + " as stock_quantity, " +
+                            "p.stock_stripes FROM Products p WHERE p.catalog_id = ? ORDER BY p.name";
+                PreparedStatement pstmt = conn.prepareStatement(sql);
+                pstmt.setInt(1, catalog);
+                ResultSet rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    rows.add(new Object[]{
+                        rs.getInt("product_id"),
+                        rs.getString("name"),
+                        rs.getInt("stock_quantity"),
+                        rs.getInt("stock_stripes") > 0 ? rs.getInt("stock_stripes") + " stripes" : "Off"
+                    });
+                }
+            }
+            return rows;
+        }, rows -> {
+            modelInventory.setRowCount(0);
+            rows.forEach(modelInventory::addRow);
+        }, Exception::printStackTrace);
+    }
+
     // Order Management Panel
     private JPanel createOrderPanel() {
         JPanel panel = new JPanel(new BorderLayout());
 
         String[] columns = {"Order ID", "Customer", "Date", "Total", "Status"};
-        modelOrders = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int col) {
-                return false;
-            }
-        };
+        modelOrders = new PagedTableModel(columns);
         tableOrders = new JTable(modelOrders);
+        tableOrders.getColumnModel().getColumn(3).setCellRenderer(new Money.Renderer());
         panel.add(new JScrollPane(tableOrders), BorderLayout.CENTER);
 
         JPanel btnPanel = new JPanel(new FlowLayout());
@@ -498,30 +593,21 @@ add(bottomPanel, BorderLayout.SOUTH);
     }
 
     private void loadOrders() {
-        modelOrders.setRowCount(0);
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "SELECT o.order_id, u.name as customer_name, o.order_date, o.total_amount, o.status " +
-                        "FROM Orders o " +
-                        "JOIN Users u ON o.customer_id = u.user_id " +
-                        "WHERE o.seller_id = ? " +
-                        "ORDER BY o.order_date DESC";
-            PreparedStatement pstmt = conn.prepareStatement(sql);
-            pstmt.setInt(1, currentUser.getUserId());
-            ResultSet rs = pstmt.executeQuery();
-
-            DecimalFormat df = new DecimalFormat("#0.00");
-            while (rs.next()) {
-                modelOrders.addRow(new Object[]{
-                    rs.getInt("order_id"),
-                    rs.getString("customer_name"),
-                    rs.getTimestamp("order_date"),
-                    "$" + df.format(rs.getDouble("total_amount")),
-                    rs.getString("status")
-                });
-            }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-        }
+        List<Object> params = new ArrayList<>();
+        params.add(currentUser.getUserId());
+        // Newest first; order_id breaks ties between orders placed in the same second.
+        modelOrders.setSource(new PagedTableModel.SqlPageSource()
+            .select("o.order_id, u.name as customer_name, o.order_date, o.total_amount, o.status")
+            .from("Orders o JOIN Users u ON o.customer_id = u.user_id")
+            .where("o.seller_id = ?", params)
+            .orderBy(new String[]{"o.order_date", "o.order_id"}, new int[]{2, 0}, true)
+            .map(rs -> new Object[]{
+                rs.getInt("order_id"),
+                rs.getString("customer_name"),
+                rs.getTimestamp("order_date"),
+                Money.get(rs, "total_amount"),
+                rs.getString("status")
+            }));
     }
 
     private void viewOrderDetails() {
@@ -530,21 +616,38 @@ add(bottomPanel, BorderLayout.SOUTH);
             JOptionPane.showMessageDialog(this, "Please select an order first!");
             return;
         }
+        if (!modelOrders.isRowLoaded(row)) {
+            JOptionPane.showMessageDialog(this, "This row is still loading, please try again.");
+            return;
+        }
 
         int orderId = (Integer) modelOrders.getValueAt(row, 0);
         showOrderDetailsDialog(orderId);
     }
 
     private void showOrderDetailsDialog(int orderId) {
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "SELECT oi.product_id, p.name, oi.quantity, oi.price_at_purchase, oi.subtotal " +
-                        "FROM Order_Items oi " +
-                        "JOIN Products p ON oi.product_id = p.product_id " +
-                        "WHERE oi.order_id = ?";
-            PreparedStatement pstmt = conn.prepareStatement(sql);
-            pstmt.setInt(1, orderId);
-            ResultSet rs = pstmt.executeQuery();
-
+        DataAccessExecutor.submit(() -> {
+            List<Object[]> rows = new ArrayList<>();
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                String sql = "SELECT oi.product_id, p.name, oi.quantity, oi.price_at_purchase, oi.subtotal " +
+                            "FROM Order_Items oi " +
+                            "JOIN Products p ON oi.product_id = p.product_id " +
+                            "WHERE oi.order_id = ?";
+                PreparedStatement pstmt = conn.prepareStatement(sql);
+                pstmt.setInt(1, orderId);
+                ResultSet rs = pstmt.executeQuery();
+
+                while (rs.next()) {
+                    rows.add(new Object[]{
+                        rs.getString("name"),
+                        rs.getInt("quantity"),
+                        Money.get(rs, "price_at_purchase"),
+                        Money.get(rs, "subtotal")
+                    });
+                }
+            }
+            return rows;
+        }, rows -> {
             JDialog dialog = new JDialog(this, "Order Details - Order #" + orderId, true);
             dialog.setSize(600, 400);
             dialog.setLocationRelativeTo(this);
@@ -553,31 +656,24 @@ add(bottomPanel, BorderLayout.SOUTH);
                 new String[]{"Product", "Quantity", "Unit Price", "Subtotal"}, 0
             );
             JTable table = new JTable(model);
-            DecimalFormat df = new DecimalFormat("#0.00");
-            double total = 0.0;
+            table.getColumnModel().getColumn(2).setCellRenderer(new Money.Renderer());
+            table.getColumnModel().getColumn(3).setCellRenderer(new Money.Renderer());
+            long total = 0;
 
-            while (rs.next()) {
-                model.addRow(new Object[]{
-                    rs.getString("name"),
-                    rs.getInt("quantity"),
-                    "$" + df.format(rs.getDouble("price_at_purchase")),
-                    "$" + df.format(rs.getDouble("subtotal"))
-                });
-                total += rs.getDouble("subtotal");
+            for (Object[] row : rows) {
+                model.addRow(row);
+                total += (Long) row[3];
             }
 
             JPanel panel = new JPanel(new BorderLayout());
             panel.add(new JScrollPane(table), BorderLayout.CENTER);
-            JLabel totalLabel = new JLabel("Total: $" + df.format(total));
+            JLabel totalLabel = new JLabel("Total: " + Money.format(total));
             totalLabel.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 14));
             panel.add(totalLabel, BorderLayout.SOUTH);
 
             dialog.add(panel);
             dialog.setVisible(true);
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error loading order details: " + ex.getMessage());
-        }
+        }, DataAccessExecutor.showError(this, "Error loading order details"));
     }
 
     private void updateOrderStatus() {
@@ -586,6 +682,10 @@ add(bottomPanel, BorderLayout.SOUTH);
             JOptionPane.showMessageDialog(this, "Please select an order first!");
             return;
         }
+        if (!modelOrders.isRowLoaded(row)) {
+            JOptionPane.showMessageDialog(this, "This row is still loading, please try again.");
+            return;
+        }
 
         int orderId = (Integer) modelOrders.getValueAt(row, 0);
         String currentStatus = (String) modelOrders.getValueAt(row, 4);
@@ -602,41 +702,43 @@ add(bottomPanel, BorderLayout.SOUTH);
         if (option == JOptionPane.OK_OPTION) {
             String newStatus = (String) cmbStatus.getSelectedItem();
             
-            try (Connection conn = DatabaseConnection.getConnection()) {
-                // Validate: Can only update orders for own products
-                String validateSql = "SELECT COUNT(*) as count FROM Orders WHERE order_id = ? AND seller_id = ?";
-                PreparedStatement validateStmt = conn.prepareStatement(validateSql);
-                validateStmt.setInt(1, orderId);
-                validateStmt.setInt(2, currentUser.getUserId());
-                ResultSet validateRs = validateStmt.executeQuery();
-                
-                if (!validateRs.next() || validateRs.getInt("count") == 0) {
-                    JOptionPane.showMessageDialog(this, "You can only update orders for your own products!");
-                    return;
-                }
+            DataAccessExecutor.run(() -> {
+                try (Connection conn = DatabaseConnection.getConnection()) {
+                    // Left uncommitted on error; the pool rolls it back when the connection is returned.
+                    conn.setAutoCommit(false);
+
+                    // Validate: Can only update orders for own products
+                    String validateSql = "SELECT COUNT(*) as count FROM Orders WHERE order_id = ? AND seller_id = ?";
+                    PreparedStatement validateStmt = conn.prepareStatement(validateSql);
+                    validateStmt.setInt(1, orderId);
+                    validateStmt.setInt(2, currentUser.getUserId());
+                    ResultSet validateRs = validateStmt.executeQuery();
+                    
+                    if (!validateRs.next() || validateRs.getInt("count") == 0) {
+                        throw new BusinessException("You can only update orders for your own products!");
+                    }
 
-                String updateSql = "UPDATE Orders SET status = ? WHERE order_id = ?";
-                PreparedStatement updateStmt = conn.prepareStatement(updateSql);
-                updateStmt.setString(1, newStatus);
-                updateStmt.setInt(2, orderId);
-                updateStmt.executeUpdate();
-
-                if ("shipped".equals(newStatus)) {
-                    String shipmentSql = "INSERT INTO Shipments (order_id, tracking_number, shipped_date, status) " +
-                                        "VALUES (?, ?, CURDATE(), 'in_transit') " +
-                                        "ON DUPLICATE KEY UPDATE shipped_date = CURDATE(), status = 'in_transit'";
-                    PreparedStatement shipmentStmt = conn.prepareStatement(shipmentSql);
-                    shipmentStmt.setInt(1, orderId);
-                    shipmentStmt.setString(2, "TRACK-" + System.currentTimeMillis());
-                    shipmentStmt.executeUpdate();
-                }
+                    OrderService.changeStatus(conn, orderId, newStatus);
 
+                    // The shipment row is created by OutboxDispatcher after this commits.
+                    if ("shipped".equals(newStatus)) {
+                        Properties shipment = new Properties();
+                        shipment.setProperty("tracking_number", "TRACK-" + System.currentTimeMillis());
+                        Outbox.enqueue(conn, orderId, Outbox.SHIPMENT_CREATE, shipment);
+                    }
+                    conn.commit();
+                }
+            }, () -> {
                 JOptionPane.showMessageDialog(this, "Order status updated successfully!");
                 loadOrders();
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-                JOptionPane.showMessageDialog(this, "Error updating order status: " + ex.getMessage());
-            }
+            }, ex -> {
+                if (ex instanceof BusinessException) {
+                    JOptionPane.showMessageDialog(this, ex.getMessage());
+                } else {
+                    ex.printStackTrace();
+                    JOptionPane.showMessageDialog(this, "Error updating order status: " + ex.getMessage());
+                }
+            });
         }
     }
 
@@ -662,167 +764,136 @@ add(bottomPanel, BorderLayout.SOUTH);
     }
 
     private void loadReviews() {
-        modelReviews.setRowCount(0);
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "SELECT r.review_id, p.name as product_name, u.name as customer_name, " +
-                        "r.rating, r.comment, r.review_date " +
-                        "FROM Reviews r " +
-                        "JOIN Products p ON r.product_id = p.product_id " +
-                        "JOIN Users u ON r.customer_id = u.user_id " +
-                        "WHERE p.catalog_id = ? " +
-                        "ORDER BY r.review_date DESC";
-            PreparedStatement pstmt = conn.prepareStatement(sql);
-            pstmt.setInt(1, catalogId);
-            ResultSet rs = pstmt.executeQuery();
-
-            while (rs.next()) {
-                String comment = rs.getString("comment");
-                if (comment != null && comment.length() > 50) {
-                    comment = comment.substring(0, 50) + "...";
+        final int catalog = catalogId;
+        DataAccessExecutor.submit(REVIEWS_REQUEST, () -> {
+            List<Object[]> rows = new ArrayList<>();
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                String sql = "SELECT r.review_id, p.name as product_name, u.name as customer_name, " +
+                            "r.rating, r.comment, r.review_date " +
+                            "FROM Reviews r " +
+                            "JOIN Products p ON r.product_id = p.product_id " +
+                            "JOIN Users u ON r.customer_id = u.user_id " +
+                            "WHERE p.catalog_id = ? " +
+                            "ORDER BY r.review_date DESC";
+                PreparedStatement pstmt = conn.prepareStatement(sql);
+                pstmt.setInt(1, catalog);
+                ResultSet rs = pstmt.executeQuery();
+
+                while (rs.next()) {
+                    String comment = rs.getString("comment");
+                    if (comment != null && comment.length() > 50) {
+                        comment = comment.substring(0, 50) + "...";
+                    }
+                    rows.add(new Object[]{
+                        rs.getInt("review_id"),
+                        rs.getString("product_name"),
+                        rs.getString("customer_name"),
+                        rs.getInt("rating") + "/5",
+                        comment != null ? comment : "",
+                        rs.getTimestamp("review_date")
+                    });
                 }
-                modelReviews.addRow(new Object[]{
-                    rs.getInt("review_id"),
-                    rs.getString("product_name"),
-                    rs.getString("customer_name"),
-                    rs.getInt("rating") + "/5",
-                    comment != null ? comment : "",
-                    rs.getTimestamp("review_date")
-                });
             }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-        }
+            return rows;
+        }, rows -> {
+            modelReviews.setRowCount(0);
+            rows.forEach(modelReviews::addRow);
+        }, Exception::printStackTrace);
     }
 
     // Statistics Panel
     private JPanel createStatsPanel() {
-        JPanel panel = new JPanel();
-        panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
-        panel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
+        JPanel panel = new JPanel(new BorderLayout());
+
+        JPanel rangePanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        cmbStatsRange = new JComboBox<>(new String[]{"All Time", "Last 30 Days", "Last 12 Months", "This Year"});
+        cmbStatsRange.addActionListener(e -> updateStats());
+        rangePanel.add(new JLabel("Period:"));
+        rangePanel.add(cmbStatsRange);
+        panel.add(rangePanel, BorderLayout.NORTH);
+
+        statsLinesPanel = new JPanel();
+        statsLinesPanel.setLayout(new BoxLayout(statsLinesPanel, BoxLayout.Y_AXIS));
+        statsLinesPanel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
+        panel.add(statsLinesPanel, BorderLayout.CENTER);
         return panel;
     }
 
     private void updateStats() {
-        JPanel panel = (JPanel) tabbedPane.getComponentAt(5);
-        panel.removeAll();
-
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            DecimalFormat df = new DecimalFormat("#0.00");
-
-            // Total Revenue Per Month
-            panel.add(new JLabel("=== Total Revenue Per Month ==="));
-            String monthlySql = "SELECT MONTH(order_date) as month, YEAR(order_date) as year, " +
-                               "SUM(total_amount) as total " +
-                               "FROM Orders " +
-                               "WHERE seller_id = ? " +
-                               "GROUP BY YEAR(order_date), MONTH(order_date) " +
-                               "ORDER BY year DESC, month DESC";
-            PreparedStatement monthlyStmt = conn.prepareStatement(monthlySql);
-            monthlyStmt.setInt(1, currentUser.getUserId());
-            ResultSet monthlyRs = monthlyStmt.executeQuery();
-
-            while (monthlyRs.next()) {
-                panel.add(new JLabel(monthlyRs.getInt("year") + "-" + 
-                                    String.format("%02d", monthlyRs.getInt("month")) + 
-                                    ": $" + df.format(monthlyRs.getDouble("total"))));
+        JPanel panel = statsLinesPanel;
+        final int catalog = catalogId;
+        final LocalDate from = statsRangeStart();
+
+        DataAccessExecutor.submit(STATS_REQUEST, () -> {
+            // Lines to show; headers start with "===" and get a gap above them.
+            List<String> lines = new ArrayList<>();
+            SellerAnalytics.Report report =
+                SellerAnalytics.report(currentUser.getUserId(), catalog, from, SellerAnalytics.LAST_DAY);
+
+            lines.add("=== Total Revenue Per Month ===");
+            report.monthlyRevenue.forEach((month, revenue) -> lines.add(month + ": " + Money.format(revenue)));
+
+            lines.add("=== Best-Selling Products ===");
+            for (SellerAnalytics.ProductFigure product : report.bestSellers) {
+                lines.add(product.name + 
+                          " - Sold: " + product.quantity + 
+                          " units, Revenue: " + Money.format(product.revenue));
             }
 
-            panel.add(Box.createVerticalStrut(20));
-
-            // Best-Selling Products
-            panel.add(new JLabel("=== Best-Selling Products ==="));
-            String bestSql = "SELECT p.product_id, p.name, SUM(oi.quantity) as total_sold, " +
-                            "SUM(oi.subtotal) as total_revenue " +
-                            "FROM Order_Items oi " +
-                            "JOIN Products p ON oi.product_id = p.product_id " +
-                            "JOIN Catalogs c ON p.catalog_id = c.catalog_id " +
-                            "WHERE c.seller_id = ? " +
-                            "GROUP BY p.product_id, p.name " +
-                            "ORDER BY total_sold DESC " +
-                            "LIMIT 5";
-            PreparedStatement bestStmt = conn.prepareStatement(bestSql);
-            bestStmt.setInt(1, currentUser.getUserId());
-            ResultSet bestRs = bestStmt.executeQuery();
-
-            while (bestRs.next()) {
-                panel.add(new JLabel(bestRs.getString("name") + 
-                                    " - Sold: " + bestRs.getInt("total_sold") + 
-                                    " units, Revenue: $" + df.format(bestRs.getDouble("total_revenue"))));
+            lines.add("=== Most Rated Products ===");
+            for (SellerAnalytics.ProductFigure product : report.mostRated) {
+                lines.add(product.name + " - " + product.quantity + " reviews");
             }
 
-            panel.add(Box.createVerticalStrut(20));
-
-            // Most Rated Products
-            panel.add(new JLabel("=== Most Rated Products ==="));
-            String ratedSql = "SELECT p.product_id, p.name, COUNT(r.review_id) as review_count " +
-                              "FROM Products p " +
-                              "JOIN Reviews r ON p.product_id = r.product_id " +
-                              "WHERE p.catalog_id = ? " +
-                              "GROUP BY p.product_id, p.name " +
-                              "ORDER BY review_count DESC " +
-                              "LIMIT 5";
-            PreparedStatement ratedStmt = conn.prepareStatement(ratedSql);
-            ratedStmt.setInt(1, catalogId);
-            ResultSet ratedRs = ratedStmt.executeQuery();
-
-            while (ratedRs.next()) {
-                panel.add(new JLabel(ratedRs.getString("name") + 
-                                    " - " + ratedRs.getInt("review_count") + " reviews"));
+            lines.add("=== Average Order Value ===");
+            long avg = report.averageOrderValue();
+            lines.add(avg != -1 ? Money.format(avg) : "No orders yet");
+
+            // Approximate figures merged from the daily sketches
+            SalesSketches.Summary sketches =
+                SalesSketches.seller(currentUser.getUserId(), from, LocalDate.now());
+            lines.add("=== Buyers and Order Values ===");
+            lines.add("Unique buyers: ~" + sketches.uniqueBuyers());
+            if (sketches.orders() > 0) {
+                lines.add("Median order: ~" + Money.format(sketches.orderValue(0.5)) +
+                          ", 95th percentile: ~" + Money.format(sketches.orderValue(0.95)));
             }
-
-            panel.add(Box.createVerticalStrut(20));
-
-            panel.add(new JLabel("=== Average Order Value ==="));
-            String avgSql = "SELECT AVG(total_amount) as avg_value FROM Orders WHERE seller_id = ?";
-            PreparedStatement avgStmt = conn.prepareStatement(avgSql);
-            avgStmt.setInt(1, currentUser.getUserId());
-            ResultSet avgRs = avgStmt.executeQuery();
-
-            if (avgRs.next()) {
-                double avg = avgRs.getDouble("avg_value");
-                if (!avgRs.wasNull()) {
-                    panel.add(new JLabel("$" + df.format(avg)));
-                } else {
-                    panel.add(new JLabel("No orders yet"));
+            return lines;
+        }, lines -> {
+            panel.removeAll();
+            for (int i = 0; i < lines.size(); i++) {
+                if (i > 0 && lines.get(i).startsWith("===")) {
+                    panel.add(Box.createVerticalStrut(20));
                 }
+                panel.add(new JLabel(lines.get(i)));
             }
-
-        } catch (SQLException ex) {
+            panel.revalidate();
+            panel.repaint();
+        }, ex -> {
             ex.printStackTrace();
+            panel.removeAll();
             panel.add(new JLabel("Error loading statistics: " + ex.getMessage()));
-        }
+            panel.revalidate();
+            panel.repaint();
+        });
+    }
 
-        panel.revalidate();
-        panel.repaint();
+    // First day of the period picked on the statistics tab
+    private LocalDate statsRangeStart() {
+        LocalDate today = LocalDate.now();
+        int range = cmbStatsRange.getSelectedIndex();
+        if (range == 1) return today.minusDays(29);
+        else if (range == 2) return today.minusMonths(12).plusDays(1);
+        else if (range == 3) return today.withDayOfYear(1);
+        return SellerAnalytics.FIRST_DAY;
     }
 
-    // Helper methods
-    private void loadCategories(JComboBox<String> cmb) {
-        cmb.removeAllItems();
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "SELECT name FROM Categories ORDER BY name";
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
-            while (rs.next()) {
-                cmb.addItem(rs.getString("name"));
-            }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-        }
+    // Helper methods; both run on a background thread
+    private List<String> fetchCategories() throws SQLException {
+        return ReferenceDataCache.categoryNames();
     }
 
-    private int getCategoryId(String categoryName) {
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "SELECT category_id FROM Categories WHERE name = ?";
-            PreparedStatement pstmt = conn.prepareStatement(sql);
-            pstmt.setString(1, categoryName);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return rs.getInt("category_id");
-            }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-        }
-        return -1;
+    private int getCategoryId(String categoryName) throws SQLException {
+        return ReferenceDataCache.categoryId(categoryName);
     }
 }
@@ -0,0 +1,96 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving summary of the heaviest keys in a weighted stream, using at most capacity counters.
+ * When a new key arrives and the summary is full, it takes over the smallest counter and inherits
+ * that count as its error. Reported counts never underestimate and overestimate by at most the
+ * error, and any key whose true weight exceeds total / capacity is guaranteed to be kept.
+ * Capacities here are small, so the smallest counter is found by a scan. Not thread-safe.
+ */
+public class SpaceSaving<K> {
+
+    /** A tracked key; the true weight lies between count - error and count. */
+    public static class Counter<K> {
+        public final K key;
+        public long count;
+        public long error;
+
+        Counter(K key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+    }
+
+    private final int capacity;
+    private final Map<K, Counter<K>> counters;
+
+    public SpaceSaving(int capacity) {
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public void add(K key, long weight) {
+        Counter<K> counter = counters.get(key);
+        if (counter != null) {
+            counter.count += weight;
+            return;
+        }
+        if (counters.size() < capacity) {
+            counters.put(key, new Counter<>(key, weight, 0));
+            return;
+        }
+        Counter<K> smallest = smallest();
+        counters.remove(smallest.key);
+        counters.put(key, new Counter<>(key, smallest.count + weight, smallest.count));
+    }
+
+    /**
+     * Takes weight back from a key, e.g. when a sale is canceled. Untracked keys are ignored, since
+     * their weight was already folded into another counter's error.
+     */
+    public void subtract(K key, long weight) {
+        Counter<K> counter = counters.get(key);
+        if (counter != null) {
+            counter.count = Math.max(0, counter.count - weight);
+            counter.error = Math.min(counter.error, counter.count);
+        }
+    }
+
+    /**
+     * Upper bound on the weight of any key that is not tracked: the smallest count once the
+     * summary is full, 0 before that.
+     */
+    public long untrackedBound() {
+        return counters.size() < capacity ? 0 : smallest().count;
+    }
+
+    public boolean tracks(K key) {
+        return counters.containsKey(key);
+    }
+
+    public boolean isEmpty() {
+        return counters.isEmpty();
+    }
+
+    public List<Counter<K>> counters() {
+        return new ArrayList<>(counters.values());
+    }
+
+    public void clear() {
+        counters.clear();
+    }
+
+    private Counter<K> smallest() {
+        Counter<K> smallest = null;
+        for (Counter<K> c : counters.values()) {
+            if (smallest == null || c.count < smallest.count) {
+                smallest = c;
+            }
+        }
+        return smallest;
+    }
+}
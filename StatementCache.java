@@ -0,0 +1,197 @@
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU cache of prepared statements for one physical connection, keyed by SQL text.
+ * Callers get a proxy whose close() hands the statement back to the cache instead of
+ * closing it, so the next prepareStatement() with the same SQL skips the parse/plan step.
+ */
+class StatementCache {
+
+    /** Hit/miss/eviction counters shared by every cache of a pool. */
+    static class Counters {
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+        final AtomicLong evictions = new AtomicLong();
+    }
+
+    private final Connection physical;
+    private final int maxSize;
+    private final Counters counters;
+    private final LinkedHashMap<String, CachedStatement> cache;
+
+    StatementCache(Connection physical, int maxSize, Counters counters) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.counters = counters;
+        this.cache = new LinkedHashMap<String, CachedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() <= StatementCache.this.maxSize) {
+                    return false;
+                }
+                counters.evictions.incrementAndGet();
+                eldest.getValue().evict();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns a cached statement for the SQL, preparing it on a miss.
+     * autoGeneratedKeys is null for the plain prepareStatement(String) variant.
+     */
+    synchronized PreparedStatement prepare(Connection logical, String sql, Integer autoGeneratedKeys)
+            throws SQLException {
+        String key = autoGeneratedKeys == null ? sql : autoGeneratedKeys + "|" + sql;
+        CachedStatement cached = cache.get(key);
+
+        if (cached != null && !cached.inUse) {
+            counters.hits.incrementAndGet();
+        } else if (cached != null) {
+            // Same SQL already borrowed on this connection (e.g. nested loop); don't share it.
+            counters.misses.incrementAndGet();
+            return autoGeneratedKeys == null
+                ? physical.prepareStatement(sql)
+                : physical.prepareStatement(sql, autoGeneratedKeys);
+        } else {
+            counters.misses.incrementAndGet();
+            PreparedStatement stmt = autoGeneratedKeys == null
+                ? physical.prepareStatement(sql)
+                : physical.prepareStatement(sql, autoGeneratedKeys);
+            cached = new CachedStatement(key, stmt);
+            cache.put(key, cached);
+        }
+
+        cached.inUse = true;
+        return cached.newProxy(logical);
+    }
+
+    synchronized void closeAll() {
+        for (CachedStatement cached : cache.values()) {
+            cached.evict();
+        }
+        cache.clear();
+    }
+
+    private synchronized void giveBack(CachedStatement cached) {
+        cached.inUse = false;
+        if (cached.evicted) {
+            cache.remove(cached.key, cached);
+            cached.closeQuietly();
+        }
+    }
+
+    private class CachedStatement {
+        final String key;
+        final PreparedStatement stmt;
+        boolean inUse = false;
+        boolean evicted = false;
+
+        CachedStatement(String key, PreparedStatement stmt) {
+            this.key = key;
+            this.stmt = stmt;
+        }
+
+        PreparedStatement newProxy(Connection logical) {
+            return (PreparedStatement) Proxy.newProxyInstance(
+                StatementCache.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new LogicalStatement(this, logical));
+        }
+
+        void evict() {
+            evicted = true;
+            if (!inUse) {
+                closeQuietly();
+            }
+        }
+
+        void closeQuietly() {
+            try {
+                stmt.close();
+            } catch (SQLException e) {
+                // statement is being discarded
+            }
+        }
+    }
+
+    /** One borrow of a cached statement; unusable after close(). */
+    private class LogicalStatement implements InvocationHandler {
+        private final CachedStatement cached;
+        private final Connection logical;
+        private final List<ResultSet> resultSets = new ArrayList<>();
+        private boolean closed = false;
+
+        LogicalStatement(CachedStatement cached, Connection logical) {
+            this.cached = cached;
+            this.logical = logical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        reset();
+                        giveBack(cached);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "getConnection":
+                    return logical;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Cached[" + cached.stmt + "]";
+                default:
+                    break;
+            }
+
+            if (closed) {
+                throw new SQLException("Statement is closed");
+            }
+
+            try {
+                Object result = method.invoke(cached.stmt, args);
+                if (result instanceof ResultSet) {
+                    resultSets.add((ResultSet) result);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void reset() {
+            try {
+                for (ResultSet rs : resultSets) {
+                    rs.close();
+                }
+                cached.stmt.clearParameters();
+                cached.stmt.clearBatch();
+            } catch (SQLException e) {
+                // a statement that can't be reset must not be reused
+                synchronized (StatementCache.this) {
+                    cached.evicted = true;
+                }
+            }
+            resultSets.clear();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+import java.sql.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * "Hot SKU" mode: a product's stock is spread over N rows of Product_Stock_Stripes so that
+ * concurrent checkouts decrement different rows instead of all queueing on the Products row.
+ *
+ * Products.stock_quantity stays part of the total (total = stock_quantity + all stripes), so
+ * restocks and cancellations that add to stock_quantity keep working unchanged; checkout
+ * takes from the stripes first and rebalances when none of them can cover a line on its own.
+ */
+public class StockStripes {
+
+    /** Exact stock of the product aliased p, for SELECT lists and conditions. */
+    public static final String STOCK_EXPR =
+        "(CASE WHEN p.stock_stripes = 0 THEN p.stock_quantity ELSE p.stock_quantity + " +
+        "COALESCE((SELECT SUM(ss.quantity) FROM Product_Stock_Stripes ss WHERE ss.product_id = p.product_id), 0) END)";
+
+    private static final String DECREMENT_SQL = """
+        UPDATE Product_Stock_Stripes SET quantity = quantity - ?
+        WHERE product_id = ? AND stripe_no = ? AND quantity >= ?
+        """;
+
+    private static final String DECREMENT_BASE_SQL =
+        "UPDATE Products SET stock_quantity = stock_quantity - ? WHERE product_id = ? AND stock_quantity >= ?";
+
+    // Base row first, then stripes in order, so every rebalance locks rows in the same order.
+    private static final String LOCK_BASE_SQL = "SELECT stock_quantity FROM Products WHERE product_id = ? FOR UPDATE";
+
+    private static final String LOCK_STRIPES_SQL =
+        "SELECT quantity FROM Product_Stock_Stripes WHERE product_id = ? ORDER BY stripe_no FOR UPDATE";
+
+    private static final String SET_STRIPE_SQL = """
+        INSERT INTO Product_Stock_Stripes (product_id, stripe_no, quantity) VALUES (?, ?, ?)
+        ON DUPLICATE KEY UPDATE quantity = VALUES(quantity)
+        """;
+
+    private static final String SET_BASE_SQL = "UPDATE Products SET stock_quantity = ?, stock_stripes = ? WHERE product_id = ?";
+
+    private static final String DELETE_STRIPES_SQL = "DELETE FROM Product_Stock_Stripes WHERE product_id = ? AND stripe_no >= ?";
+
+    /**
+     * Takes quantity units of a striped product. Tries the stripes starting from a random one,
+     * then the base row, and finally rebalances under lock. Returns false if the total is short.
+     * Must be called inside a transaction.
+     */
+    public static boolean decrement(Connection conn, int productId, int stripes, int quantity) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement(DECREMENT_SQL);
+        int start = ThreadLocalRandom.current().nextInt(stripes);
+        for (int i = 0; i < stripes; i++) {
+            stmt.setInt(1, quantity);
+            stmt.setInt(2, productId);
+            stmt.setInt(3, (start + i) % stripes);
+            stmt.setInt(4, quantity);
+            if (stmt.executeUpdate() == 1) {
+                return true;
+            }
+        }
+
+        PreparedStatement baseStmt = conn.prepareStatement(DECREMENT_BASE_SQL);
+        baseStmt.setInt(1, quantity);
+        baseStmt.setInt(2, productId);
+        baseStmt.setInt(3, quantity);
+        if (baseStmt.executeUpdate() == 1) {
+            return true;
+        }
+
+        return rebalance(conn, productId, stripes, quantity);
+    }
+
+    /**
+     * Turns hot SKU mode on with the given number of stripes, or off when stripes is 0.
+     * The current total is redistributed either way.
+     */
+    public static void setStripes(int productId, int stripes) throws SQLException {
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+            int total = lockTotal(conn, productId);
+            distribute(conn, productId, stripes, total);
+            conn.commit();
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackEx) {
+                    rollbackEx.printStackTrace();
+                }
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    // Every row was too small on its own: lock them all, take the quantity from the total and spread the rest.
+    private static boolean rebalance(Connection conn, int productId, int stripes, int quantity) throws SQLException {
+        int total = lockTotal(conn, productId);
+        if (total < quantity) {
+            return false;
+        }
+        distribute(conn, productId, stripes, total - quantity);
+        return true;
+    }
+
+    private static int lockTotal(Connection conn, int productId) throws SQLException {
+        PreparedStatement baseStmt = conn.prepareStatement(LOCK_BASE_SQL);
+        baseStmt.setInt(1, productId);
+        ResultSet baseRs = baseStmt.executeQuery();
+        if (!baseRs.next()) {
+            return 0;
+        }
+        int total = baseRs.getInt("stock_quantity");
+
+        PreparedStatement stripesStmt = conn.prepareStatement(LOCK_STRIPES_SQL);
+        stripesStmt.setInt(1, productId);
+        ResultSet rs = stripesStmt.executeQuery();
+        while (rs.next()) {
+            total += rs.getInt("quantity");
+        }
+        return total;
+    }
+
+    // Spreads total evenly over the stripes (the first total % stripes get one extra) and empties the base row.
+    private static void distribute(Connection conn, int productId, int stripes, int total) throws SQLException {
+        PreparedStatement deleteStmt = conn.prepareStatement(DELETE_STRIPES_SQL);
+        deleteStmt.setInt(1, productId);
+        deleteStmt.setInt(2, stripes);
+        deleteStmt.executeUpdate();
+
+        PreparedStatement baseStmt = conn.prepareStatement(SET_BASE_SQL);
+        baseStmt.setInt(1, stripes == 0 ? total : 0);
+        baseStmt.setInt(2, stripes);
+        baseStmt.setInt(3, productId);
+        baseStmt.executeUpdate();
+
+        if (stripes == 0) {
+            return;
+        }
+        PreparedStatement stripeStmt = conn.prepareStatement(SET_STRIPE_SQL);
+        for (int i = 0; i < stripes; i++) {
+            stripeStmt.setInt(1, productId);
+            stripeStmt.setInt(2, i);
+            stripeStmt.setInt(3, total / stripes + (i < total % stripes ? 1 : 0));
+            stripeStmt.addBatch();
+        }
+        stripeStmt.executeBatch();
+    }
+}
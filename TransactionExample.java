@@ -1,4 +1,5 @@
 import java.sql.*;
+import java.util.Properties;
 
 /**
  * Example utility class demonstrating transaction management for critical operations.
@@ -7,14 +8,16 @@ import java.sql.*;
 public class TransactionExample {
     
     /**
-     * Example: Complete order checkout with payment verification, stock deduction, and shipment creation.
-     * All operations must succeed together or all are rolled back.
+     * Example: Complete order checkout: verify payment, mark the order paid and queue its shipment.
+     * The transaction is a few short statements; the shipment row is written afterwards by
+     * OutboxDispatcher from the queued event. All steps succeed together or all are rolled back.
+     * A retry with the same idempotency key after a success returns true without running again.
      */
-    public static boolean checkoutOrder(int orderId) throws SQLException, BusinessException {
-        Connection conn = null;
-        try {
-            conn = DatabaseConnection.getConnection();
-            conn.setAutoCommit(false);  // Start transaction
+    public static boolean checkoutOrder(String idempotencyKey, int orderId) throws SQLException, BusinessException {
+        return TransactionTemplate.execute("TransactionExample.checkoutOrder", conn -> {
+            if (!IdempotencyKeys.claim(conn, idempotencyKey, "CHECKOUT", orderId)) {
+                return true;  // Already done under this key
+            }
             
             // Step 1: Verify payment completed
             String checkPaymentSql = """
@@ -27,11 +30,10 @@ public class TransactionExample {
             ResultSet rs = checkStmt.executeQuery();
             
             if (!rs.next()) {
-                conn.rollback();
                 throw new BusinessException("Payment verification failed");
             }
             
-            double paidAmount = rs.getDouble("paid_amount");
+            long paidAmount = Money.get(rs, "paid_amount");
             
             // Get order total
             String orderSql = "SELECT total_amount, status FROM Orders WHERE order_id = ?";
@@ -40,113 +42,43 @@ public class TransactionExample {
             ResultSet orderRs = orderStmt.executeQuery();
             
             if (!orderRs.next()) {
-                conn.rollback();
                 throw new BusinessException("Order not found");
             }
             
-            double orderTotal = orderRs.getDouble("total_amount");
+            long orderTotal = Money.get(orderRs, "total_amount");
             String currentStatus = orderRs.getString("status");
             
             if (!"Pending".equals(currentStatus)) {
-                conn.rollback();
                 throw new BusinessException("Order is not in Pending status");
             }
             
             if (paidAmount < orderTotal) {
-                conn.rollback();
-                throw new BusinessException("Payment insufficient. Paid: $" + paidAmount + ", Required: $" + orderTotal);
+                throw new BusinessException("Payment insufficient. Paid: " + Money.format(paidAmount) +
+                                            ", Required: " + Money.format(orderTotal));
             }
             
-            // Step 2: Verify stock availability before deducting
-            String stockCheckSql = """
-                SELECT oi.product_id, oi.quantity, p.stock_quantity, p.name
-                FROM OrderItems oi
-                JOIN Products p ON oi.product_id = p.product_id
-                WHERE oi.order_id = ?
-                """;
-            PreparedStatement stockCheckStmt = conn.prepareStatement(stockCheckSql);
-            stockCheckStmt.setInt(1, orderId);
-            ResultSet stockRs = stockCheckStmt.executeQuery();
-            
-            while (stockRs.next()) {
-                int requiredQty = stockRs.getInt("quantity");
-                int availableStock = stockRs.getInt("stock_quantity");
-                String productName = stockRs.getString("name");
-                
-                if (availableStock < requiredQty) {
-                    conn.rollback();
-                    throw new BusinessException(
-                        "Insufficient stock for " + productName + 
-                        ". Available: " + availableStock + ", Required: " + requiredQty);
-                }
-            }
-            
-            // Step 3: Update order status to Paid
-            String updateOrderSql = "UPDATE Orders SET status = 'Paid' WHERE order_id = ?";
-            PreparedStatement updateStmt = conn.prepareStatement(updateOrderSql);
-            updateStmt.setInt(1, orderId);
-            updateStmt.executeUpdate();
-            
-            // Step 4: Deduct stock quantities
-            String deductStockSql = """
-                UPDATE Products p
-                JOIN OrderItems oi ON p.product_id = oi.product_id
-                SET p.stock_quantity = p.stock_quantity - oi.quantity
-                WHERE oi.order_id = ?
-                """;
-            PreparedStatement stockStmt = conn.prepareStatement(deductStockSql);
-            stockStmt.setInt(1, orderId);
-            int rowsAffected = stockStmt.executeUpdate();
-            
-            if (rowsAffected == 0) {
-                conn.rollback();
-                throw new BusinessException("Failed to update stock quantities");
-            }
-            
-            // Step 5: Create shipment record
-            String shipmentSql = """
-                INSERT INTO Shipments (order_id, status, tracking_number)
-                VALUES (?, 'Preparing', ?)
-                """;
-            PreparedStatement shipmentStmt = conn.prepareStatement(shipmentSql);
-            shipmentStmt.setInt(1, orderId);
-            shipmentStmt.setString(2, "TRACK-" + System.currentTimeMillis());
-            shipmentStmt.executeUpdate();
+            // Step 2: Mark the order paid. Stock was already deducted when the order was submitted
+            // (OrderService.reserveStock), so nothing is taken from Products here.
+            OrderService.changeStatus(conn, orderId, "Paid");
+
+            // Step 3: Queue the shipment; OutboxDispatcher creates the row after this commits.
+            Properties shipment = new Properties();
+            shipment.setProperty("tracking_number", "TRACK-" + System.currentTimeMillis());
+            Outbox.enqueue(conn, orderId, Outbox.SHIPMENT_CREATE, shipment);
             
-            conn.commit();  // Success - commit all changes
             return true;
-            
-        } catch (SQLException e) {
-            try {
-                if (conn != null) conn.rollback();  // Error - rollback all changes
-            } catch (SQLException rollbackEx) {
-                rollbackEx.printStackTrace();
-            }
-            throw e;
-        } catch (BusinessException e) {
-            try {
-                if (conn != null) conn.rollback();
-            } catch (SQLException rollbackEx) {
-                rollbackEx.printStackTrace();
-            }
-            throw e;
-        } finally {
-            try {
-                if (conn != null) conn.setAutoCommit(true);
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
-        }
+        });
     }
     
     /**
      * Example: Cancel order with stock restoration and refund.
+     * A retry with the same idempotency key after a success does nothing.
      */
-    public static void cancelOrder(int orderId, String reason) throws SQLException, BusinessException {
-        Connection conn = null;
-        try {
-            conn = DatabaseConnection.getConnection();
-            conn.setAutoCommit(false);
+    public static void cancelOrder(String idempotencyKey, int orderId, String reason) throws SQLException, BusinessException {
+        TransactionTemplate.execute("TransactionExample.cancelOrder", conn -> {
+            if (!IdempotencyKeys.claim(conn, idempotencyKey, "CANCEL", orderId)) {
+                return null;  // Already done under this key
+            }
             
             // Step 1: Check if order can be canceled
             String checkSql = "SELECT status, total_amount FROM Orders WHERE order_id = ?";
@@ -155,20 +87,17 @@ public class TransactionExample {
             ResultSet rs = checkStmt.executeQuery();
             
             if (!rs.next()) {
-                conn.rollback();
                 throw new BusinessException("Order not found");
             }
             
             String status = rs.getString("status");
-            double totalAmount = rs.getDouble("total_amount");
+            long totalAmount = Money.get(rs, "total_amount");
             
             if ("Delivered".equals(status)) {
-                conn.rollback();
                 throw new BusinessException("Cannot cancel delivered order");
             }
             
             if ("Canceled".equals(status)) {
-                conn.rollback();
                 throw new BusinessException("Order is already canceled");
             }
             
@@ -196,6 +125,9 @@ public class TransactionExample {
             cancelStmt.setString(1, reason);
             cancelStmt.setInt(2, orderId);
             cancelStmt.executeUpdate();
+            SalesRollup.applyTransition(conn, orderId, status, "Canceled");
+            CustomerStats.applyTransition(conn, orderId, status, "Canceled");
+            CouponEngine.release(conn, orderId);
             
             // Step 4: Create refund payment (if order was paid)
             if (!"Pending".equals(status)) {
@@ -205,31 +137,13 @@ public class TransactionExample {
                     """;
                 PreparedStatement refundStmt = conn.prepareStatement(refundSql);
                 refundStmt.setInt(1, orderId);
-                refundStmt.setDouble(2, -totalAmount);  // Negative amount for refund
-                refundStmt.setString(3, "REFUND-" + System.currentTimeMillis());
+                Money.set(refundStmt, 2, -totalAmount);  // Negative amount for refund
+                refundStmt.setString(3, "REFUND-" + idempotencyKey);
                 refundStmt.executeUpdate();
             }
             
-            conn.commit();
-            
-        } catch (SQLException | BusinessException e) {
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException rollbackEx) {
-                    rollbackEx.printStackTrace();
-                }
-            }
-            throw e;
-        } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                } catch (SQLException e) {
-                    e.printStackTrace();
-                }
-            }
-        }
+            return null;
+        });
     }
 }
 
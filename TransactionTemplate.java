@@ -0,0 +1,144 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs a unit of work in its own transaction and retries it when MySQL aborts it because of
+ * lock contention: a deadlock (1213, SQLState 40001) or a lock wait timeout (1205).
+ * The whole transaction is rolled back and run again from the start on a fresh connection,
+ * after a random delay that grows with each attempt so colliding transactions spread out.
+ * Business errors and other SQL errors are never retried.
+ */
+public class TransactionTemplate {
+
+    private static final int MAX_ATTEMPTS = Integer.getInteger("tx.retry.maxAttempts", 4);
+    private static final long BASE_DELAY_MS = Long.getLong("tx.retry.baseDelayMs", 20);
+    private static final long MAX_DELAY_MS = Long.getLong("tx.retry.maxDelayMs", 1000);
+
+    private static final int ER_LOCK_DEADLOCK = 1213;
+    private static final int ER_LOCK_WAIT_TIMEOUT = 1205;
+
+    private static final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    /** Transactional work; must not commit or roll back the connection itself. */
+    public interface Work<T> {
+        T run(Connection conn) throws SQLException, BusinessException;
+    }
+
+    private static class Counters {
+        final AtomicLong calls = new AtomicLong();
+        final AtomicLong retries = new AtomicLong();
+        final AtomicLong exhausted = new AtomicLong();
+    }
+
+    /** Point-in-time retry counters of one named operation. */
+    public static class Stats {
+        public final String operation;
+        public final long calls, retries, exhausted;
+
+        Stats(String operation, Counters c) {
+            this.operation = operation;
+            this.calls = c.calls.get();
+            this.retries = c.retries.get();
+            this.exhausted = c.exhausted.get();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: calls=%d retries=%d exhausted=%d", operation, calls, retries, exhausted);
+        }
+    }
+
+    /**
+     * Runs work in a transaction and commits it, retrying up to MAX_ATTEMPTS times in total
+     * on deadlock or lock wait timeout. operation names the counters the attempt is recorded under.
+     */
+    public static <T> T execute(String operation, Work<T> work) throws SQLException, BusinessException {
+        Counters c = counters.computeIfAbsent(operation, k -> new Counters());
+        c.calls.incrementAndGet();
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return runOnce(work);
+            } catch (SQLException e) {
+                if (!isRetryable(e)) {
+                    throw e;
+                }
+                if (attempt >= MAX_ATTEMPTS) {
+                    c.exhausted.incrementAndGet();
+                    throw e;
+                }
+                c.retries.incrementAndGet();
+                backOff(attempt);
+            }
+        }
+    }
+
+    public static List<Stats> getStats() {
+        List<Stats> stats = new ArrayList<>();
+        counters.forEach((operation, c) -> stats.add(new Stats(operation, c)));
+        stats.sort((a, b) -> a.operation.compareTo(b.operation));
+        return stats;
+    }
+
+    /** True for the lock errors after which MySQL has rolled back and the work can simply run again. */
+    public static boolean isRetryable(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException) {
+                SQLException sql = (SQLException) t;
+                if ("40001".equals(sql.getSQLState())
+                        || sql.getErrorCode() == ER_LOCK_DEADLOCK
+                        || sql.getErrorCode() == ER_LOCK_WAIT_TIMEOUT) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static <T> T runOnce(Work<T> work) throws SQLException, BusinessException {
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+            T result = work.run(conn);
+            conn.commit();
+            DatabaseConnection.pinToPrimary();
+            return result;
+
+        } catch (SQLException | BusinessException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackEx) {
+                    rollbackEx.printStackTrace();
+                }
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    // Full jitter: a random delay up to BASE_DELAY_MS * 2^(attempt-1), capped at MAX_DELAY_MS.
+    private static void backOff(int attempt) throws SQLException {
+        long ceiling = Math.min(MAX_DELAY_MS, BASE_DELAY_MS << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting to retry transaction", e);
+        }
+    }
+}